@@ -6,6 +6,7 @@ import com.sneaky.cosmetics.commands.CosmeticsCommand;
 import com.sneaky.cosmetics.commands.CreditsCommand;
 import com.sneaky.cosmetics.commands.SneakyCosmeticsCommand;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
+import com.sneaky.cosmetics.cosmetics.pets.PetController;
 import com.sneaky.cosmetics.database.DatabaseManager;
 import com.sneaky.cosmetics.gui.GUIManager;
 import com.sneaky.cosmetics.integrations.CMIIntegration;
@@ -13,6 +14,7 @@ import com.sneaky.cosmetics.integrations.EssentialsXIntegration;
 import com.sneaky.cosmetics.integrations.LuckPermsIntegration;
 import com.sneaky.cosmetics.integrations.PlaceholderAPIIntegration;
 import com.sneaky.cosmetics.integrations.VaultIntegration;
+import com.sneaky.cosmetics.listeners.CosmeticSuspensionListener;
 import com.sneaky.cosmetics.listeners.PlayerListener;
 import com.sneaky.cosmetics.managers.AuraManager;
 import com.sneaky.cosmetics.managers.CosmeticManager;
@@ -26,11 +28,14 @@ import com.sneaky.cosmetics.managers.RentalManager;
 import com.sneaky.cosmetics.managers.StatisticsManager;
 import com.sneaky.cosmetics.managers.TrailManager;
 import com.sneaky.cosmetics.managers.WingManager;
+import com.sneaky.cosmetics.rendering.CosmeticRenderScheduler;
 import com.sneaky.cosmetics.utils.MessageManager;
+import com.sneaky.cosmetics.utils.PlayerSpatialIndex;
 import com.sneaky.cosmetics.utils.SchedulerAdapter;
 import com.sneaky.cosmetics.utils.UpdateChecker;
 import org.bstats.bukkit.Metrics;
 import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.logging.Level;
@@ -61,6 +66,10 @@ public class SneakyCosmetics extends JavaPlugin {
     private GUIManager guiManager;
     private AchievementManager achievementManager;
     private StatisticsManager statisticsManager;
+    private CosmeticRenderScheduler renderScheduler;
+    private PetController petController;
+    private final PlayerSpatialIndex playerIndex = new PlayerSpatialIndex();
+    private CosmeticSuspensionListener suspensionListener;
     
     // Cosmetic type managers
     private ParticleManager particleManager;
@@ -273,6 +282,15 @@ public class SneakyCosmetics extends JavaPlugin {
             cosmeticManager.shutdown();
         }
         
+        // Stop the cosmetic render loop
+        if (renderScheduler != null) {
+            renderScheduler.stop();
+        }
+        if (petController != null) {
+            petController.stop();
+        }
+        playerIndex.clear();
+        
         // Stop all background tasks
         if (particleManager != null) particleManager.stopAllTasks();
         if (trailManager != null) trailManager.stopAllTasks();
@@ -304,18 +322,6 @@ public class SneakyCosmetics extends JavaPlugin {
             placeholderAPIIntegration.unregister();
         }
         
-        // Cleanup pets
-        com.sneaky.cosmetics.cosmetics.pets.PetCosmetic.cleanupAllPets();
-        
-        // Cleanup gadgets
-        com.sneaky.cosmetics.cosmetics.gadgets.GadgetCosmetic.cleanupAllGadgets();
-        
-        // Cleanup wings
-        com.sneaky.cosmetics.cosmetics.wings.WingCosmetic.cleanupAllWings();
-        
-        // Cleanup auras
-        com.sneaky.cosmetics.cosmetics.auras.AuraCosmetic.cleanupAllAuras();
-        
         // Cancel all running tasks
         getServer().getScheduler().cancelTasks(this);
         
@@ -407,6 +413,8 @@ public class SneakyCosmetics extends JavaPlugin {
         this.guiManager = new GUIManager(this);
         this.achievementManager = new AchievementManager(this);
         this.statisticsManager = new StatisticsManager(this);
+        this.renderScheduler = new CosmeticRenderScheduler(this);
+        this.petController = new PetController(this);
         
         // Initialize cosmetic type managers
         this.particleManager = new ParticleManager(this);
@@ -476,11 +484,24 @@ public class SneakyCosmetics extends JavaPlugin {
     private void registerListeners() {
         getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
         
+        // Pause rendering for spectators, disabled worlds and vanished or AFK players
+        this.suspensionListener = new CosmeticSuspensionListener(this);
+        suspensionListener.register();
+        
         // Register GUI listener
         getServer().getPluginManager().registerEvents(guiManager, this);
     }
     
     private void startBackgroundTasks() {
+        // Index the players already online (after a reload) and catch movement without move events
+        schedulerAdapter.runGlobalTaskTimer(handle -> refreshPlayerIndex(), 1L, 20L);
+        
+        // Particle, trail, wing and aura effects render from one shared loop, per wearer on Folia
+        renderScheduler.start();
+        
+        // Every pet follows its owner from one shared, staggered loop
+        petController.start();
+        
         // Cosmetic effect tasks are now handled by CosmeticCleanupManager
         // Start individual manager tasks for backward compatibility
         particleManager.startParticleTask();
@@ -503,6 +524,18 @@ public class SneakyCosmetics extends JavaPlugin {
         // No need for separate cleanup task scheduling
     }
     
+    private void refreshPlayerIndex() {
+        playerIndex.prune();
+        for (Player player : getServer().getOnlinePlayers()) {
+            if (schedulerAdapter.isFolia()) {
+                // Positions are read on the region thread that owns the player
+                schedulerAdapter.runTaskForEntity(player, () -> playerIndex.refresh(player));
+            } else {
+                playerIndex.refresh(player);
+            }
+        }
+    }
+    
     private void setupMetrics() {
         try {
             // bStats metrics initialized successfully
@@ -525,6 +558,14 @@ public class SneakyCosmetics extends JavaPlugin {
         // Reload cosmetic manager
         cosmeticManager.reload();
         
+        // Apply updated render intervals
+        renderScheduler.reload();
+        petController.reload();
+        
+        // Re-check paused players against the new disabled worlds and status settings
+        suspensionListener.loadSettings();
+        suspensionListener.updateAll();
+        
         getLogger().info("Configuration reloaded successfully!");
     }
     
@@ -613,6 +654,10 @@ public class SneakyCosmetics extends JavaPlugin {
         return achievementManager;
     }
     
+    public CosmeticSuspensionListener getSuspensionListener() {
+        return suspensionListener;
+    }
+    
     public CMIIntegration getCMIIntegration() {
         return cmiIntegration;
     }
@@ -621,6 +666,21 @@ public class SneakyCosmetics extends JavaPlugin {
         return statisticsManager;
     }
     
+    public CosmeticRenderScheduler getRenderScheduler() {
+        return renderScheduler;
+    }
+    
+    public PetController getPetController() {
+        return petController;
+    }
+    
+    /**
+     * Shared grid of online player positions for proximity queries
+     */
+    public PlayerSpatialIndex getPlayerIndex() {
+        return playerIndex;
+    }
+    
     public RentalManager getRentalManager() {
         return rentalManager;
     }
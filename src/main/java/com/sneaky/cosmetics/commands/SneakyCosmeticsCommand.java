@@ -1,6 +1,9 @@
 package com.sneaky.cosmetics.commands;
 
 import com.sneaky.cosmetics.SneakyCosmetics;
+import com.sneaky.cosmetics.cosmetics.pets.PetController;
+import com.sneaky.cosmetics.rendering.CosmeticRenderScheduler;
+import com.sneaky.cosmetics.rendering.QualityController;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -10,6 +13,7 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Unified command dispatcher for SneakyCosmetics
@@ -78,6 +82,18 @@ public class SneakyCosmeticsCommand implements CommandExecutor, TabCompleter {
             case "reload":
                 return handleReload(sender);
                 
+            case "particles":
+                return handleParticleQuota(sender, subArgs);
+                
+            case "render":
+                if (subArgs.length > 0 && subArgs[0].equalsIgnoreCase("quality")) {
+                    return handleRenderQuality(sender);
+                }
+                if (subArgs.length > 0 && subArgs[0].equalsIgnoreCase("pets")) {
+                    return handlePetStats(sender);
+                }
+                return handleRenderStats(sender);
+                
             default:
                 sender.sendMessage("§c✗ Unknown category: " + category);
                 sender.sendMessage("§7Use /sneakycosmetics help for available categories.");
@@ -93,6 +109,7 @@ public class SneakyCosmeticsCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage("§e§l🎨 Cosmetics Categories:");
         sender.sendMessage("  §f/sneakycosmetics cosmetics §7- Browse and equip cosmetics");
         sender.sendMessage("  §f/sneakycosmetics morph §7- Transform into different creatures");
+        sender.sendMessage("  §f/sneakycosmetics particles <low|normal> §7- Receive fewer particles on slower clients");
         sender.sendMessage("");
         sender.sendMessage("§e§l💰 Economy & Rewards:");
         sender.sendMessage("  §f/sneakycosmetics credits §7- Manage your credit balance");
@@ -107,6 +124,9 @@ public class SneakyCosmeticsCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage("");
             sender.sendMessage("§c§l👑 Admin Commands:");
             sender.sendMessage("  §c/sneakycosmetics reload §7- Reload plugin configuration");
+            sender.sendMessage("  §c/sneakycosmetics render §7- Show cosmetic render statistics");
+            sender.sendMessage("  §c/sneakycosmetics render quality §7- Show adaptive quality tier and changes");
+            sender.sendMessage("  §c/sneakycosmetics render pets §7- Show pet AI statistics");
         }
         
         sender.sendMessage("");
@@ -166,17 +186,203 @@ public class SneakyCosmeticsCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    private boolean handleRenderStats(CommandSender sender) {
+        if (!sender.hasPermission("sneakycosmetics.admin")) {
+            sender.sendMessage("§c✗ You don't have permission to view render statistics!");
+            return true;
+        }
+        
+        CosmeticRenderScheduler scheduler = plugin.getRenderScheduler();
+        if (scheduler == null) {
+            sender.sendMessage("§c✗ The cosmetic render scheduler is not running.");
+            return true;
+        }
+        
+        sender.sendMessage("§6&l✦ Cosmetic Render Statistics ✦");
+        sender.sendMessage("§8▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+        sender.sendMessage("§7Status: " + (scheduler.isRunning() ? "§aRunning" : "§cStopped"));
+        sender.sendMessage("§7Quality Tier: §f" + scheduler.getQualityController().getTier().getDescription());
+        sender.sendMessage("§7Active Emitters: §f" + scheduler.getActiveEmitterCount());
+        sender.sendMessage("§7Paused Emitters: §f" + scheduler.getParkedEmitterCount() 
+            + " §7(§f" + scheduler.getSuspendedPlayerCount() + " §7players)");
+        if (scheduler.getRegionLaneCount() > 0) {
+            sender.sendMessage("§7Wearer Lanes: §f" + scheduler.getRegionLaneCount() + " §7(rendered on region threads)");
+        }
+        for (Map.Entry<String, Integer> entry : scheduler.getEmitterCountsByKey().entrySet()) {
+            sender.sendMessage("§7  • " + entry.getKey() + ": §f" + entry.getValue());
+        }
+        sender.sendMessage("§7Last Tick: §f" + formatMillis(scheduler.getLastTickNanos()) + " ms");
+        sender.sendMessage("§7Average Tick: §f" + formatMillis(scheduler.getAverageTickNanos()) + " ms");
+        sender.sendMessage("§7Peak Tick: §f" + formatMillis(scheduler.getPeakTickNanos()) + " ms");
+        sender.sendMessage("§7Frames Rendered: §f" + scheduler.getRenderedFrames());
+        sender.sendMessage("§7Frames Culled (no viewers): §f" + scheduler.getCulledFrames());
+        sender.sendMessage("§7Queue Flushes: §f" + scheduler.getQueueFlushes());
+        sender.sendMessage("§7Async Geometry: " + (scheduler.isAsyncGeometryEnabled() ? "§aEnabled" : "§cDisabled") 
+            + " §7(§f" + scheduler.getAsyncFrames() + " §7frames, §f" + scheduler.getLateFrames() + " §7late)");
+        if (scheduler.isViewerQuotaEnabled()) {
+            sender.sendMessage("§7Viewer Quota: §f" + scheduler.getMaxParticlesPerViewer() + " §7per viewer (low-end §f" 
+                + scheduler.getLowEndParticlesPerViewer() + "§7), §f" + scheduler.getQuotaLimitedViewers() 
+                + " §7limited last tick, §f" + scheduler.getQuotaDroppedFrames() + " §7frames trimmed");
+        } else {
+            sender.sendMessage("§7Viewer Quota: §cDisabled");
+        }
+        if (scheduler.isCrowdThinningEnabled()) {
+            sender.sendMessage("§7Crowd Thinning: §f" + scheduler.getCrowdedCells() + " §7crowded cells (max §f" 
+                + scheduler.getMaxEmittersPerCell() + " §7per cell), §f" + scheduler.getCrowdDeferredFrames() + " §7deferred frames");
+        } else {
+            sender.sendMessage("§7Crowd Thinning: §cDisabled");
+        }
+        sender.sendMessage("§7Particle Packets: §f" + scheduler.getPacketsSent() + " §7from §f" 
+            + scheduler.getParticleCalls() + " §7spawn calls, §f" + scheduler.getFarBursts() + " §7far bursts");
+        if (scheduler.isBudgetEnabled()) {
+            sender.sendMessage("§7Particle Budget: §f" + scheduler.getMaxParticlesPerPlayer() + " §7per player, §f" 
+                + scheduler.getMaxParticlesPerTick() + " §7per tick");
+        } else {
+            sender.sendMessage("§7Particle Budget: §cDisabled");
+        }
+        sender.sendMessage("§7Particles Requested/Emitted: §f" + scheduler.getRequestedParticles() + "§7/§f" 
+            + scheduler.getEmittedParticles() + " §7(last tick §f" + scheduler.getLastTickRequestedParticles() 
+            + "§7/§f" + scheduler.getLastTickEmittedParticles() + "§7)");
+        sender.sendMessage("§7Frames Thinned/Dropped: §f" + scheduler.getDecimatedFrames() + "§7/§f" 
+            + scheduler.getBudgetDroppedFrames());
+        sender.sendMessage("§8▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+        
+        scheduler.resetPeak();
+        return true;
+    }
+    
+    private boolean handleParticleQuota(CommandSender sender, String[] args) {
+        if (!(sender instanceof Player)) {
+            sender.sendMessage("§c✗ This command can only be used by players!");
+            return true;
+        }
+        
+        CosmeticRenderScheduler scheduler = plugin.getRenderScheduler();
+        if (scheduler == null) {
+            sender.sendMessage("§c✗ The cosmetic render scheduler is not running.");
+            return true;
+        }
+        
+        Player player = (Player) sender;
+        if (args.length == 0) {
+            boolean lowEnd = scheduler.isLowEndClient(player.getUniqueId());
+            int perTick = lowEnd ? scheduler.getLowEndParticlesPerViewer() : scheduler.getMaxParticlesPerViewer();
+            sender.sendMessage("§7Particle quota: §f" + (lowEnd ? "low" : "normal") + " §7(§f" + perTick + " §7particles per tick)");
+            sender.sendMessage("§7Use §e/sneakycosmetics particles <low|normal> §7to change it.");
+            return true;
+        }
+        
+        String mode = args[0].toLowerCase();
+        if (!mode.equals("low") && !mode.equals("normal")) {
+            sender.sendMessage("§c✗ Unknown quota: " + args[0] + " §7(use low or normal)");
+            return true;
+        }
+        
+        boolean lowEnd = mode.equals("low");
+        scheduler.setLowEndClient(player.getUniqueId(), lowEnd);
+        if (plugin.getDatabaseManager() != null) {
+            plugin.getDatabaseManager().setPlayerSetting(player.getUniqueId(), "particle-quota", mode);
+        }
+        sender.sendMessage("§a✓ Particle quota set to " + mode + ".");
+        return true;
+    }
+    
+    private boolean handleRenderQuality(CommandSender sender) {
+        if (!sender.hasPermission("sneakycosmetics.admin")) {
+            sender.sendMessage("§c✗ You don't have permission to view render statistics!");
+            return true;
+        }
+        
+        CosmeticRenderScheduler scheduler = plugin.getRenderScheduler();
+        if (scheduler == null) {
+            sender.sendMessage("§c✗ The cosmetic render scheduler is not running.");
+            return true;
+        }
+        
+        QualityController quality = scheduler.getQualityController();
+        sender.sendMessage("§6&l✦ Cosmetic Render Quality ✦");
+        sender.sendMessage("§8▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+        sender.sendMessage("§7Adaptive Quality: " + (quality.isEnabled() ? "§aEnabled" : "§cDisabled"));
+        sender.sendMessage("§7Current Tier: §f" + quality.getTier().name() + " §7(" + quality.getTier().getDescription() + ")");
+        sender.sendMessage("§7Last MSPT: §f" + String.format("%.1f", quality.getLastMspt()));
+        for (QualityController.Tier tier : QualityController.Tier.values()) {
+            if (tier != QualityController.Tier.FULL) {
+                sender.sendMessage("§7  • " + tier.name() + " at: §f" + String.format("%.1f", quality.getEnterMspt(tier)) + " mspt");
+            }
+        }
+        
+        List<QualityController.TierChange> history = quality.getHistory();
+        if (history.isEmpty()) {
+            sender.sendMessage("§7No tier changes since startup.");
+        } else {
+            sender.sendMessage("§7Recent Changes:");
+            long now = System.currentTimeMillis();
+            for (QualityController.TierChange change : history) {
+                long secondsAgo = (now - change.getTimestamp()) / 1000;
+                sender.sendMessage("§7  • §f" + change.getFrom().name() + " §7→ §f" + change.getTo().name() 
+                    + " §7at §f" + String.format("%.1f", change.getMspt()) + " mspt §7(" + secondsAgo + "s ago)");
+            }
+        }
+        sender.sendMessage("§8▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+        return true;
+    }
+    
+    private boolean handlePetStats(CommandSender sender) {
+        if (!sender.hasPermission("sneakycosmetics.admin")) {
+            sender.sendMessage("§c✗ You don't have permission to view render statistics!");
+            return true;
+        }
+        
+        PetController controller = plugin.getPetController();
+        if (controller == null) {
+            sender.sendMessage("§c✗ The pet controller is not running.");
+            return true;
+        }
+        
+        sender.sendMessage("§6&l✦ Pet AI Statistics ✦");
+        sender.sendMessage("§8▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+        sender.sendMessage("§7Status: " + (controller.isRunning() ? "§aRunning" : "§cStopped"));
+        sender.sendMessage("§7Active Pets: §f" + controller.getActivePetCount() 
+            + " §7(each updated every §f" + controller.getPeriod() + " §7ticks)");
+        sender.sendMessage("§7Last Tick: §f" + formatMillis(controller.getLastTickNanos()) + " ms");
+        sender.sendMessage("§7Average Tick: §f" + formatMillis(controller.getAverageTickNanos()) + " ms");
+        sender.sendMessage("§7Peak Tick: §f" + formatMillis(controller.getPeakTickNanos()) + " ms");
+        sender.sendMessage("§7Updates Run/Skipped: §f" + controller.getUpdatedPets() + "§7/§f" 
+            + controller.getSkippedPets() + " §7(idle pets refresh every §f" + (controller.getIdleRefresh() + 1) + " §7updates)");
+        if (controller.isBlockCacheEnabled()) {
+            long hits = controller.getBlockCacheHits();
+            long lookups = hits + controller.getBlockCacheMisses();
+            sender.sendMessage("§7Block Cache: §f" + controller.getBlockCacheSize() + " §7blocks, §f" 
+                + (lookups == 0 ? 0 : hits * 100 / lookups) + "% §7of §f" + lookups + " §7lookups hit");
+        } else {
+            sender.sendMessage("§7Block Cache: §cDisabled");
+        }
+        long plans = controller.getPlansComputed();
+        sender.sendMessage("§7Routes Planned: §f" + plans + " §7(" + (controller.isAsyncPathfinding() ? "§aasync" : "§esync")
+            + "§7, avg §f" + formatMillis(plans == 0 ? 0 : (double) controller.getPlanNanos() / plans) + " ms§7, §f"
+            + controller.getSnapshotCount() + " §7chunk snapshots)");
+        sender.sendMessage("§8▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬▬");
+        
+        controller.resetPeak();
+        return true;
+    }
+    
+    private String formatMillis(double nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+    
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         List<String> completions = new ArrayList<>();
         
         if (args.length == 1) {
             // First argument - categories
-            List<String> categories = Arrays.asList("cosmetics", "crate", "rental", "credits", "morph", "help", "info");
+            List<String> categories = Arrays.asList("cosmetics", "crate", "rental", "credits", "morph", "particles", "help", "info");
             
             if (sender.hasPermission("sneakycosmetics.admin")) {
                 categories = new ArrayList<>(categories);
                 categories.add("reload");
+                categories.add("render");
             }
             
             for (String category : categories) {
@@ -211,6 +417,26 @@ public class SneakyCosmeticsCommand implements CommandExecutor, TabCompleter {
                 case "morph":
                 case "morphs":
                     return morphCommand.onTabComplete(sender, command, "morph", subArgs);
+                    
+                case "particles":
+                    if (args.length == 2) {
+                        for (String mode : Arrays.asList("low", "normal")) {
+                            if (mode.startsWith(args[1].toLowerCase())) {
+                                completions.add(mode);
+                            }
+                        }
+                    }
+                    return completions;
+                    
+                case "render":
+                    if (args.length == 2 && sender.hasPermission("sneakycosmetics.admin")) {
+                        for (String option : Arrays.asList("quality", "pets")) {
+                            if (option.startsWith(args[1].toLowerCase())) {
+                                completions.add(option);
+                            }
+                        }
+                    }
+                    return completions;
             }
         }
         
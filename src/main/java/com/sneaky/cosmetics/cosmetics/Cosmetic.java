@@ -1,5 +1,7 @@
 package com.sneaky.cosmetics.cosmetics;
 
+import com.sneaky.cosmetics.SneakyCosmetics;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 
@@ -201,6 +203,13 @@ public abstract class Cosmetic {
         return false;
     }
     
+    /**
+     * Get the session holding a player's runtime cosmetic state
+     */
+    protected static PlayerCosmeticSession getSession(Player player) {
+        return SneakyCosmetics.getInstance().getCosmeticManager().getSession(player);
+    }
+    
     /**
      * Update this cosmetic's effects for a player
      * Called periodically for animated cosmetics
@@ -1,17 +1,20 @@
 package com.sneaky.cosmetics.cosmetics.auras;
 
+import com.sneaky.cosmetics.SneakyCosmetics;
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession.EmitterSlot;
+import com.sneaky.cosmetics.rendering.CosmeticEmitter;
+import com.sneaky.cosmetics.rendering.Jitter;
+import com.sneaky.cosmetics.rendering.ParticleSink;
+import com.sneaky.cosmetics.rendering.PointTransform;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Aura cosmetic that creates mystical circular particle effects around players
@@ -25,8 +28,7 @@ public class AuraCosmetic extends Cosmetic {
     private final double speed;
     private final AuraType auraType;
     private final Plugin plugin;
-    
-    private static final Map<Player, BukkitRunnable> activeTasks = new ConcurrentHashMap<>();
+    private final AuraFrameCache.AuraFrames frames;
     
     public enum AuraType {
         // === ORIGINAL AURAS (9) ===
@@ -192,6 +194,10 @@ public class AuraCosmetic extends Cosmetic {
         this.speed = speed;
         this.auraType = auraType;
         this.plugin = plugin;
+        
+        // Compile (or reuse) the frames for this aura's pattern once at registration
+        AuraPattern pattern = getAuraPattern(auraType);
+        this.frames = AuraFrameCache.get(pattern.getPatternType(), pattern.getPoints(), radius, height);
     }
     
     @Override
@@ -199,37 +205,40 @@ public class AuraCosmetic extends Cosmetic {
         // Remove any existing aura effect
         deactivate(player);
         
-        // Start aura particle task
-        BukkitRunnable auraTask = new BukkitRunnable() {
-            private double angle = 0;
+        // Start aura particle emitter
+        CosmeticEmitter auraEmitter = new CosmeticEmitter(player, this, "aura", 3L) { // Every 0.15 seconds
+            private final Jitter jitter = Jitter.seeded();
+            private final PointTransform.Buffer points = new PointTransform.Buffer();
             
             @Override
-            public void run() {
-                if (!player.isOnline()) {
-                    this.cancel();
-                    activeTasks.remove(player);
-                    return;
-                }
-                
-                createAuraEffect(player, angle);
-                angle += 0.2; // Rotate the aura
-                if (angle >= 2 * Math.PI) {
-                    angle = 0;
-                }
+            protected void render(long frame, ParticleSink sink) {
+                // Each frame rotates the aura by 0.2 radians
+                createAuraEffect(anchor, sink, jitter, points, frame);
+            }
+            
+            @Override
+            protected boolean supportsAsyncRender() {
+                // Only reads the anchor, the compiled frames and this emitter's jitter
+                return true;
+            }
+            
+            @Override
+            protected void onUnregister() {
+                getSession(player).removeEmitter(EmitterSlot.AURA, this);
             }
         };
         
-        auraTask.runTaskTimer(plugin, 0L, 3L); // Every 0.15 seconds
-        activeTasks.put(player, auraTask);
+        getSession(player).putEmitter(EmitterSlot.AURA, auraEmitter);
+        SneakyCosmetics.getInstance().getRenderScheduler().register(auraEmitter);
         
         player.sendMessage("§a✓ Activated aura: " + getDisplayName());
     }
     
     @Override
     public void deactivate(Player player) {
-        BukkitRunnable task = activeTasks.remove(player);
-        if (task != null) {
-            task.cancel();
+        CosmeticEmitter emitter = getSession(player).removeEmitter(EmitterSlot.AURA);
+        if (emitter != null) {
+            emitter.cancel();
         }
         
         player.sendMessage("§7⊘ Deactivated aura: " + getDisplayName());
@@ -237,7 +246,7 @@ public class AuraCosmetic extends Cosmetic {
     
     @Override
     public boolean isActive(Player player) {
-        return activeTasks.containsKey(player);
+        return getSession(player).hasEmitter(EmitterSlot.AURA);
     }
     
     @Override
@@ -245,184 +254,36 @@ public class AuraCosmetic extends Cosmetic {
         deactivate(player);
     }
     
-    private void createAuraEffect(Player player, double angle) {
-        Location playerLoc = player.getLocation();
-        
-        // Get aura-specific parameters
-        AuraPattern pattern = getAuraPattern(auraType);
-        int points = pattern.getPoints();
+    private void createAuraEffect(Location anchor, ParticleSink sink, Jitter jitter, PointTransform.Buffer points, long frame) {
+        double px = anchor.getX();
+        double py = anchor.getY();
+        double pz = anchor.getZ();
         
-        // Create the main aura effect based on pattern type
-        switch (pattern.getPatternType()) {
-            case CIRCULAR:
-                createCircularAura(player, playerLoc, angle, points);
-                break;
-            case SPIRAL:
-                createSpiralAura(player, playerLoc, angle, points);
-                break;
-            case HELIX:
-                createHelixAura(player, playerLoc, angle, points);
-                break;
-            case WAVE:
-                createWaveAura(player, playerLoc, angle, points);
-                break;
-            case ORBITAL:
-                createOrbitalAura(player, playerLoc, angle, points);
-                break;
-            case PULSE:
-                createPulseAura(player, playerLoc, angle, points);
-                break;
-            case TORNADO:
-                createTornadoAura(player, playerLoc, angle, points);
-                break;
-            case GEOMETRIC:
-                createGeometricAura(player, playerLoc, angle, points);
-                break;
+        // Translate the compiled pattern frame to the player in one pass, then walk it
+        double[] offsets = frames.frame(frame);
+        double[] world = points.translate(offsets, px, py, pz);
+        int[] indexes = frames.indexes();
+        for (int i = 0, p = 0; p < offsets.length; i++, p += 3) {
+            spawnAuraParticle(sink, world[p], world[p + 1], world[p + 2], indexes[i], frame, jitter);
         }
         
         // Add special central effects
-        addCentralEffects(player, playerLoc, angle);
-    }
-    
-    private void createCircularAura(Player player, Location playerLoc, double angle, int points) {
-        for (int i = 0; i < points; i++) {
-            double currentAngle = angle + (2 * Math.PI * i / points);
-            double x = playerLoc.getX() + radius * Math.cos(currentAngle);
-            double z = playerLoc.getZ() + radius * Math.sin(currentAngle);
-            double y = playerLoc.getY() + 1.0 + height * Math.sin(angle * 2 + i * 0.5);
-            
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-            spawnAuraParticle(player, particleLoc, i);
-        }
-    }
-    
-    private void createSpiralAura(Player player, Location playerLoc, double angle, int points) {
-        for (int i = 0; i < points; i++) {
-            double currentAngle = angle + (2 * Math.PI * i / points);
-            double spiralRadius = radius * (0.3 + 0.7 * Math.sin(angle * 2 + i * 0.3));
-            double x = playerLoc.getX() + spiralRadius * Math.cos(currentAngle);
-            double z = playerLoc.getZ() + spiralRadius * Math.sin(currentAngle);
-            double y = playerLoc.getY() + 0.5 + (i * 0.1) % 3.0;
-            
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-            spawnAuraParticle(player, particleLoc, i);
-        }
+        addCentralEffects(sink, px, py, pz, frame);
     }
     
-    private void createHelixAura(Player player, Location playerLoc, double angle, int points) {
-        // Create double helix pattern
-        for (int helix = 0; helix < 2; helix++) {
-            for (int i = 0; i < points / 2; i++) {
-                double currentAngle = angle + (2 * Math.PI * i / (points / 2)) + (helix * Math.PI);
-                double x = playerLoc.getX() + radius * Math.cos(currentAngle);
-                double z = playerLoc.getZ() + radius * Math.sin(currentAngle);
-                double y = playerLoc.getY() + 0.5 + (i * 0.15) % 2.5;
-                
-                Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-                spawnAuraParticle(player, particleLoc, i + helix * points);
-            }
-        }
-    }
-    
-    private void createWaveAura(Player player, Location playerLoc, double angle, int points) {
-        for (int i = 0; i < points; i++) {
-            double currentAngle = angle + (2 * Math.PI * i / points);
-            double waveRadius = radius + 0.5 * Math.sin(angle * 4 + i * 0.8);
-            double x = playerLoc.getX() + waveRadius * Math.cos(currentAngle);
-            double z = playerLoc.getZ() + waveRadius * Math.sin(currentAngle);
-            double y = playerLoc.getY() + 1.0 + 0.8 * Math.sin(angle * 3 + i * 0.6);
-            
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-            spawnAuraParticle(player, particleLoc, i);
-        }
-    }
-    
-    private void createOrbitalAura(Player player, Location playerLoc, double angle, int points) {
-        // Multiple orbital rings
-        for (int ring = 0; ring < 3; ring++) {
-            int ringPoints = points / 3;
-            double ringRadius = radius * (0.5 + ring * 0.3);
-            double ringSpeed = 1.0 + ring * 0.5;
-            
-            for (int i = 0; i < ringPoints; i++) {
-                double currentAngle = angle * ringSpeed + (2 * Math.PI * i / ringPoints);
-                double x = playerLoc.getX() + ringRadius * Math.cos(currentAngle);
-                double z = playerLoc.getZ() + ringRadius * Math.sin(currentAngle);
-                double y = playerLoc.getY() + 1.0 + ring * 0.4;
-                
-                Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-                spawnAuraParticle(player, particleLoc, i + ring * ringPoints);
-            }
-        }
-    }
-    
-    private void createPulseAura(Player player, Location playerLoc, double angle, int points) {
-        double pulseRadius = radius * (0.5 + 0.5 * Math.abs(Math.sin(angle * 3)));
-        for (int i = 0; i < points; i++) {
-            double currentAngle = (2 * Math.PI * i / points);
-            double x = playerLoc.getX() + pulseRadius * Math.cos(currentAngle);
-            double z = playerLoc.getZ() + pulseRadius * Math.sin(currentAngle);
-            double y = playerLoc.getY() + 1.0;
-            
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-            spawnAuraParticle(player, particleLoc, i);
-        }
-    }
-    
-    private void createTornadoAura(Player player, Location playerLoc, double angle, int points) {
-        for (int i = 0; i < points; i++) {
-            double height_level = (double) i / points * 3.0;
-            double currentAngle = angle * 2 + height_level * 4;
-            double tornadoRadius = radius * (1.0 - height_level / 4.0);
-            
-            double x = playerLoc.getX() + tornadoRadius * Math.cos(currentAngle);
-            double z = playerLoc.getZ() + tornadoRadius * Math.sin(currentAngle);
-            double y = playerLoc.getY() + 0.2 + height_level;
-            
-            Location particleLoc = new Location(playerLoc.getWorld(), x, y, z);
-            spawnAuraParticle(player, particleLoc, i);
-        }
-    }
-    
-    private void createGeometricAura(Player player, Location playerLoc, double angle, int points) {
-        // Create geometric shapes (hexagon, pentagon, etc.)
-        int sides = getGeometricSides(auraType);
-        for (int i = 0; i < sides; i++) {
-            double currentAngle = angle + (2 * Math.PI * i / sides);
-            double x = playerLoc.getX() + radius * Math.cos(currentAngle);
-            double z = playerLoc.getZ() + radius * Math.sin(currentAngle);
-            double y = playerLoc.getY() + 1.0;
-            
-            // Create line between points
-            for (int j = 0; j < 8; j++) {
-                double progress = (double) j / 7;
-                double nextAngle = angle + (2 * Math.PI * (i + 1) / sides);
-                double lineX = x + progress * (radius * Math.cos(nextAngle) - x);
-                double lineZ = z + progress * (radius * Math.sin(nextAngle) - z);
-                
-                Location particleLoc = new Location(playerLoc.getWorld(), 
-                    playerLoc.getX() + (lineX - playerLoc.getX()), y, 
-                    playerLoc.getZ() + (lineZ - playerLoc.getZ()));
-                spawnAuraParticle(player, particleLoc, i * 8 + j);
-            }
-        }
-    }
-    
-    private void spawnAuraParticle(Player player, Location location, int index) {
+    private void spawnAuraParticle(ParticleSink sink, double x, double y, double z, int index, long frame, Jitter jitter) {
         switch (auraType) {
             // Original auras with enhanced effects
             case RAINBOW:
                 Particle rainbowParticle = getRainbowParticle(index);
-                player.getWorld().spawnParticle(rainbowParticle, location, 1, 0, 0, 0, speed);
+                sink.spawn(rainbowParticle, x, y, z, 1, 0, 0, 0, speed);
                 break;
                 
             case LIGHTNING:
             case THUNDER:
             case PLASMA:
                 // Electric effects with random positioning
-                double offsetY = (Math.random() - 0.5) * 0.5;
-                Location electricLoc = location.clone().add(0, offsetY, 0);
-                player.getWorld().spawnParticle(auraParticle, electricLoc, particleCount, 0.1, 0.1, 0.1, speed);
+                sink.spawn(auraParticle, x, y + jitter.centered(0.5), z, particleCount, 0.1, 0.1, 0.1, speed);
                 break;
                 
             case GALAXY:
@@ -430,12 +291,9 @@ public class AuraCosmetic extends Cosmetic {
             case COSMIC_DUST:
                 // Cosmic swirling effects
                 for (int i = 0; i < 3; i++) {
-                    Location cosmicLoc = location.clone().add(
-                        (Math.random() - 0.5) * 0.3,
-                        (Math.random() - 0.5) * 0.2,
-                        (Math.random() - 0.5) * 0.3
-                    );
-                    player.getWorld().spawnParticle(auraParticle, cosmicLoc, 1, 0.02, 0.02, 0.02, speed);
+                    sink.spawn(auraParticle, 
+                        x + jitter.centered(0.3), y + jitter.centered(0.2), z + jitter.centered(0.3), 
+                        1, 0.02, 0.02, 0.02, speed);
                 }
                 break;
                 
@@ -443,71 +301,66 @@ public class AuraCosmetic extends Cosmetic {
             case NEON:
             case HOLOGRAM:
                 // Digital/tech effects
-                if (Math.random() < 0.7) {
-                    player.getWorld().spawnParticle(auraParticle, location, 1, 0, 0, 0, 0);
+                if (jitter.next() < 0.7) {
+                    sink.spawn(auraParticle, x, y, z, 1, 0, 0, 0, 0);
                 }
                 break;
                 
             case DISCO:
             case STROBE:
                 // Flashing effects
-                if ((System.currentTimeMillis() / 100 + index) % 3 == 0) {
-                    player.getWorld().spawnParticle(auraParticle, location, particleCount, 0.05, 0.05, 0.05, speed);
+                if ((frame + index) % 3 == 0) {
+                    sink.spawn(auraParticle, x, y, z, particleCount, 0.05, 0.05, 0.05, speed);
                 }
                 break;
                 
             default:
                 // Standard particle effect
-                player.getWorld().spawnParticle(auraParticle, location, particleCount, 0.05, 0.05, 0.05, speed);
+                sink.spawn(auraParticle, x, y, z, particleCount, 0.05, 0.05, 0.05, speed);
                 break;
         }
     }
     
-    private void addCentralEffects(Player player, Location playerLoc, double angle) {
-        Location centerLoc = playerLoc.clone().add(0, 1.0, 0);
-        
+    private void addCentralEffects(ParticleSink sink, double px, double py, double pz, long frame) {
         switch (auraType) {
             case HOLY:
             case DIVINE:
             case ANGELIC:
                 // Pillar of light
                 for (int i = 0; i < 5; i++) {
-                    Location pillarLoc = centerLoc.clone().add(0, i * 0.3, 0);
-                    player.getWorld().spawnParticle(auraParticle, pillarLoc, 1, 0.05, 0.05, 0.05, 0.02);
+                    sink.spawn(auraParticle, px, py + 1.0 + i * 0.3, pz, 1, 0.05, 0.05, 0.05, 0.02);
                 }
                 break;
                 
             case BLACKHOLE:
             case WORMHOLE:
                 // Swirling center
-                for (int i = 0; i < 8; i++) {
-                    double centerAngle = angle * 4 + (2 * Math.PI * i / 8);
-                    double centerRadius = 0.3 * Math.sin(angle * 2);
-                    double x = centerLoc.getX() + centerRadius * Math.cos(centerAngle);
-                    double z = centerLoc.getZ() + centerRadius * Math.sin(centerAngle);
-                    Location swirLoc = new Location(centerLoc.getWorld(), x, centerLoc.getY(), z);
-                    player.getWorld().spawnParticle(auraParticle, swirLoc, 1, 0, 0, 0, 0);
+                double[] swirl = AuraFrameCache.centerSwirl(frame);
+                for (int p = 0; p < swirl.length; p += 3) {
+                    sink.spawn(auraParticle, px + swirl[p], py + swirl[p + 1], pz + swirl[p + 2], 1, 0, 0, 0, 0);
                 }
                 break;
                 
             case SUPERNOVA:
                 // Pulsing center
+                double angle = (frame % AuraFrameCache.FRAME_COUNT) * AuraFrameCache.ANGLE_STEP;
                 if (Math.sin(angle * 5) > 0.8) {
-                    player.getWorld().spawnParticle(auraParticle, centerLoc, 10, 0.2, 0.2, 0.2, 0.1);
+                    sink.spawn(auraParticle, px, py + 1.0, pz, 10, 0.2, 0.2, 0.2, 0.1);
                 }
                 break;
         }
     }
     
+    private static final Particle[] RAINBOW_PARTICLES = {
+        Particle.FLAME, Particle.LAVA, Particle.ENCHANT, 
+        Particle.HAPPY_VILLAGER, Particle.ENCHANT, Particle.PORTAL
+    };
+    
     private Particle getRainbowParticle(int index) {
-        Particle[] rainbowParticles = {
-            Particle.FLAME, Particle.LAVA, Particle.ENCHANT, 
-            Particle.HAPPY_VILLAGER, Particle.ENCHANT, Particle.PORTAL
-        };
-        return rainbowParticles[index % rainbowParticles.length];
+        return RAINBOW_PARTICLES[index % RAINBOW_PARTICLES.length];
     }
     
-    private int getGeometricSides(AuraType type) {
+    private static int getGeometricSides(AuraType type) {
         switch (type) {
             case CRYSTAL:
             case DIAMOND: return 6; // Hexagon
@@ -517,7 +370,7 @@ public class AuraCosmetic extends Cosmetic {
         }
     }
     
-    private AuraPattern getAuraPattern(AuraType type) {
+    private static AuraPattern getAuraPattern(AuraType type) {
         switch (type) {
             // Spiral patterns
             case TORNADO:
@@ -556,7 +409,7 @@ public class AuraCosmetic extends Cosmetic {
             case DIAMOND:
             case RUNIC:
             case ARCANE:
-                return new AuraPattern(PatternType.GEOMETRIC, 24);
+                return new AuraPattern(PatternType.GEOMETRIC, getGeometricSides(type) * 8);
                 
             // Default circular
             default:
@@ -564,7 +417,7 @@ public class AuraCosmetic extends Cosmetic {
         }
     }
     
-    private enum PatternType {
+    enum PatternType {
         CIRCULAR, SPIRAL, HELIX, WAVE, ORBITAL, PULSE, TORNADO, GEOMETRIC
     }
     
@@ -601,16 +454,4 @@ public class AuraCosmetic extends Cosmetic {
     public double getRadius() {
         return radius;
     }
-    
-    /**
-     * Clean up all aura tasks (for plugin disable)
-     */
-    public static void cleanupAllAuras() {
-        for (BukkitRunnable task : activeTasks.values()) {
-            if (task != null) {
-                task.cancel();
-            }
-        }
-        activeTasks.clear();
-    }
 }
\ No newline at end of file
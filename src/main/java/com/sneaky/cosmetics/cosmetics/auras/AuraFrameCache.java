@@ -0,0 +1,245 @@
+package com.sneaky.cosmetics.cosmetics.auras;
+
+import com.sneaky.cosmetics.rendering.PatternFrameTable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared cache of compiled aura frames
+ * Over a hundred aura types only use a handful of pattern shapes, so frames are keyed by
+ * shape, point count, radius and height and compiled once when the first matching aura registers
+ */
+final class AuraFrameCache {
+
+    // The aura rotates 0.2 radians per frame and wraps once the angle reaches 2π, which is exactly 32 frames
+    static final int FRAME_COUNT = 32;
+    static final double ANGLE_STEP = 0.2;
+
+    private static final Map<Key, AuraFrames> CACHE = new ConcurrentHashMap<>();
+
+    // Swirl drawn in the center of black hole style auras
+    private static final PatternFrameTable CENTER_SWIRL = PatternFrameTable.compile(FRAME_COUNT, (frame, phase, points) -> {
+        double angle = frame * ANGLE_STEP;
+        double centerRadius = 0.3 * Math.sin(angle * 2);
+        for (int i = 0; i < 8; i++) {
+            double centerAngle = angle * 4 + (2 * Math.PI * i / 8);
+            points.add(centerRadius * Math.cos(centerAngle), 1.0, centerRadius * Math.sin(centerAngle));
+        }
+    });
+
+    private AuraFrameCache() {
+    }
+
+    /**
+     * Get the compiled frames for a pattern, compiling them on first use
+     */
+    static AuraFrames get(AuraCosmetic.PatternType patternType, int points, double radius, double height) {
+        return CACHE.computeIfAbsent(new Key(patternType, points, radius, height), AuraFrameCache::compile);
+    }
+
+    /**
+     * Get the center swirl offsets for a frame
+     */
+    static double[] centerSwirl(long frame) {
+        return CENTER_SWIRL.frame(frame);
+    }
+
+    /**
+     * Number of distinct compiled patterns
+     */
+    static int size() {
+        return CACHE.size();
+    }
+
+    private static AuraFrames compile(Key key) {
+        // Point indexes drive per-point effects such as rainbow colors and strobing
+        int[] indexes = new int[key.points];
+        PatternFrameTable table = PatternFrameTable.compile(FRAME_COUNT, (frame, phase, buffer) ->
+                compileFrame(key, frame * ANGLE_STEP, buffer, indexes));
+        return new AuraFrames(table, trim(indexes, table.getMaxPoints()));
+    }
+
+    private static int[] trim(int[] indexes, int length) {
+        if (indexes.length == length) {
+            return indexes;
+        }
+        int[] trimmed = new int[length];
+        System.arraycopy(indexes, 0, trimmed, 0, Math.min(length, indexes.length));
+        return trimmed;
+    }
+
+    private static void compileFrame(Key key, double angle, PatternFrameTable.PointBuffer buffer, int[] indexes) {
+        int points = key.points;
+        double radius = key.radius;
+        double height = key.height;
+        int n = 0;
+
+        switch (key.patternType) {
+            case CIRCULAR:
+                for (int i = 0; i < points; i++) {
+                    double currentAngle = angle + (2 * Math.PI * i / points);
+                    buffer.add(radius * Math.cos(currentAngle),
+                            1.0 + height * Math.sin(angle * 2 + i * 0.5),
+                            radius * Math.sin(currentAngle));
+                    indexes[n++] = i;
+                }
+                break;
+
+            case SPIRAL:
+                for (int i = 0; i < points; i++) {
+                    double currentAngle = angle + (2 * Math.PI * i / points);
+                    double spiralRadius = radius * (0.3 + 0.7 * Math.sin(angle * 2 + i * 0.3));
+                    buffer.add(spiralRadius * Math.cos(currentAngle),
+                            0.5 + (i * 0.1) % 3.0,
+                            spiralRadius * Math.sin(currentAngle));
+                    indexes[n++] = i;
+                }
+                break;
+
+            case HELIX:
+                // Double helix pattern
+                for (int helix = 0; helix < 2; helix++) {
+                    for (int i = 0; i < points / 2; i++) {
+                        double currentAngle = angle + (2 * Math.PI * i / (points / 2)) + (helix * Math.PI);
+                        buffer.add(radius * Math.cos(currentAngle),
+                                0.5 + (i * 0.15) % 2.5,
+                                radius * Math.sin(currentAngle));
+                        indexes[n++] = i + helix * points;
+                    }
+                }
+                break;
+
+            case WAVE:
+                for (int i = 0; i < points; i++) {
+                    double currentAngle = angle + (2 * Math.PI * i / points);
+                    double waveRadius = radius + 0.5 * Math.sin(angle * 4 + i * 0.8);
+                    buffer.add(waveRadius * Math.cos(currentAngle),
+                            1.0 + 0.8 * Math.sin(angle * 3 + i * 0.6),
+                            waveRadius * Math.sin(currentAngle));
+                    indexes[n++] = i;
+                }
+                break;
+
+            case ORBITAL:
+                // Multiple orbital rings
+                for (int ring = 0; ring < 3; ring++) {
+                    int ringPoints = points / 3;
+                    double ringRadius = radius * (0.5 + ring * 0.3);
+                    double ringSpeed = 1.0 + ring * 0.5;
+
+                    for (int i = 0; i < ringPoints; i++) {
+                        double currentAngle = angle * ringSpeed + (2 * Math.PI * i / ringPoints);
+                        buffer.add(ringRadius * Math.cos(currentAngle),
+                                1.0 + ring * 0.4,
+                                ringRadius * Math.sin(currentAngle));
+                        indexes[n++] = i + ring * ringPoints;
+                    }
+                }
+                break;
+
+            case PULSE: {
+                double pulseRadius = radius * (0.5 + 0.5 * Math.abs(Math.sin(angle * 3)));
+                for (int i = 0; i < points; i++) {
+                    double currentAngle = (2 * Math.PI * i / points);
+                    buffer.add(pulseRadius * Math.cos(currentAngle), 1.0, pulseRadius * Math.sin(currentAngle));
+                    indexes[n++] = i;
+                }
+                break;
+            }
+
+            case TORNADO:
+                for (int i = 0; i < points; i++) {
+                    double heightLevel = (double) i / points * 3.0;
+                    double currentAngle = angle * 2 + heightLevel * 4;
+                    double tornadoRadius = radius * (1.0 - heightLevel / 4.0);
+                    buffer.add(tornadoRadius * Math.cos(currentAngle),
+                            0.2 + heightLevel,
+                            tornadoRadius * Math.sin(currentAngle));
+                    indexes[n++] = i;
+                }
+                break;
+
+            case GEOMETRIC: {
+                // Polygon outline, 8 points per side
+                int sides = points / 8;
+                for (int i = 0; i < sides; i++) {
+                    double currentAngle = angle + (2 * Math.PI * i / sides);
+                    double nextAngle = angle + (2 * Math.PI * (i + 1) / sides);
+                    double startX = radius * Math.cos(currentAngle);
+                    double startZ = radius * Math.sin(currentAngle);
+                    double endX = radius * Math.cos(nextAngle);
+                    double endZ = radius * Math.sin(nextAngle);
+
+                    // Create line between corners
+                    for (int j = 0; j < 8; j++) {
+                        double progress = (double) j / 7;
+                        buffer.add(startX + progress * (endX - startX), 1.0, startZ + progress * (endZ - startZ));
+                        indexes[n++] = i * 8 + j;
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * Compiled frames of one aura pattern
+     */
+    static final class AuraFrames {
+        private final PatternFrameTable table;
+        private final int[] indexes;
+
+        private AuraFrames(PatternFrameTable table, int[] indexes) {
+            this.table = table;
+            this.indexes = indexes;
+        }
+
+        /**
+         * Packed x, y, z offsets for a frame, relative to the player's feet
+         */
+        double[] frame(long frame) {
+            return table.frame(frame);
+        }
+
+        /**
+         * Effect index of every point, shared by all frames
+         */
+        int[] indexes() {
+            return indexes;
+        }
+    }
+
+    private static final class Key {
+        private final AuraCosmetic.PatternType patternType;
+        private final int points;
+        private final double radius;
+        private final double height;
+
+        private Key(AuraCosmetic.PatternType patternType, int points, double radius, double height) {
+            this.patternType = patternType;
+            this.points = points;
+            this.radius = radius;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return patternType == other.patternType && points == other.points
+                    && Double.compare(radius, other.radius) == 0
+                    && Double.compare(height, other.height) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = patternType.hashCode();
+            result = 31 * result + points;
+            result = 31 * result + Double.hashCode(radius);
+            result = 31 * result + Double.hashCode(height);
+            return result;
+        }
+    }
+}
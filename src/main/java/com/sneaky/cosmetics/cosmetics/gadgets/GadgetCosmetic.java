@@ -2,14 +2,13 @@ package com.sneaky.cosmetics.cosmetics.gadgets;
 
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Gadget cosmetic that gives players special interactive items
@@ -21,8 +20,6 @@ public class GadgetCosmetic extends Cosmetic {
     private final List<String> gadgetLore;
     private final GadgetType gadgetType;
     
-    private static final Map<Player, ItemStack> activeGadgets = new ConcurrentHashMap<>();
-    
     public enum GadgetType {
         FIREWORK_LAUNCHER,
         SNOWBALL_CANNON,
@@ -74,14 +71,16 @@ public class GadgetCosmetic extends Cosmetic {
         
         // Give to player
         player.getInventory().addItem(gadget);
-        activeGadgets.put(player, gadget);
+        getSession(player).setActiveGadget(gadget);
         
         player.sendMessage("§a✓ Activated gadget: " + getDisplayName());
     }
     
     @Override
     public void deactivate(Player player) {
-        ItemStack existingGadget = activeGadgets.remove(player);
+        PlayerCosmeticSession session = getSession(player);
+        ItemStack existingGadget = session.getActiveGadget();
+        session.setActiveGadget(null);
         if (existingGadget != null) {
             // Remove gadget from inventory
             player.getInventory().remove(existingGadget);
@@ -92,7 +91,7 @@ public class GadgetCosmetic extends Cosmetic {
     
     @Override
     public boolean isActive(Player player) {
-        return activeGadgets.containsKey(player);
+        return getSession(player).getActiveGadget() != null;
     }
     
     @Override
@@ -135,20 +134,6 @@ public class GadgetCosmetic extends Cosmetic {
      * Get active gadget for player
      */
     public static ItemStack getActiveGadget(Player player) {
-        return activeGadgets.get(player);
-    }
-    
-    /**
-     * Clean up all gadgets (for plugin disable)
-     */
-    public static void cleanupAllGadgets() {
-        for (Map.Entry<Player, ItemStack> entry : activeGadgets.entrySet()) {
-            Player player = entry.getKey();
-            ItemStack gadget = entry.getValue();
-            if (player.isOnline()) {
-                player.getInventory().remove(gadget);
-            }
-        }
-        activeGadgets.clear();
+        return getSession(player).getActiveGadget();
     }
 }
\ No newline at end of file
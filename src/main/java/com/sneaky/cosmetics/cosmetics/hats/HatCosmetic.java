@@ -2,14 +2,13 @@ package com.sneaky.cosmetics.cosmetics.hats;
 
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Hat cosmetic that places an item on the player's head
@@ -20,8 +19,6 @@ public class HatCosmetic extends Cosmetic {
     private final String hatDisplayName;
     private final List<String> hatLore;
     
-    private static final Map<Player, ItemStack> originalHelmets = new ConcurrentHashMap<>();
-    
     public HatCosmetic(String id, String displayName, int price, Material iconMaterial,
                       List<String> description, String permission, boolean requiresVIP,
                       boolean requiresPremium, Material hatMaterial, String hatDisplayName,
@@ -38,7 +35,7 @@ public class HatCosmetic extends Cosmetic {
         // Store the original helmet using modern inventory API
         ItemStack originalHelmet = player.getInventory().getHelmet();
         if (originalHelmet != null) {
-            originalHelmets.put(player, originalHelmet.clone());
+            getSession(player).setOriginalHelmet(originalHelmet.clone());
         }
         
         // Create the hat item
@@ -59,7 +56,9 @@ public class HatCosmetic extends Cosmetic {
     @Override
     public void deactivate(Player player) {
         // Restore the original helmet using modern inventory API
-        ItemStack originalHelmet = originalHelmets.remove(player);
+        PlayerCosmeticSession session = getSession(player);
+        ItemStack originalHelmet = session.getOriginalHelmet();
+        session.setOriginalHelmet(null);
         player.getInventory().setHelmet(originalHelmet);
     }
     
@@ -1,5 +1,6 @@
 package com.sneaky.cosmetics.cosmetics.morphs;
 
+import com.sneaky.cosmetics.SneakyCosmetics;
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
 import org.bukkit.Material;
@@ -159,13 +160,11 @@ public class MorphCosmetic extends Cosmetic {
         
         // Send messages to nearby players about the transformation
         String morphName = getDisplayName();
-        for (Player nearby : player.getWorld().getPlayers()) {
-            if (nearby.getLocation().distance(loc) <= 20) {
-                if (nearby == player) {
-                    nearby.sendMessage("§6🔄 You transformed into " + morphName + "!");
-                } else {
-                    nearby.sendMessage("§7" + player.getName() + " transformed into " + morphName + "!");
-                }
+        for (Player nearby : SneakyCosmetics.getInstance().getPlayerIndex().getNearbyPlayers(loc, 20)) {
+            if (nearby == player) {
+                nearby.sendMessage("§6🔄 You transformed into " + morphName + "!");
+            } else {
+                nearby.sendMessage("§7" + player.getName() + " transformed into " + morphName + "!");
             }
         }
     }
@@ -179,13 +178,11 @@ public class MorphCosmetic extends Cosmetic {
         player.getWorld().spawnParticle(org.bukkit.Particle.POOF, loc.clone().add(0, 1, 0), 15, 0.5, 0.5, 0.5, 0.1);
         
         // Send messages to nearby players about the transformation ending
-        for (Player nearby : player.getWorld().getPlayers()) {
-            if (nearby.getLocation().distance(loc) <= 20) {
-                if (nearby == player) {
-                    nearby.sendMessage("§c🔄 You returned to human form!");
-                } else {
-                    nearby.sendMessage("§7" + player.getName() + " returned to human form!");
-                }
+        for (Player nearby : SneakyCosmetics.getInstance().getPlayerIndex().getNearbyPlayers(loc, 20)) {
+            if (nearby == player) {
+                nearby.sendMessage("§c🔄 You returned to human form!");
+            } else {
+                nearby.sendMessage("§7" + player.getName() + " returned to human form!");
             }
         }
         
@@ -193,8 +193,8 @@ public class MorphManager implements Listener {
         player.getWorld().playSound(loc, org.bukkit.Sound.ENTITY_GENERIC_EXPLODE, 1.0f, 1.0f);
         
         // Push nearby players away (non-damaging)
-        for (Player nearby : player.getWorld().getPlayers()) {
-            if (nearby != player && nearby.getLocation().distance(loc) <= 5) {
+        for (Player nearby : plugin.getPlayerIndex().getNearbyPlayers(loc, 5)) {
+            if (nearby != player) {
                 org.bukkit.util.Vector direction = nearby.getLocation().toVector().subtract(loc.toVector()).normalize();
                 nearby.setVelocity(direction.multiply(0.5));
                 nearby.sendMessage("§c💥 " + player.getName() + " used Creeper Blast!");
@@ -214,12 +214,10 @@ public class MorphManager implements Listener {
         player.getWorld().playSound(loc, org.bukkit.Sound.ENTITY_WOLF_AMBIENT, 2.0f, 1.0f);
         
         // Give temporary speed boost to nearby players
-        for (Player nearby : player.getWorld().getPlayers()) {
-            if (nearby.getLocation().distance(loc) <= 10) {
-                nearby.addPotionEffect(new org.bukkit.potion.PotionEffect(
-                    org.bukkit.potion.PotionEffectType.SPEED, 200, 1, false, false)); // 10 seconds
-                nearby.sendMessage("§6🐺 " + player.getName() + "'s howl gave you speed!");
-            }
+        for (Player nearby : plugin.getPlayerIndex().getNearbyPlayers(loc, 10)) {
+            nearby.addPotionEffect(new org.bukkit.potion.PotionEffect(
+                org.bukkit.potion.PotionEffectType.SPEED, 200, 1, false, false)); // 10 seconds
+            nearby.sendMessage("§6🐺 " + player.getName() + "'s howl gave you speed!");
         }
         
         player.sendMessage("§6🐺 Used Pack Howl!");
@@ -254,8 +252,8 @@ public class MorphManager implements Listener {
         player.getWorld().spawnParticle(org.bukkit.Particle.SQUID_INK, loc, 50, 2, 1, 2, 0.1);
         
         // Give temporary blindness to nearby players
-        for (Player nearby : player.getWorld().getPlayers()) {
-            if (nearby != player && nearby.getLocation().distance(loc) <= 5) {
+        for (Player nearby : plugin.getPlayerIndex().getNearbyPlayers(loc, 5)) {
+            if (nearby != player) {
                 nearby.addPotionEffect(new org.bukkit.potion.PotionEffect(
                     org.bukkit.potion.PotionEffectType.BLINDNESS, 60, 0, false, false)); // 3 seconds
                 nearby.sendMessage("§0🦑 " + player.getName() + " used Ink Cloud!");
@@ -1,18 +1,20 @@
 package com.sneaky.cosmetics.cosmetics.particles;
 
+import com.sneaky.cosmetics.SneakyCosmetics;
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
-import org.bukkit.Location;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession.EmitterSlot;
+import com.sneaky.cosmetics.rendering.CosmeticEmitter;
+import com.sneaky.cosmetics.rendering.ParticleSink;
+import com.sneaky.cosmetics.rendering.PatternFrameTable;
 import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.util.Vector;
 
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Advanced particle cosmetic with special patterns and effects
@@ -25,10 +27,47 @@ public class AdvancedParticleCosmetic extends Cosmetic {
     private final Plugin plugin;
     private final ParticlePattern pattern;
     
-    private static final Map<Player, BukkitRunnable> activeParticles = new ConcurrentHashMap<>();
-    
     public enum ParticlePattern {
-        CIRCLE, HELIX, WAVE, TORNADO, HEART, STAR, GALAXY, SPIRAL
+        CIRCLE(63, 1),
+        HELIX(126, 1),
+        WAVE(63, 1),
+        TORNADO(42, 1),
+        HEART(1, 20),  // Show heart every second
+        STAR(1, 15),   // Show star every 0.75 seconds
+        GALAXY(126, 1),
+        SPIRAL(63, 1);
+        
+        private final int frameCount;
+        private final int showEvery;
+        
+        ParticlePattern(int frameCount, int showEvery) {
+            this.frameCount = frameCount;
+            this.showEvery = showEvery;
+        }
+        
+        /**
+         * Number of frames in one full animation cycle
+         */
+        public int getFrameCount() {
+            return frameCount;
+        }
+        
+        /**
+         * Shown once per n frames of the shared clock, used for static shapes that blink
+         */
+        public int getShowEvery() {
+            return showEvery;
+        }
+    }
+    
+    // Every pattern is compiled once, rendering only translates the stored offsets
+    private static final Map<ParticlePattern, PatternFrameTable> PATTERN_FRAMES = new EnumMap<>(ParticlePattern.class);
+    
+    static {
+        for (ParticlePattern pattern : ParticlePattern.values()) {
+            PATTERN_FRAMES.put(pattern, PatternFrameTable.compile(pattern.getFrameCount(), 
+                (frame, phase, points) -> compilePattern(pattern, phase, points)));
+        }
     }
     
     public AdvancedParticleCosmetic(String id, String displayName, int price, Material iconMaterial,
@@ -49,208 +88,155 @@ public class AdvancedParticleCosmetic extends Cosmetic {
         // Stop any existing particle effect
         deactivate(player);
         
+        PatternFrameTable frames = PATTERN_FRAMES.get(pattern);
+        
         // Start new particle effect with pattern
-        BukkitRunnable particleTask = new BukkitRunnable() {
-            private int tick = 0;
+        CosmeticEmitter emitter = new CosmeticEmitter(player, this, "particle-pattern", 2L) { // Every 0.1 seconds for smooth animation
+            // Window of the last shown blink, a slowed down or deferred emitter skips frames
+            // and could keep missing the one frame a modulo check would pick
+            private long shownWindow = -1;
             
             @Override
-            public void run() {
-                if (!player.isOnline()) {
-                    this.cancel();
-                    activeParticles.remove(player);
-                    return;
+            protected void render(long frame, ParticleSink sink) {
+                if (pattern.getShowEvery() > 1) {
+                    long window = frame / pattern.getShowEvery();
+                    if (window == shownWindow) {
+                        return;
+                    }
+                    shownWindow = window;
                 }
                 
-                Location playerLoc = player.getLocation().add(0, 1, 0);
+                double x = anchor.getX();
+                double y = anchor.getY() + 1;
+                double z = anchor.getZ();
                 
-                switch (pattern) {
-                    case CIRCLE:
-                        spawnCirclePattern(player, playerLoc, tick);
-                        break;
-                    case HELIX:
-                        spawnHelixPattern(player, playerLoc, tick);
-                        break;
-                    case WAVE:
-                        spawnWavePattern(player, playerLoc, tick);
-                        break;
-                    case TORNADO:
-                        spawnTornadoPattern(player, playerLoc, tick);
-                        break;
-                    case HEART:
-                        spawnHeartPattern(player, playerLoc, tick);
-                        break;
-                    case STAR:
-                        spawnStarPattern(player, playerLoc, tick);
-                        break;
-                    case GALAXY:
-                        spawnGalaxyPattern(player, playerLoc, tick);
-                        break;
-                    case SPIRAL:
-                        spawnSpiralPattern(player, playerLoc, tick);
-                        break;
+                double[] offsets = frames.frame(frame);
+                for (int i = 0; i < offsets.length; i += 3) {
+                    sink.spawn(particle, x + offsets[i], y + offsets[i + 1], z + offsets[i + 2], 
+                        1, 0, 0, 0, speed);
                 }
-                
-                tick++;
             }
-        };
-        
-        particleTask.runTaskTimer(plugin, 0L, 2L); // Every 0.1 seconds for smooth animation
-        activeParticles.put(player, particleTask);
-    }
-    
-    private void spawnCirclePattern(Player player, Location center, int tick) {
-        double radius = 1.5;
-        int points = 8;
-        
-        for (int i = 0; i < points; i++) {
-            double angle = (2 * Math.PI * i / points) + (tick * 0.1);
-            double x = radius * Math.cos(angle);
-            double z = radius * Math.sin(angle);
             
-            Location particleLoc = center.clone().add(x, 0, z);
-            player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
-        }
-    }
-    
-    private void spawnHelixPattern(Player player, Location center, int tick) {
-        double radius = 1.0;
-        double height = 2.0;
-        int points = 6;
-        
-        for (int i = 0; i < points; i++) {
-            double angle = (tick + i * 60) * 0.1;
-            double x = radius * Math.cos(angle);
-            double z = radius * Math.sin(angle);
-            double y = (Math.sin(tick * 0.05) * height) - 0.5;
+            @Override
+            protected boolean supportsAsyncRender() {
+                // Only reads the anchor and the compiled pattern frames, and its own blink window
+                return true;
+            }
             
-            Location particleLoc = center.clone().add(x, y, z);
-            player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
-        }
-    }
-    
-    private void spawnWavePattern(Player player, Location center, int tick) {
-        double radius = 2.0;
-        int points = 12;
+            @Override
+            protected void onUnregister() {
+                getSession(player).removeEmitter(EmitterSlot.ADVANCED_PARTICLE, this);
+            }
+        };
         
-        for (int i = 0; i < points; i++) {
-            double angle = (2 * Math.PI * i / points);
-            double waveRadius = radius + Math.sin(tick * 0.1 + i * 0.5) * 0.5;
-            double x = waveRadius * Math.cos(angle);
-            double z = waveRadius * Math.sin(angle);
-            
-            Location particleLoc = center.clone().add(x, 0, z);
-            player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
-        }
-    }
-    
-    private void spawnTornadoPattern(Player player, Location center, int tick) {
-        for (int i = 0; i < 3; i++) {
-            double height = i * 0.5;
-            double radius = 1.5 - (i * 0.3);
-            double angle = (tick + i * 40) * 0.15;
-            
-            double x = radius * Math.cos(angle);
-            double z = radius * Math.sin(angle);
-            
-            Location particleLoc = center.clone().add(x, height, z);
-            player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
-        }
+        getSession(player).putEmitter(EmitterSlot.ADVANCED_PARTICLE, emitter);
+        SneakyCosmetics.getInstance().getRenderScheduler().register(emitter);
     }
     
-    private void spawnHeartPattern(Player player, Location center, int tick) {
-        if (tick % 20 == 0) { // Show heart every second
-            for (double t = 0; t <= 2 * Math.PI; t += 0.3) {
-                double x = 16 * Math.pow(Math.sin(t), 3) / 16;
-                double y = (13 * Math.cos(t) - 5 * Math.cos(2*t) - 2 * Math.cos(3*t) - Math.cos(4*t)) / 16;
-                
-                Location particleLoc = center.clone().add(x, y + 0.5, 0);
-                player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
+    /**
+     * Write the offsets of one pattern frame, phase runs from 0 to 2π over the pattern's cycle
+     */
+    private static void compilePattern(ParticlePattern pattern, double phase, PatternFrameTable.PointBuffer points) {
+        switch (pattern) {
+            case CIRCLE: {
+                double radius = 1.5;
+                int count = 8;
+                for (int i = 0; i < count; i++) {
+                    double angle = (2 * Math.PI * i / count) + phase;
+                    points.add(radius * Math.cos(angle), 0, radius * Math.sin(angle));
+                }
+                break;
             }
-        }
-    }
-    
-    private void spawnStarPattern(Player player, Location center, int tick) {
-        if (tick % 15 == 0) { // Show star every 0.75 seconds
-            int points = 5;
-            double outerRadius = 1.5;
-            double innerRadius = 0.7;
-            
-            for (int i = 0; i < points * 2; i++) {
-                double angle = (Math.PI * i) / points;
-                double radius = (i % 2 == 0) ? outerRadius : innerRadius;
-                
-                double x = radius * Math.cos(angle - Math.PI/2);
-                double z = radius * Math.sin(angle - Math.PI/2);
-                
-                Location particleLoc = center.clone().add(x, 0, z);
-                player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
+            case HELIX: {
+                double radius = 1.0;
+                double height = 2.0;
+                // The ring turns twice while the height bobs once per cycle
+                double y = (Math.sin(phase) * height) - 0.5;
+                for (int i = 0; i < 6; i++) {
+                    double angle = phase * 2 + i * 6;
+                    points.add(radius * Math.cos(angle), y, radius * Math.sin(angle));
+                }
+                break;
             }
-        }
-    }
-    
-    private void spawnGalaxyPattern(Player player, Location center, int tick) {
-        double radius = 2.0;
-        int arms = 3;
-        int pointsPerArm = 4;
-        
-        for (int arm = 0; arm < arms; arm++) {
-            for (int i = 0; i < pointsPerArm; i++) {
-                double armAngle = (2 * Math.PI * arm) / arms;
-                double spiralAngle = armAngle + (i * 0.5) + (tick * 0.05);
-                double spiralRadius = radius * (i + 1) / pointsPerArm;
-                
-                double x = spiralRadius * Math.cos(spiralAngle);
-                double z = spiralRadius * Math.sin(spiralAngle);
-                
-                Location particleLoc = center.clone().add(x, 0, z);
-                player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
+            case WAVE: {
+                double radius = 2.0;
+                int count = 12;
+                for (int i = 0; i < count; i++) {
+                    double angle = (2 * Math.PI * i / count);
+                    double waveRadius = radius + Math.sin(phase + i * 0.5) * 0.5;
+                    points.add(waveRadius * Math.cos(angle), 0, waveRadius * Math.sin(angle));
+                }
+                break;
+            }
+            case TORNADO: {
+                for (int i = 0; i < 3; i++) {
+                    double height = i * 0.5;
+                    double radius = 1.5 - (i * 0.3);
+                    double angle = phase + i * 6;
+                    points.add(radius * Math.cos(angle), height, radius * Math.sin(angle));
+                }
+                break;
+            }
+            case HEART: {
+                for (double t = 0; t <= 2 * Math.PI; t += 0.3) {
+                    double x = 16 * Math.pow(Math.sin(t), 3) / 16;
+                    double y = (13 * Math.cos(t) - 5 * Math.cos(2*t) - 2 * Math.cos(3*t) - Math.cos(4*t)) / 16;
+                    points.add(x, y + 0.5, 0);
+                }
+                break;
+            }
+            case STAR: {
+                int count = 5;
+                double outerRadius = 1.5;
+                double innerRadius = 0.7;
+                for (int i = 0; i < count * 2; i++) {
+                    double angle = (Math.PI * i) / count;
+                    double radius = (i % 2 == 0) ? outerRadius : innerRadius;
+                    points.add(radius * Math.cos(angle - Math.PI/2), 0, radius * Math.sin(angle - Math.PI/2));
+                }
+                break;
+            }
+            case GALAXY: {
+                double radius = 2.0;
+                int arms = 3;
+                int pointsPerArm = 4;
+                for (int arm = 0; arm < arms; arm++) {
+                    for (int i = 0; i < pointsPerArm; i++) {
+                        double armAngle = (2 * Math.PI * arm) / arms;
+                        double spiralAngle = armAngle + (i * 0.5) + phase;
+                        double spiralRadius = radius * (i + 1) / pointsPerArm;
+                        points.add(spiralRadius * Math.cos(spiralAngle), 0, spiralRadius * Math.sin(spiralAngle));
+                    }
+                }
+                break;
+            }
+            case SPIRAL: {
+                for (int i = 0; i < 20; i++) {
+                    double angle = phase + i;
+                    double radius = i * 0.1;
+                    double height = Math.sin(angle) * 0.5;
+                    points.add(radius * Math.cos(angle), height, radius * Math.sin(angle));
+                }
+                break;
             }
-        }
-    }
-    
-    private void spawnSpiralPattern(Player player, Location center, int tick) {
-        for (int i = 0; i < 20; i++) {
-            double angle = (tick + i * 10) * 0.1;
-            double radius = i * 0.1;
-            double height = Math.sin(angle) * 0.5;
-            
-            double x = radius * Math.cos(angle);
-            double z = radius * Math.sin(angle);
-            
-            Location particleLoc = center.clone().add(x, height, z);
-            player.getWorld().spawnParticle(particle, particleLoc, 1, 0, 0, 0, speed);
         }
     }
     
     @Override
     public void deactivate(Player player) {
-        BukkitRunnable task = activeParticles.remove(player);
-        if (task != null) {
-            task.cancel();
+        CosmeticEmitter emitter = getSession(player).removeEmitter(EmitterSlot.ADVANCED_PARTICLE);
+        if (emitter != null) {
+            emitter.cancel();
         }
     }
     
     @Override
     public boolean isActive(Player player) {
-        return activeParticles.containsKey(player);
+        return getSession(player).hasEmitter(EmitterSlot.ADVANCED_PARTICLE);
     }
     
     @Override
     public void cleanup(Player player) {
         deactivate(player);
     }
-    
-    /**
-     * Clean up particles for offline players
-     */
-    public static void cleanupOfflinePlayerParticles() {
-        activeParticles.entrySet().removeIf(entry -> {
-            Player player = entry.getKey();
-            if (!player.isOnline()) {
-                entry.getValue().cancel();
-                return true;
-            }
-            return false;
-        });
-    }
 }
\ No newline at end of file
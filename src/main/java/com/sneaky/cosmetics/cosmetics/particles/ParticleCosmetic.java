@@ -1,16 +1,17 @@
 package com.sneaky.cosmetics.cosmetics.particles;
 
+import com.sneaky.cosmetics.SneakyCosmetics;
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession.EmitterSlot;
+import com.sneaky.cosmetics.rendering.CosmeticEmitter;
+import com.sneaky.cosmetics.rendering.ParticleSink;
 import org.bukkit.Material;
 import org.bukkit.Particle;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.plugin.Plugin;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Particle cosmetic that creates particle effects around the player
@@ -25,8 +26,6 @@ public class ParticleCosmetic extends Cosmetic {
     private final double speed;
     private final Plugin plugin;
     
-    private static final Map<Player, BukkitRunnable> activeParticles = new ConcurrentHashMap<>();
-    
     public ParticleCosmetic(String id, String displayName, int price, Material iconMaterial,
                            List<String> description, String permission, boolean requiresVIP,
                            boolean requiresPremium, Particle particle, int count,
@@ -48,37 +47,35 @@ public class ParticleCosmetic extends Cosmetic {
         deactivate(player);
         
         // Start new particle effect
-        BukkitRunnable particleTask = new BukkitRunnable() {
+        CosmeticEmitter emitter = new CosmeticEmitter(player, this, "particle", 10L) { // Every 0.5 seconds
             @Override
-            public void run() {
-                if (!player.isOnline()) {
-                    this.cancel();
-                    activeParticles.remove(player);
-                    return;
-                }
-                
+            protected void render(long frame, ParticleSink sink) {
                 // Spawn particles around the player
-                player.getWorld().spawnParticle(particle, 
-                    player.getLocation().add(0, 1, 0), 
+                sink.spawn(particle, anchor.getX(), anchor.getY() + 1, anchor.getZ(), 
                     count, offsetX, offsetY, offsetZ, speed);
             }
+            
+            @Override
+            protected void onUnregister() {
+                getSession(player).removeEmitter(EmitterSlot.PARTICLE, this);
+            }
         };
         
-        particleTask.runTaskTimer(plugin, 0L, 10L); // Every 0.5 seconds
-        activeParticles.put(player, particleTask);
+        getSession(player).putEmitter(EmitterSlot.PARTICLE, emitter);
+        SneakyCosmetics.getInstance().getRenderScheduler().register(emitter);
     }
     
     @Override
     public void deactivate(Player player) {
-        BukkitRunnable task = activeParticles.remove(player);
-        if (task != null) {
-            task.cancel();
+        CosmeticEmitter emitter = getSession(player).removeEmitter(EmitterSlot.PARTICLE);
+        if (emitter != null) {
+            emitter.cancel();
         }
     }
     
     @Override
     public boolean isActive(Player player) {
-        return activeParticles.containsKey(player);
+        return getSession(player).hasEmitter(EmitterSlot.PARTICLE);
     }
     
     @Override
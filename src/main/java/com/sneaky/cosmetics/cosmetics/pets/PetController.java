@@ -0,0 +1,385 @@
+package com.sneaky.cosmetics.cosmetics.pets;
+
+import com.sneaky.cosmetics.SneakyCosmetics;
+import com.sneaky.cosmetics.utils.SchedulerAdapter;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Single loop that moves every active pet after its owner
+ * Each tick updates the next slice of pets round-robin, so every pet is updated once per cosmetics.render-intervals.pet
+ * ticks and the pet AI costs about the same on every tick, however many pets there are
+ * Settled pets whose owner stands still are skipped until the owner moves or effects.pets.idle-refresh runs out
+ * All pets share one pathfinder and the terrain cache behind it, routes are planned off the main thread
+ * Events about pets reach their cosmetic through one shared event router
+ */
+public class PetController {
+
+    // Weight of the newest sample in the moving tick-time average
+    private static final double AVERAGE_WEIGHT = 0.05;
+
+    // Distance (squared) an owner has to move before their settled pet is updated again
+    private static final double OWNER_MOVE_SQUARED = 0.1 * 0.1;
+
+    private final SneakyCosmetics plugin;
+    private final PetTerrainCache terrain;
+    private final PetPathfinder pathfinder;
+    private final PetEventRouter router;
+
+    private PetHandle[] pets = new PetHandle[32];
+    private int size;
+    private volatile int activePets;
+    private int cursor;
+    private long currentTick;
+
+    // Pets are activated on their owner's thread, which on Folia is not the thread this loop runs on
+    private final Queue<PetHandle> added = new ConcurrentLinkedQueue<>();
+
+    private int period;
+    private int idleRefresh;
+
+    private boolean running;
+    private SchedulerAdapter.Task task;
+
+    // Tick statistics, updates run on the owners' threads on Folia
+    private final LongAdder workNanos = new LongAdder();
+    private final LongAdder updatedPets = new LongAdder();
+    private final LongAdder skippedPets = new LongAdder();
+    private volatile long lastTickNanos;
+    private volatile double averageTickNanos;
+    private volatile long peakTickNanos;
+
+    public PetController(SneakyCosmetics plugin) {
+        this.plugin = plugin;
+        this.terrain = new PetTerrainCache(plugin);
+        this.pathfinder = new PetPathfinder(plugin, terrain);
+        this.router = new PetEventRouter(plugin);
+        loadSettings();
+    }
+
+    /**
+     * Start the pet loop
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        task = plugin.getSchedulerAdapter().runGlobalTaskTimer(handle -> tick(), 1L, 1L);
+        plugin.getLogger().info("Started pet controller, updating each pet every " + period + " ticks");
+    }
+
+    /**
+     * Stop the pet loop and forget every pet, the pet entities are removed by their cosmetics
+     */
+    public void stop() {
+        running = false;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        PetHandle handle;
+        while ((handle = added.poll()) != null) {
+            handle.cancel();
+        }
+        for (int i = 0; i < size; i++) {
+            pets[i].cancel();
+        }
+        Arrays.fill(pets, 0, size, null);
+        size = 0;
+        activePets = 0;
+        cursor = 0;
+        router.clear();
+        terrain.clear();
+    }
+
+    /**
+     * Reload the update period, the pathfinding and the terrain cache settings from the configuration
+     */
+    public void reload() {
+        loadSettings();
+        pathfinder.loadSettings();
+        terrain.loadSettings();
+    }
+
+    private void loadSettings() {
+        period = Math.max(1, plugin.getConfig().getInt("cosmetics.render-intervals.pet", 6));
+        idleRefresh = Math.max(0, plugin.getConfig().getInt("effects.pets.idle-refresh", 5));
+    }
+
+    /**
+     * Start moving a pet after its owner and routing the pet's events to its cosmetic
+     * @return the handle that stops the pet's updates and events when cancelled
+     */
+    PetHandle register(PetCosmetic cosmetic, Player owner, Entity pet, PetData petData) {
+        PetHandle handle = new PetHandle(cosmetic, owner, pet, petData, router);
+        router.add(handle);
+        added.add(handle);
+        return handle;
+    }
+
+    private void tick() {
+        if (!running) {
+            return;
+        }
+
+        // Work of the previous tick, on Folia that ran on the owners' region threads in the meantime
+        recordTickTime(workNanos.sumThenReset());
+
+        if (++currentTick % terrain.getLifetime() == 0) {
+            terrain.clear();
+        }
+
+        PetHandle handle;
+        while ((handle = added.poll()) != null) {
+            if (handle.isCancelled()) {
+                continue;
+            }
+            if (size == pets.length) {
+                pets = Arrays.copyOf(pets, size * 2);
+            }
+            pets[size++] = handle;
+        }
+
+        // An even share of the pets per tick, so each one comes around once per period
+        int slice = (size + period - 1) / period;
+        for (int n = 0; n < slice && size > 0; n++) {
+            if (cursor >= size) {
+                cursor = 0;
+            }
+            handle = pets[cursor];
+            if (handle.isCancelled()) {
+                // The last pet moves into this slot and is looked at next
+                removeAt(cursor);
+                continue;
+            }
+            cursor++;
+            dispatch(handle);
+        }
+        activePets = size;
+    }
+
+    private void dispatch(PetHandle handle) {
+        if (plugin.getSchedulerAdapter().isFolia()) {
+            // The pet may only be touched from the region its owner is in
+            plugin.getSchedulerAdapter().runTaskForEntity(handle.owner, () -> update(handle));
+        } else {
+            update(handle);
+        }
+    }
+
+    private void update(PetHandle handle) {
+        if (handle.isCancelled()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Player owner = handle.owner;
+            if (!owner.isOnline() || handle.pet.isDead()) {
+                handle.cancel();
+                handle.cosmetic.removeFollowingPet(owner, handle.pet);
+                return;
+            }
+
+            Location location = owner.getLocation(handle.ownerLocation);
+            boolean ownerMoved = location.getWorld() != handle.lastWorld
+                    || square(location.getX() - handle.lastX) + square(location.getY() - handle.lastY)
+                    + square(location.getZ() - handle.lastZ) > OWNER_MOVE_SQUARED;
+            if (!ownerMoved && handle.settled && handle.skipped < idleRefresh) {
+                handle.skipped++;
+                skippedPets.increment();
+                return;
+            }
+
+            handle.skipped = 0;
+            handle.lastWorld = location.getWorld();
+            handle.lastX = location.getX();
+            handle.lastY = location.getY();
+            handle.lastZ = location.getZ();
+
+            long now = System.currentTimeMillis();
+            long timeDiff = now - handle.lastUpdateTime;
+            handle.lastUpdateTime = now;
+
+            handle.settled = handle.cosmetic.followOwner(owner, handle.pet, handle.petData, handle.route, timeDiff);
+            updatedPets.increment();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to update the pet of " + handle.owner.getName(), e);
+        } finally {
+            workNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private void removeAt(int slot) {
+        int last = --size;
+        if (slot != last) {
+            pets[slot] = pets[last];
+        }
+        pets[last] = null;
+    }
+
+    private void recordTickTime(long elapsed) {
+        lastTickNanos = elapsed;
+        averageTickNanos = averageTickNanos == 0.0
+                ? elapsed
+                : averageTickNanos + (elapsed - averageTickNanos) * AVERAGE_WEIGHT;
+        if (elapsed > peakTickNanos) {
+            peakTickNanos = elapsed;
+        }
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    PetPathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    // Statistics
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getActivePetCount() {
+        return activePets;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public int getIdleRefresh() {
+        return idleRefresh;
+    }
+
+    /**
+     * Time spent in pet updates during the last tick
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public long getAverageTickNanos() {
+        return (long) averageTickNanos;
+    }
+
+    public long getPeakTickNanos() {
+        return peakTickNanos;
+    }
+
+    public long getUpdatedPets() {
+        return updatedPets.sum();
+    }
+
+    public long getSkippedPets() {
+        return skippedPets.sum();
+    }
+
+    public boolean isBlockCacheEnabled() {
+        return terrain.isEnabled();
+    }
+
+    public int getBlockCacheSize() {
+        return terrain.size();
+    }
+
+    public long getBlockCacheHits() {
+        return terrain.getHits();
+    }
+
+    public long getBlockCacheMisses() {
+        return terrain.getMisses();
+    }
+
+    public int getSnapshotCount() {
+        return terrain.getChunkCount();
+    }
+
+    public boolean isAsyncPathfinding() {
+        return pathfinder.isAsync();
+    }
+
+    public int getMaxPathNodes() {
+        return pathfinder.getMaxNodes();
+    }
+
+    public long getPlansComputed() {
+        return pathfinder.getPlansComputed();
+    }
+
+    /**
+     * Total time spent planning routes, which does not count towards the tick times
+     */
+    public long getPlanNanos() {
+        return pathfinder.getPlanNanos();
+    }
+
+    public void resetPeak() {
+        peakTickNanos = 0;
+    }
+
+    /**
+     * One pet driven by the controller, cancelling it takes the pet out of the loop and the event router
+     */
+    static final class PetHandle implements SchedulerAdapter.Task {
+        private final PetCosmetic cosmetic;
+        private final Player owner;
+        private final Entity pet;
+        private final PetData petData;
+        private final PetPathfinder.Route route = new PetPathfinder.Route();
+        private final PetEventRouter router;
+        private volatile boolean cancelled;
+
+        // Only touched by updates, which for one pet never run concurrently
+        private final Location ownerLocation = new Location(null, 0, 0, 0);
+        private World lastWorld;
+        private double lastX;
+        private double lastY;
+        private double lastZ;
+        private long lastUpdateTime = System.currentTimeMillis();
+        private boolean settled;
+        private int skipped;
+
+        private PetHandle(PetCosmetic cosmetic, Player owner, Entity pet, PetData petData, PetEventRouter router) {
+            this.cosmetic = cosmetic;
+            this.owner = owner;
+            this.pet = pet;
+            this.petData = petData;
+            this.router = router;
+        }
+
+        PetCosmetic getCosmetic() {
+            return cosmetic;
+        }
+
+        Player getOwner() {
+            return owner;
+        }
+
+        Entity getPet() {
+            return pet;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            router.remove(this);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
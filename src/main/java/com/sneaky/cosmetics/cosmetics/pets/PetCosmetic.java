@@ -1,43 +1,35 @@
 package com.sneaky.cosmetics.cosmetics.pets;
 
+import com.destroystokyo.paper.ParticleBuilder;
 import com.sneaky.cosmetics.SneakyCosmetics;
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession;
+import com.sneaky.cosmetics.utils.SchedulerAdapter;
 import org.bukkit.*;
 import org.bukkit.entity.*;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
-import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
-import org.bukkit.event.player.PlayerToggleSneakEvent;
-import org.bukkit.event.vehicle.VehicleExitEvent;
 import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.util.Vector;
 
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Enhanced pet cosmetic that spawns and manages pet entities with riding, feeding, leveling, and naming
+ * Events about the pet are routed here by the pet controller's event router
  */
-public class PetCosmetic extends Cosmetic implements Listener {
+public class PetCosmetic extends Cosmetic {
     
     private final EntityType entityType;
     private final boolean isBaby;
     private final String defaultPetName;
     private final SneakyCosmetics plugin;
     
-    private static final Map<Player, Entity> activePets = new ConcurrentHashMap<>();
-    private static final Map<Player, BukkitRunnable> petTasks = new ConcurrentHashMap<>();
-    private static final Map<Player, PetData> petDataCache = new ConcurrentHashMap<>();
-    private static final Map<Player, Long> lastInteractionTime = new ConcurrentHashMap<>();
-    private static final Map<UUID, Player> ridingPets = new ConcurrentHashMap<>();
+    // Same range the server would send a world particle to
+    private static final double MOOD_PARTICLE_RANGE = 32.0;
     
     public PetCosmetic(String id, String displayName, int price, Material iconMaterial,
                       List<String> description, String permission, boolean requiresVIP,
@@ -49,9 +41,6 @@ public class PetCosmetic extends Cosmetic implements Listener {
         this.isBaby = isBaby;
         this.defaultPetName = defaultPetName;
         this.plugin = plugin;
-        
-        // Register event listener
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
     }
     
     @Override
@@ -61,7 +50,8 @@ public class PetCosmetic extends Cosmetic implements Listener {
         
         // Load or create pet data
         PetData petData = loadPetData(player);
-        petDataCache.put(player, petData);
+        PlayerCosmeticSession session = getSession(player);
+        session.setPetData(petData);
         
         // Spawn the pet near the player
         Location spawnLocation = player.getLocation().add(1, 0, 1);
@@ -87,7 +77,7 @@ public class PetCosmetic extends Cosmetic implements Listener {
             // Apply level-based improvements
             applyLevelBonuses(livingPet, petData);
             
-            activePets.put(player, pet);
+            session.setPet(pet);
             
             // Start follow task
             startEnhancedFollowTask(player, pet, petData);
@@ -105,36 +95,39 @@ public class PetCosmetic extends Cosmetic implements Listener {
     @Override
     public void deactivate(Player player) {
         // Save pet data if exists
-        PetData petData = petDataCache.get(player);
+        PlayerCosmeticSession session = getSession(player);
+        PetData petData = session.getPetData();
         if (petData != null) {
             savePetData(petData);
-            petDataCache.remove(player);
+            session.setPetData(null);
         }
         
         // Handle riding
-        if (ridingPets.containsKey(player.getUniqueId())) {
+        if (session.isRidingPet()) {
             stopRiding(player);
         }
         
         // Remove existing pet
-        Entity existingPet = activePets.remove(player);
+        Entity existingPet = session.getPet();
+        session.setPet(null);
         if (existingPet != null && !existingPet.isDead()) {
             existingPet.remove();
         }
         
         // Stop follow task
-        BukkitRunnable task = petTasks.remove(player);
+        SchedulerAdapter.Task task = session.getPetTask();
+        session.setPetTask(null);
         if (task != null) {
             task.cancel();
         }
         
         // Clear interaction tracking
-        lastInteractionTime.remove(player);
+        session.setLastPetInteraction(0L);
     }
     
     @Override
     public boolean isActive(Player player) {
-        Entity pet = activePets.get(player);
+        Entity pet = getSession(player).getPet();
         return pet != null && !pet.isDead();
     }
     
@@ -144,125 +137,135 @@ public class PetCosmetic extends Cosmetic implements Listener {
     }
     
     /**
-     * Start enhanced follow task with experience tracking
+     * Hand the pet to the shared pet controller, which moves it after its owner
      */
     private void startEnhancedFollowTask(Player player, Entity pet, PetData petData) {
-        BukkitRunnable followTask = new BukkitRunnable() {
-            private long lastUpdateTime = System.currentTimeMillis();
-            
-            @Override
-            public void run() {
-                if (!player.isOnline() || pet.isDead()) {
-                    this.cancel();
-                    activePets.remove(player);
-                    petTasks.remove(player);
-                    if (!pet.isDead()) {
-                        pet.remove();
+        getSession(player).setPetTask(plugin.getPetController().register(this, player, pet, petData));
+    }
+    
+    /**
+     * Move a pet one step after its owner, called by the pet controller on the thread that owns the owner
+     * @return whether the pet is idle next to its owner
+     */
+    boolean followOwner(Player player, Entity pet, PetData petData, PetPathfinder.Route route, long timeDiff) {
+        // Track pet time for experience
+        petData.addPetTime(timeDiff);
+        long currentTime = System.currentTimeMillis();
+        
+        // Update pet display every few seconds
+        if (currentTime % 3000 < 500) { // Roughly every 3 seconds
+            updatePetNameAndDisplay((LivingEntity) pet, petData);
+        }
+        
+        Location petLocation = pet.getLocation();
+        
+        // Get speed multiplier based on level
+        double speedMultiplier = 1.0 + (petData.getAbilityLevel("speed") * 0.1);
+        
+        // Use improved pathfinding system
+        PetPathfinder.MovementResult movement = plugin.getPetController().getPathfinder().calculateMovement(pet, player, speedMultiplier, route);
+        
+        switch (movement.getType()) {
+            case TELEPORT:
+                Location teleportLoc = movement.getLocation();
+                if (teleportLoc != null) {
+                    // Play teleport effect at old location
+                    pet.getWorld().spawnParticle(Particle.PORTAL, petLocation, 15, 0.5, 0.5, 0.5, 0.1);
+                    pet.getWorld().playSound(petLocation, Sound.ENTITY_ENDERMAN_TELEPORT, 0.5f, 1.2f);
+                    
+                    // Teleport pet, the target may lie in another region on Folia
+                    if (plugin.getSchedulerAdapter().isFolia()) {
+                        pet.teleportAsync(teleportLoc);
+                    } else {
+                        pet.teleport(teleportLoc);
                     }
-                    return;
-                }
-                
-                // Track pet time for experience
-                long currentTime = System.currentTimeMillis();
-                long timeDiff = currentTime - lastUpdateTime;
-                petData.addPetTime(timeDiff);
-                lastUpdateTime = currentTime;
-                
-                // Update pet display every few seconds
-                if (currentTime % 3000 < 500) { // Roughly every 3 seconds
-                    updatePetNameAndDisplay((LivingEntity) pet, petData);
+                    
+                    // Play teleport effect at new location
+                    pet.getWorld().spawnParticle(Particle.PORTAL, teleportLoc, 15, 0.5, 0.5, 0.5, 0.1);
+                    pet.getWorld().playSound(teleportLoc, Sound.ENTITY_ENDERMAN_TELEPORT, 0.5f, 1.2f);
                 }
+                break;
                 
-                Location playerLocation = player.getLocation();
-                Location petLocation = pet.getLocation();
-                
-                // Check distance
-                double distance = petLocation.distance(playerLocation);
-                
-                // Get speed multiplier based on level
-                double speedMultiplier = 1.0 + (petData.getAbilityLevel("speed") * 0.1);
-                
-                // Use improved pathfinding system
-                PetPathfinder.MovementResult movement = PetPathfinder.calculateMovement(pet, player, speedMultiplier);
-                
-                switch (movement.getType()) {
-                    case TELEPORT:
-                        Location teleportLoc = movement.getLocation();
-                        if (teleportLoc != null) {
-                            // Play teleport effect at old location
-                            pet.getWorld().spawnParticle(Particle.PORTAL, petLocation, 15, 0.5, 0.5, 0.5, 0.1);
-                            pet.getWorld().playSound(petLocation, Sound.ENTITY_ENDERMAN_TELEPORT, 0.5f, 1.2f);
-                            
-                            // Teleport pet
-                            pet.teleport(teleportLoc);
-                            
-                            // Play teleport effect at new location
-                            pet.getWorld().spawnParticle(Particle.PORTAL, teleportLoc, 15, 0.5, 0.5, 0.5, 0.1);
-                            pet.getWorld().playSound(teleportLoc, Sound.ENTITY_ENDERMAN_TELEPORT, 0.5f, 1.2f);
-                        }
-                        break;
+            case WALK:
+                Location walkLoc = movement.getLocation();
+                if (walkLoc != null) {
+                    // Check if pet should jump
+                    if (PetPathfinder.shouldJump(petLocation, walkLoc) && pet instanceof LivingEntity) {
+                        PetPathfinder.applyJump((LivingEntity) pet);
+                    }
+                    
+                    // Smooth movement with velocity
+                    if (pet instanceof LivingEntity) {
+                        LivingEntity livingPet = (LivingEntity) pet;
+                        Vector velocity = walkLoc.toVector().subtract(petLocation.toVector());
                         
-                    case WALK:
-                        Location walkLoc = movement.getLocation();
-                        if (walkLoc != null) {
-                            // Check if pet should jump
-                            if (PetPathfinder.shouldJump(petLocation, walkLoc) && pet instanceof LivingEntity) {
-                                PetPathfinder.applyJump((LivingEntity) pet);
-                            }
-                            
-                            // Smooth movement with velocity
-                            if (pet instanceof LivingEntity) {
-                                LivingEntity livingPet = (LivingEntity) pet;
-                                Vector velocity = walkLoc.toVector().subtract(petLocation.toVector());
-                                
-                                // Limit velocity to prevent pets from moving too fast
-                                double maxVelocity = 0.5 * speedMultiplier;
-                                if (velocity.length() > maxVelocity) {
-                                    velocity.normalize().multiply(maxVelocity);
-                                }
-                                
-                                // Preserve Y velocity for jumping/falling
-                                velocity.setY(Math.max(velocity.getY(), livingPet.getVelocity().getY()));
-                                
-                                livingPet.setVelocity(velocity);
-                            } else {
-                                // Fallback to teleportation for non-living entities
-                                pet.teleport(walkLoc);
-                            }
+                        // Limit velocity to prevent pets from moving too fast
+                        double maxVelocity = 0.5 * speedMultiplier;
+                        if (velocity.length() > maxVelocity) {
+                            velocity.normalize().multiply(maxVelocity);
                         }
-                        break;
                         
-                    case JUMP:
-                        if (pet instanceof LivingEntity) {
-                            PetPathfinder.applyJump((LivingEntity) pet);
-                        }
-                        break;
+                        // Preserve Y velocity for jumping/falling
+                        velocity.setY(Math.max(velocity.getY(), livingPet.getVelocity().getY()));
                         
-                    case IDLE:
-                        // Pet is close enough, no movement needed
-                        break;
+                        livingPet.setVelocity(velocity);
+                    } else {
+                        // Fallback to teleportation for non-living entities
+                        pet.teleport(walkLoc);
+                    }
                 }
+                break;
                 
-                // Spawn mood particles
-                spawnMoodParticles(pet, petData);
-            }
-        };
+            case JUMP:
+                if (pet instanceof LivingEntity) {
+                    PetPathfinder.applyJump((LivingEntity) pet);
+                }
+                break;
+                
+            case WAIT:
+                // Route is still being planned, the pet is updated again next time
+                break;
+                
+            case IDLE:
+                // Pet is close enough, no movement needed
+                break;
+        }
         
-        followTask.runTaskTimer(plugin, 0L, 6L); // Every 0.3 seconds for smoother movement
-        petTasks.put(player, followTask);
+        // Spawn mood particles
+        spawnMoodParticles(pet, petData);
+        return movement.getType() == PetPathfinder.MovementType.IDLE;
+    }
+    
+    /**
+     * Drop a pet whose owner left or that died, on the thread that owns the pet
+     */
+    void removeFollowingPet(Player player, Entity pet) {
+        PlayerCosmeticSession session = getSession(player);
+        if (session.getPet() == pet) {
+            session.setPet(null);
+            session.setPetTask(null);
+        }
+        plugin.getSchedulerAdapter().runTaskForEntity(pet, () -> {
+            if (!pet.isDead()) {
+                pet.remove();
+            }
+        });
     }
     
     // ===============================
     // PET INTERACTION EVENT HANDLERS
     // ===============================
     
-    @EventHandler
-    public void onPlayerInteractEntity(PlayerInteractEntityEvent event) {
+    /**
+     * Handle a player right-clicking their pet
+     */
+    void handleInteract(PlayerInteractEntityEvent event) {
         Player player = event.getPlayer();
         Entity entity = event.getRightClicked();
         
         // Check if this is the player's active pet
-        Entity playerPet = activePets.get(player);
+        PlayerCosmeticSession session = getSession(player);
+        Entity playerPet = session.getPet();
         if (playerPet == null || !playerPet.equals(entity)) return;
         
         // Prevent default interactions
@@ -271,15 +274,14 @@ public class PetCosmetic extends Cosmetic implements Listener {
         // Only handle main hand interactions
         if (event.getHand() != EquipmentSlot.HAND) return;
         
-        PetData petData = petDataCache.get(player);
+        PetData petData = session.getPetData();
         if (petData == null) return;
         
         // Check interaction cooldown
         long currentTime = System.currentTimeMillis();
-        Long lastInteraction = lastInteractionTime.get(player);
-        if (lastInteraction != null && currentTime - lastInteraction < 1000) return; // 1 second cooldown
+        if (currentTime - session.getLastPetInteraction() < 1000) return; // 1 second cooldown
         
-        lastInteractionTime.put(player, currentTime);
+        session.setLastPetInteraction(currentTime);
         
         // Handle different interactions based on what player is holding
         Material heldItem = player.getInventory().getItemInMainHand().getType();
@@ -299,42 +301,34 @@ public class PetCosmetic extends Cosmetic implements Listener {
         }
     }
     
-    @EventHandler
-    public void onPlayerToggleSneak(PlayerToggleSneakEvent event) {
-        Player player = event.getPlayer();
-        if (!event.isSneaking() && ridingPets.containsKey(player.getUniqueId())) {
+    /**
+     * Handle a player riding their pet releasing sneak
+     */
+    void handleSneakRelease(Player player) {
+        if (getSession(player).isRidingPet()) {
             // Player stopped sneaking while riding - dismount
             stopRiding(player);
         }
     }
     
-    @EventHandler
-    public void onVehicleExit(VehicleExitEvent event) {
-        if (event.getExited() instanceof Player) {
-            Player player = (Player) event.getExited();
-            if (ridingPets.containsKey(player.getUniqueId())) {
-                ridingPets.remove(player.getUniqueId());
+    /**
+     * Handle a player getting off their pet
+     */
+    void handleDismount(Player player) {
+        PlayerCosmeticSession session = getSession(player);
+        if (session.isRidingPet()) {
+            session.setRidingPet(false);
+            
+            PetData petData = session.getPetData();
+            if (petData != null) {
+                petData.setRiding(false);
+                petData.addExperience(PetData.EXP_PER_RIDE);
                 
-                PetData petData = petDataCache.get(player);
-                if (petData != null) {
-                    petData.setRiding(false);
-                    petData.addExperience(PetData.EXP_PER_RIDE);
-                    
-                    plugin.getMessageManager().sendMessage(player, "§7You dismounted your pet!");
-                }
+                plugin.getMessageManager().sendMessage(player, "§7You dismounted your pet!");
             }
         }
     }
     
-    @EventHandler
-    public void onEntityDamage(EntityDamageEvent event) {
-        // Prevent all pets from taking damage
-        Entity entity = event.getEntity();
-        if (activePets.containsValue(entity)) {
-            event.setCancelled(true);
-        }
-    }
-    
     // ===============================
     // PET INTERACTION METHODS
     // ===============================
@@ -343,7 +337,8 @@ public class PetCosmetic extends Cosmetic implements Listener {
      * Start riding the pet
      */
     private void startRiding(Player player, Entity pet, PetData petData) {
-        if (ridingPets.containsKey(player.getUniqueId())) {
+        PlayerCosmeticSession session = getSession(player);
+        if (session.isRidingPet()) {
             plugin.getMessageManager().sendError(player, "You are already riding a pet!");
             return;
         }
@@ -355,7 +350,7 @@ public class PetCosmetic extends Cosmetic implements Listener {
         
         // Add player as passenger
         pet.addPassenger(player);
-        ridingPets.put(player.getUniqueId(), player);
+        session.setRidingPet(true);
         petData.setRiding(true);
         
         // Apply riding effects based on pet level
@@ -376,7 +371,8 @@ public class PetCosmetic extends Cosmetic implements Listener {
      * Stop riding the pet
      */
     private void stopRiding(Player player) {
-        ridingPets.remove(player.getUniqueId());
+        PlayerCosmeticSession session = getSession(player);
+        session.setRidingPet(false);
         
         // Remove riding effects
         player.removePotionEffect(PotionEffectType.SPEED);
@@ -387,7 +383,7 @@ public class PetCosmetic extends Cosmetic implements Listener {
             player.getVehicle().removePassenger(player);
         }
         
-        PetData petData = petDataCache.get(player);
+        PetData petData = session.getPetData();
         if (petData != null) {
             petData.setRiding(false);
             petData.addExperience(PetData.EXP_PER_RIDE);
@@ -412,7 +408,7 @@ public class PetCosmetic extends Cosmetic implements Listener {
         );
         
         // Play feeding effects
-        Entity pet = activePets.get(player);
+        Entity pet = getSession(player).getPet();
         if (pet != null) {
             pet.getWorld().spawnParticle(Particle.HEART, pet.getLocation().add(0, 1, 0), 5);
             pet.getWorld().playSound(pet.getLocation(), Sound.ENTITY_GENERIC_EAT, 1.0f, 1.2f);
@@ -431,7 +427,7 @@ public class PetCosmetic extends Cosmetic implements Listener {
     private void petThePet(Player player, PetData petData) {
         petData.addExperience(PetData.EXP_PER_INTERACTION);
         
-        Entity pet = activePets.get(player);
+        Entity pet = getSession(player).getPet();
         if (pet != null) {
             // Play petting effects
             pet.getWorld().spawnParticle(Particle.HAPPY_VILLAGER, pet.getLocation().add(0, 1, 0), 3);
@@ -520,31 +516,41 @@ public class PetCosmetic extends Cosmetic implements Listener {
      * Spawn mood particles around pet
      */
     private void spawnMoodParticles(Entity pet, PetData petData) {
-        Location loc = pet.getLocation().add(0, 1, 0);
         PetData.PetMood mood = petData.getMood();
+        Particle particle = null;
         
         switch (mood) {
             case HAPPY:
                 if (Math.random() < 0.3) {
-                    pet.getWorld().spawnParticle(Particle.HEART, loc, 1);
+                    particle = Particle.HEART;
                 }
                 break;
             case CONTENT:
                 if (Math.random() < 0.1) {
-                    pet.getWorld().spawnParticle(Particle.HAPPY_VILLAGER, loc, 1);
+                    particle = Particle.HAPPY_VILLAGER;
                 }
                 break;
             case SAD:
                 if (Math.random() < 0.2) {
-                    pet.getWorld().spawnParticle(Particle.SMOKE, loc, 1);
+                    particle = Particle.SMOKE;
                 }
                 break;
             case VERY_SAD:
                 if (Math.random() < 0.4) {
-                    pet.getWorld().spawnParticle(Particle.ANGRY_VILLAGER, loc, 1);
+                    particle = Particle.ANGRY_VILLAGER;
                 }
                 break;
         }
+        if (particle == null) {
+            return;
+        }
+        
+        // Send to the players around the pet from the shared index instead of scanning the world
+        Location loc = pet.getLocation().add(0, 1, 0);
+        List<Player> receivers = plugin.getPlayerIndex().getNearbyPlayers(loc, MOOD_PARTICLE_RANGE);
+        if (!receivers.isEmpty()) {
+            new ParticleBuilder(particle).location(loc).count(1).receivers(receivers).spawn();
+        }
     }
     
     /**
@@ -591,7 +597,7 @@ public class PetCosmetic extends Cosmetic implements Listener {
         // and the level up notifications are handled in PetData.onLevelUp()
         // Here we can add additional level up effects
         
-        Entity pet = activePets.get(player);
+        Entity pet = getSession(player).getPet();
         if (pet != null) {
             // Update display after potential level up
             updatePetNameAndDisplay((LivingEntity) pet, petData);
@@ -606,25 +612,26 @@ public class PetCosmetic extends Cosmetic implements Listener {
      * Get the current pet entity for a player
      */
     public static Entity getPlayerPet(Player player) {
-        return activePets.get(player);
+        return getSession(player).getPet();
     }
     
     /**
      * Get pet data for a player
      */
     public static PetData getPlayerPetData(Player player) {
-        return petDataCache.get(player);
+        return getSession(player).getPetData();
     }
     
     /**
      * Update the pet's custom name
      */
     public void updatePetName(Player player, String newName) {
-        PetData petData = petDataCache.get(player);
+        PlayerCosmeticSession session = getSession(player);
+        PetData petData = session.getPetData();
         if (petData != null) {
             petData.setCustomName(newName);
             
-            Entity pet = activePets.get(player);
+            Entity pet = session.getPet();
             if (pet instanceof LivingEntity) {
                 updatePetNameAndDisplay((LivingEntity) pet, petData);
             }
@@ -634,37 +641,6 @@ public class PetCosmetic extends Cosmetic implements Listener {
         }
     }
     
-    /**
-     * Clean up all pets (for plugin disable)
-     */
-    public static void cleanupAllPets() {
-        // Save all pet data
-        for (Map.Entry<Player, PetData> entry : petDataCache.entrySet()) {
-            // Auto-save would be handled by the plugin's shutdown process
-        }
-        
-        // Remove all pets
-        for (Entity pet : activePets.values()) {
-            if (pet != null && !pet.isDead()) {
-                pet.remove();
-            }
-        }
-        activePets.clear();
-        
-        // Cancel all tasks
-        for (BukkitRunnable task : petTasks.values()) {
-            if (task != null) {
-                task.cancel();
-            }
-        }
-        petTasks.clear();
-        
-        // Clear caches
-        petDataCache.clear();
-        lastInteractionTime.clear();
-        ridingPets.clear();
-    }
-    
     // ===============================
     // GETTERS
     // ===============================
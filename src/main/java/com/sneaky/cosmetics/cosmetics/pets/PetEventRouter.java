@@ -0,0 +1,92 @@
+package com.sneaky.cosmetics.cosmetics.pets;
+
+import com.sneaky.cosmetics.SneakyCosmetics;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.player.PlayerToggleSneakEvent;
+import org.bukkit.event.vehicle.VehicleExitEvent;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one listener for pet events, however many pet cosmetics are registered
+ * Looks up the entity of an event among the spawned pets and hands the event to the cosmetic that owns the pet
+ */
+final class PetEventRouter implements Listener {
+
+    // Spawned pets by entity id, the per-player pet state lives in the player's session
+    private final Map<UUID, PetController.PetHandle> pets = new ConcurrentHashMap<>();
+
+    PetEventRouter(SneakyCosmetics plugin) {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    void add(PetController.PetHandle handle) {
+        pets.put(handle.getPet().getUniqueId(), handle);
+    }
+
+    void remove(PetController.PetHandle handle) {
+        pets.remove(handle.getPet().getUniqueId(), handle);
+    }
+
+    void clear() {
+        pets.clear();
+    }
+
+    /**
+     * Get the pet handle of an entity the given player owns
+     */
+    private PetController.PetHandle getOwnedPet(Entity entity, Player player) {
+        if (entity == null) {
+            return null;
+        }
+        PetController.PetHandle handle = pets.get(entity.getUniqueId());
+        return handle != null && handle.getOwner().getUniqueId().equals(player.getUniqueId()) ? handle : null;
+    }
+
+    @EventHandler
+    public void onPlayerInteractEntity(PlayerInteractEntityEvent event) {
+        PetController.PetHandle handle = getOwnedPet(event.getRightClicked(), event.getPlayer());
+        if (handle != null) {
+            handle.getCosmetic().handleInteract(event);
+        }
+    }
+
+    @EventHandler
+    public void onPlayerToggleSneak(PlayerToggleSneakEvent event) {
+        if (event.isSneaking()) {
+            return;
+        }
+        Player player = event.getPlayer();
+        PetController.PetHandle handle = getOwnedPet(player.getVehicle(), player);
+        if (handle != null) {
+            handle.getCosmetic().handleSneakRelease(player);
+        }
+    }
+
+    @EventHandler
+    public void onVehicleExit(VehicleExitEvent event) {
+        if (!(event.getExited() instanceof Player)) {
+            return;
+        }
+        Player player = (Player) event.getExited();
+        PetController.PetHandle handle = getOwnedPet(event.getVehicle(), player);
+        if (handle != null) {
+            handle.getCosmetic().handleDismount(player);
+        }
+    }
+
+    @EventHandler
+    public void onEntityDamage(EntityDamageEvent event) {
+        // Prevent all pets from taking damage
+        if (pets.containsKey(event.getEntity().getUniqueId())) {
+            event.setCancelled(true);
+        }
+    }
+}
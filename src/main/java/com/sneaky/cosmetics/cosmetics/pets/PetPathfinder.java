@@ -1,8 +1,8 @@
 package com.sneaky.cosmetics.cosmetics.pets;
 
+import com.sneaky.cosmetics.SneakyCosmetics;
 import org.bukkit.Location;
-import org.bukkit.Material;
-import org.bukkit.block.Block;
+import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
@@ -10,11 +10,20 @@ import org.bukkit.util.Vector;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
 
 /**
  * Advanced pathfinding system for pets to follow players smoothly
- * Handles ground-based movement, obstacle avoidance, and intelligent navigation
+ * Routes are planned with a bounded A* search on chunk snapshots off the main thread, the owner's thread
+ * only steers the pet along the planned waypoints and applies teleports
+ * Block lookups go through the pet controller's terrain cache, shared by every pet
  */
 public class PetPathfinder {
 
@@ -22,199 +31,438 @@ public class PetPathfinder {
     private static final double MAX_FOLLOW_DISTANCE = 15.0;
     private static final double MIN_FOLLOW_DISTANCE = 3.0;
     private static final double TELEPORT_DISTANCE = 25.0;
-    private static final double STEP_HEIGHT = 1.0;
     private static final double JUMP_HEIGHT = 2.0;
     private static final int MAX_PATHFIND_ATTEMPTS = 10;
 
+    // Blocks around the pet and owner that are snapshotted for planning
+    private static final int PLAN_MARGIN = 8;
+
+    // Distance the owner may move before their pet's route is planned again
+    private static final double REPLAN_DISTANCE = 3.0;
+
+    // Time before a route is planned again even though the owner stood still, in case the pet got stuck
+    private static final long PLAN_LIFETIME_MILLIS = 5000;
+
+    // Time before a failed or finished route is planned again
+    private static final long RETRY_MILLIS = 1000;
+
+    // Horizontal distance at which a waypoint counts as reached
+    private static final double WAYPOINT_REACHED = 0.6;
+
+    // Horizontal distance to the follow position at which the search stops
+    private static final double GOAL_RADIUS = 1.5;
+
+    private static final int MAX_WAYPOINTS = 8;
+    private static final int MAX_DROP = 3;
+    private static final double DIAGONAL_COST = Math.sqrt(2);
+
+    private static final int[] STEP_X = {1, -1, 0, 0, 1, 1, -1, -1};
+    private static final int[] STEP_Z = {0, 0, 1, -1, 1, -1, 1, -1};
+
+    private final SneakyCosmetics plugin;
+    private final PetTerrainCache terrain;
+
+    private volatile boolean async;
+    private volatile int maxNodes;
+
+    private final LongAdder plansComputed = new LongAdder();
+    private final LongAdder planNanos = new LongAdder();
+
+    PetPathfinder(SneakyCosmetics plugin, PetTerrainCache terrain) {
+        this.plugin = plugin;
+        this.terrain = terrain;
+        loadSettings();
+    }
+
+    /**
+     * Reload the planning settings from the configuration
+     */
+    void loadSettings() {
+        async = plugin.getConfig().getBoolean("effects.pets.pathfinding.async", true);
+        maxNodes = Math.max(16, plugin.getConfig().getInt("effects.pets.pathfinding.max-nodes", 400));
+    }
+
     /**
-     * Calculate the next movement step for a pet following a player
+     * Calculate the next movement step for a pet following a player, on the owner's thread
+     * Never searches for a path itself, a new route is requested when the current one no longer fits
+     * and the pet waits or keeps walking the old one until it is ready
+     * IDLE only means the pet arrived next to its owner, a pet that has not arrived yet gets WAIT
      */
-    public static MovementResult calculateMovement(Entity pet, Player player, double speedMultiplier) {
+    MovementResult calculateMovement(Entity pet, Player player, double speedMultiplier, Route route) {
         Location petLoc = pet.getLocation();
         Location playerLoc = player.getLocation();
-        double distance = petLoc.distance(playerLoc);
-
-        // If pet is too far, teleport it
-        if (distance > TELEPORT_DISTANCE) {
-            Location teleportLoc = findSafeTeleportLocation(playerLoc);
-            return new MovementResult(MovementType.TELEPORT, teleportLoc);
-        }
+        double distanceSq = petLoc.getWorld() == playerLoc.getWorld()
+                ? petLoc.distanceSquared(playerLoc)
+                : Double.MAX_VALUE;
 
         // If pet is close enough, don't move
-        if (distance <= MIN_FOLLOW_DISTANCE) {
+        if (distanceSq <= MIN_FOLLOW_DISTANCE * MIN_FOLLOW_DISTANCE) {
+            route.plan.set(null);
             return new MovementResult(MovementType.IDLE, null);
         }
 
-        // Calculate pathfinding movement
-        Location targetLoc = findBestFollowPosition(playerLoc, petLoc);
-        Location nextStep = calculateNextStep(petLoc, targetLoc, speedMultiplier);
+        long now = System.currentTimeMillis();
+        Plan plan = route.plan.get();
+        boolean stale = plan == null || plan.isStale(playerLoc, now);
 
-        if (nextStep == null) {
-            // Pathfinding failed, try teleportation
-            if (distance > MAX_FOLLOW_DISTANCE) {
-                Location teleportLoc = findSafeTeleportLocation(playerLoc);
-                return new MovementResult(MovementType.TELEPORT, teleportLoc);
+        if (plan != null && plan.type == MovementType.TELEPORT) {
+            // Each teleport plan is used once, a plan finished in the meantime is kept
+            route.plan.compareAndSet(plan, null);
+            if (!stale) {
+                return new MovementResult(MovementType.TELEPORT, plan.target.clone());
             }
-            return new MovementResult(MovementType.IDLE, null);
+            plan = null;
         }
 
-        return new MovementResult(MovementType.WALK, nextStep);
+        // If pet is too far, teleport it once a spot next to the owner is found
+        if (distanceSq > TELEPORT_DISTANCE * TELEPORT_DISTANCE) {
+            request(route, petLoc, playerLoc, true);
+            return new MovementResult(MovementType.WAIT, null);
+        }
+
+        MovementResult step = plan != null && plan.type == MovementType.WALK
+                ? steer(route, plan, petLoc, speedMultiplier)
+                : null;
+        if (stale || (step == null && now - plan.createdAt > RETRY_MILLIS)) {
+            request(route, petLoc, playerLoc, false);
+        }
+        return step != null ? step : new MovementResult(MovementType.WAIT, null);
     }
 
     /**
-     * Find the best position for the pet to follow the player
+     * Next step towards the first waypoint of a route that is not reached yet
+     * @return null once the route is walked
      */
-    private static Location findBestFollowPosition(Location playerLoc, Location petLoc) {
-        // If player is flying or too high up, keep pet on ground
-        Location groundPlayerLoc = playerLoc.clone();
-        if (isPlayerFlying(playerLoc) || playerLoc.getY() - findGroundLevel(playerLoc).getY() > 3) {
-            groundPlayerLoc = findGroundLevel(playerLoc);
-            if (groundPlayerLoc == null) {
-                groundPlayerLoc = playerLoc.clone();
-                groundPlayerLoc.setY(playerLoc.getY() - 1);
-            }
+    private MovementResult steer(Route route, Plan plan, Location petLoc, double speedMultiplier) {
+        if (route.steering != plan) {
+            route.steering = plan;
+            route.next = 0;
         }
 
-        // Try to position pet behind and slightly to the side of player
-        Vector playerDirection = groundPlayerLoc.getDirection().normalize();
-        Vector followOffset = playerDirection.multiply(-2.5); // Behind player
+        double[] waypoints = plan.waypoints;
+        while (route.next * 3 < waypoints.length) {
+            int i = route.next * 3;
+            double dx = waypoints[i] - petLoc.getX();
+            double dz = waypoints[i + 2] - petLoc.getZ();
+            double distance = Math.sqrt(dx * dx + dz * dz);
+            if (distance < WAYPOINT_REACHED) {
+                route.next++;
+                continue;
+            }
 
-        // Add some randomness to avoid pets clustering
-        followOffset.add(new Vector(
-                (Math.random() - 0.5) * 2,
-                0,
-                (Math.random() - 0.5) * 2
-        ));
+            double speed = Math.min(0.4 * speedMultiplier, distance);
+            Location nextStep = petLoc.clone().add(dx / distance * speed, 0, dz / distance * speed);
+            // Height of the waypoint, so steps up make the pet jump
+            nextStep.setY(waypoints[i + 1]);
+            return new MovementResult(MovementType.WALK, nextStep);
+        }
+        return null;
+    }
 
-        Location targetLoc = groundPlayerLoc.clone().add(followOffset);
+    /**
+     * Plan a new route unless one is already being planned
+     * The blocks the search may need are snapshotted here, on the owner's thread, and searched off it
+     */
+    private void request(Route route, Location petLoc, Location ownerLoc, boolean teleport) {
+        if (!route.planning.compareAndSet(false, true)) {
+            return;
+        }
 
-        // Ensure the target location is safe and on ground
-        targetLoc = findGroundLevel(targetLoc);
-        if (targetLoc != null && isSafeLocation(targetLoc)) {
-            return targetLoc;
+        World world = ownerLoc.getWorld();
+        if (!async || world == null) {
+            try {
+                route.plan.set(plan(petLoc, ownerLoc, teleport, world != null ? terrain.live(world) : null));
+            } finally {
+                route.planning.set(false);
+            }
+            return;
         }
 
-        // If preferred position isn't safe, find nearest safe position
-        return findNearestSafeLocation(groundPlayerLoc, 5);
+        PetTerrainCache.Terrain snapshot;
+        try {
+            int minX = ownerLoc.getBlockX();
+            int maxX = minX;
+            int minZ = ownerLoc.getBlockZ();
+            int maxZ = minZ;
+            if (!teleport) {
+                minX = Math.min(minX, petLoc.getBlockX());
+                maxX = Math.max(maxX, petLoc.getBlockX());
+                minZ = Math.min(minZ, petLoc.getBlockZ());
+                maxZ = Math.max(maxZ, petLoc.getBlockZ());
+            }
+            snapshot = terrain.capture(world,
+                    (minX - PLAN_MARGIN) >> 4, (minZ - PLAN_MARGIN) >> 4,
+                    (maxX + PLAN_MARGIN) >> 4, (maxZ + PLAN_MARGIN) >> 4);
+        } catch (RuntimeException e) {
+            route.planning.set(false);
+            throw e;
+        }
+
+        Location pet = petLoc.clone();
+        Location owner = ownerLoc.clone();
+        plugin.getSchedulerAdapter().runTaskAsynchronously(() -> {
+            try {
+                route.plan.set(plan(pet, owner, teleport, snapshot));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.FINE, "Failed to plan a pet route", e);
+            } finally {
+                route.planning.set(false);
+            }
+        });
     }
 
     /**
-     * Check if the player is flying or in the air
+     * Plan a route for a pet, only reads blocks through the given terrain so it can run on any thread
      */
-    private static boolean isPlayerFlying(Location playerLoc) {
-        if (playerLoc.getWorld() == null) return false;
+    private Plan plan(Location petLoc, Location ownerLoc, boolean teleport, PetTerrainCache.Terrain terrain) {
+        long start = System.nanoTime();
+        try {
+            if (terrain == null) {
+                return new Plan(MovementType.IDLE, null, null, ownerLoc);
+            }
+            if (teleport) {
+                return new Plan(MovementType.TELEPORT, null, findSafeTeleportLocation(ownerLoc, terrain), ownerLoc);
+            }
 
-        // Check if player is more than 2 blocks above ground
-        Location groundLoc = findGroundLevel(playerLoc);
-        if (groundLoc != null) {
-            return playerLoc.getY() - groundLoc.getY() > 2.0;
+            Location targetLoc = findBestFollowPosition(ownerLoc, petLoc, terrain);
+            double[] waypoints = findPath(terrain, petLoc, targetLoc);
+            if (waypoints == null) {
+                // No way through, try teleportation
+                if (petLoc.distanceSquared(ownerLoc) > MAX_FOLLOW_DISTANCE * MAX_FOLLOW_DISTANCE) {
+                    return new Plan(MovementType.TELEPORT, null, findSafeTeleportLocation(ownerLoc, terrain), ownerLoc);
+                }
+                return new Plan(MovementType.IDLE, null, null, ownerLoc);
+            }
+            return new Plan(MovementType.WALK, waypoints, null, ownerLoc);
+        } finally {
+            plansComputed.increment();
+            planNanos.add(System.nanoTime() - start);
         }
-
-        return false;
     }
 
     /**
-     * Calculate the next step in pathfinding
+     * Bounded A* search over the blocks a pet can stand on, walking, stepping up one block or dropping a few
+     * @return the waypoints towards the target, or towards the closest reachable block when the search runs
+     *         out of nodes, as x, y, z triples of block centres, or null when the pet cannot move at all
      */
-    private static Location calculateNextStep(Location current, Location target, double speedMultiplier) {
-        Vector direction = target.toVector().subtract(current.toVector());
-        double distance = direction.length();
+    private double[] findPath(PetTerrainCache.Terrain terrain, Location from, Location to) {
+        int goalX = to.getBlockX();
+        int goalY = to.getBlockY();
+        int goalZ = to.getBlockZ();
+
+        Map<Long, Node> nodes = new HashMap<>();
+        PriorityQueue<Node> open = new PriorityQueue<>();
+
+        Node start = new Node(from.getBlockX(), from.getBlockY(), from.getBlockZ(), null, 0.0,
+                heuristic(from.getBlockX(), from.getBlockY(), from.getBlockZ(), goalX, goalY, goalZ));
+        nodes.put(PetTerrainCache.pack(start.x, start.y, start.z), start);
+        open.add(start);
+
+        Node best = start;
+        int expanded = 0;
+        while (!open.isEmpty() && expanded < maxNodes) {
+            Node current = open.poll();
+            if (current.closed) {
+                continue;
+            }
+            current.closed = true;
+            expanded++;
 
-        if (distance < 0.1) {
-            return null; // Already at target
-        }
+            if (current.h < best.h) {
+                best = current;
+            }
+            int gx = current.x - goalX;
+            int gz = current.z - goalZ;
+            if (gx * gx + gz * gz <= GOAL_RADIUS * GOAL_RADIUS && Math.abs(current.y - goalY) <= 1) {
+                best = current;
+                break;
+            }
 
-        // Normalize direction and apply speed
-        direction.normalize();
-        double speed = 0.4 * speedMultiplier;
-        direction.multiply(Math.min(speed, distance));
+            for (int i = 0; i < STEP_X.length; i++) {
+                int dx = STEP_X[i];
+                int dz = STEP_Z[i];
+                int x = current.x + dx;
+                int z = current.z + dz;
+
+                // No cutting corners, both sides of a diagonal step have to be open
+                if (dx != 0 && dz != 0
+                        && (!isOpen(terrain, current.x + dx, current.y, current.z)
+                        || !isOpen(terrain, current.x, current.y, current.z + dz))) {
+                    continue;
+                }
 
-        Location nextStep = current.clone().add(direction);
+                int y = standY(terrain, current, x, z);
+                if (y == Integer.MIN_VALUE) {
+                    continue;
+                }
 
-        // Check if the next step is valid
-        if (canMoveTo(current, nextStep)) {
-            return nextStep;
+                double g = current.g + (dx != 0 && dz != 0 ? DIAGONAL_COST : 1.0) + Math.abs(y - current.y);
+                long key = PetTerrainCache.pack(x, y, z);
+                Node known = nodes.get(key);
+                if (known != null && (known.closed || g >= known.g)) {
+                    continue;
+                }
+                if (known != null) {
+                    // The old entry stays queued and is skipped once polled
+                    known.closed = true;
+                }
+                Node node = new Node(x, y, z, current, g, heuristic(x, y, z, goalX, goalY, goalZ));
+                nodes.put(key, node);
+                open.add(node);
+            }
         }
 
-        // Try alternative paths if direct path is blocked
-        return findAlternativePath(current, target, speedMultiplier);
+        return best == start ? null : toWaypoints(best);
     }
 
     /**
-     * Find an alternative path when direct movement is blocked
+     * Height a pet ends up at when stepping from a node onto a neighbouring column
+     * @return Integer.MIN_VALUE when the pet cannot step there
      */
-    private static Location findAlternativePath(Location current, Location target, double speedMultiplier) {
-        Vector baseDirection = target.toVector().subtract(current.toVector()).normalize();
-        double speed = 0.4 * speedMultiplier;
+    private static int standY(PetTerrainCache.Terrain terrain, Node from, int x, int z) {
+        int y = from.y;
+        if (canStand(terrain, x, y, z)) {
+            return y;
+        }
 
-        // Try different angles to avoid obstacles
-        double[] angles = {0, 45, -45, 90, -90, 135, -135, 180};
+        // Step up, which needs head room above the pet before it jumps
+        if (canStand(terrain, x, y + 1, z) && terrain.isPassable(from.x, y + 2, from.z)) {
+            return y + 1;
+        }
 
-        for (double angle : angles) {
-            Vector direction = rotateVector(baseDirection, Math.toRadians(angle));
-            direction.multiply(speed);
+        // Drop down a few blocks
+        if (!isOpen(terrain, x, y, z)) {
+            return Integer.MIN_VALUE;
+        }
+        for (int drop = 1; drop <= MAX_DROP; drop++) {
+            if (canStand(terrain, x, y - drop, z)) {
+                return y - drop;
+            }
+            if (!terrain.isPassable(x, y - drop, z)) {
+                break;
+            }
+        }
+        return Integer.MIN_VALUE;
+    }
 
-            Location testLocation = current.clone().add(direction);
+    private static boolean canStand(PetTerrainCache.Terrain terrain, int x, int y, int z) {
+        return terrain.isSolid(x, y - 1, z) && isOpen(terrain, x, y, z);
+    }
+
+    private static boolean isOpen(PetTerrainCache.Terrain terrain, int x, int y, int z) {
+        return terrain.isPassable(x, y, z) && terrain.isPassable(x, y + 1, z);
+    }
 
-            if (canMoveTo(current, testLocation)) {
-                return testLocation;
+    private static double heuristic(int x, int y, int z, int goalX, int goalY, int goalZ) {
+        int dx = Math.abs(x - goalX);
+        int dz = Math.abs(z - goalZ);
+        return Math.max(dx, dz) + (DIAGONAL_COST - 1.0) * Math.min(dx, dz) + Math.abs(y - goalY);
+    }
+
+    /**
+     * Turn the end of a search into waypoints, merging straight level runs and keeping height changes
+     */
+    private static double[] toWaypoints(Node end) {
+        List<Node> path = new ArrayList<>();
+        for (Node node = end; node.parent != null; node = node.parent) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+
+        List<Node> kept = new ArrayList<>();
+        for (int i = 0; i < path.size() && kept.size() < MAX_WAYPOINTS; i++) {
+            Node node = path.get(i);
+            if (i + 1 < path.size()) {
+                Node previous = node.parent;
+                Node next = path.get(i + 1);
+                boolean straight = next.x - node.x == node.x - previous.x
+                        && next.z - node.z == node.z - previous.z
+                        && next.y == node.y && node.y == previous.y;
+                if (straight) {
+                    continue;
+                }
             }
+            kept.add(node);
         }
 
-        // Try jumping if pet is stuck
-        Location jumpLocation = current.clone().add(0, STEP_HEIGHT, 0);
-        if (canMoveTo(current, jumpLocation)) {
-            return jumpLocation;
+        double[] waypoints = new double[kept.size() * 3];
+        for (int i = 0; i < kept.size(); i++) {
+            Node node = kept.get(i);
+            waypoints[i * 3] = node.x + 0.5;
+            waypoints[i * 3 + 1] = node.y;
+            waypoints[i * 3 + 2] = node.z + 0.5;
         }
-
-        return null; // No valid path found
+        return waypoints;
     }
 
     /**
-     * Check if the pet can move from one location to another
+     * Find the best position for the pet to follow the player
      */
-    private static boolean canMoveTo(Location from, Location to) {
-        // Check if target location is safe
-        if (!isSafeLocation(to)) {
-            return false;
+    private Location findBestFollowPosition(Location playerLoc, Location petLoc, PetTerrainCache.Terrain terrain) {
+        // If player is flying or too high up, keep pet on ground
+        Location groundPlayerLoc = playerLoc.clone();
+        if (isPlayerFlying(playerLoc, terrain) || playerLoc.getY() - findGroundLevel(playerLoc, terrain).getY() > 3) {
+            groundPlayerLoc = findGroundLevel(playerLoc, terrain);
+            if (groundPlayerLoc == null) {
+                groundPlayerLoc = playerLoc.clone();
+                groundPlayerLoc.setY(playerLoc.getY() - 1);
+            }
         }
 
-        // Check for obstacles in the path
-        Vector direction = to.toVector().subtract(from.toVector());
-        double distance = direction.length();
-        direction.normalize();
+        // Try to position pet behind and slightly to the side of player
+        Vector playerDirection = groundPlayerLoc.getDirection().normalize();
+        Vector followOffset = playerDirection.multiply(-2.5); // Behind player
 
-        // Sample points along the path
-        int samples = Math.max(1, (int) (distance * 2));
-        for (int i = 0; i <= samples; i++) {
-            Vector step = direction.clone().multiply((distance / samples) * i);
-            Location checkLoc = from.clone().add(step);
+        // Add some randomness to avoid pets clustering
+        followOffset.add(new Vector(
+                (Math.random() - 0.5) * 2,
+                0,
+                (Math.random() - 0.5) * 2
+        ));
 
-            if (!isPassable(checkLoc)) {
-                return false;
-            }
+        Location targetLoc = groundPlayerLoc.clone().add(followOffset);
+
+        // Ensure the target location is safe and on ground
+        targetLoc = findGroundLevel(targetLoc, terrain);
+        if (targetLoc != null && isSafeLocation(targetLoc, terrain)) {
+            return targetLoc;
+        }
+
+        // If preferred position isn't safe, find nearest safe position
+        return findNearestSafeLocation(groundPlayerLoc, 5, terrain);
+    }
+
+    /**
+     * Check if the player is flying or in the air
+     */
+    private boolean isPlayerFlying(Location playerLoc, PetTerrainCache.Terrain terrain) {
+        if (playerLoc.getWorld() == null) return false;
+
+        // Check if player is more than 2 blocks above ground
+        Location groundLoc = findGroundLevel(playerLoc, terrain);
+        if (groundLoc != null) {
+            return playerLoc.getY() - groundLoc.getY() > 2.0;
         }
 
-        return true;
+        return false;
     }
 
     /**
      * Check if a location is safe for the pet
      */
-    private static boolean isSafeLocation(Location loc) {
+    private boolean isSafeLocation(Location loc, PetTerrainCache.Terrain terrain) {
         if (loc.getWorld() == null) return false;
 
-        Block block = loc.getBlock();
-        Block below = loc.clone().add(0, -1, 0).getBlock();
-        Block above = loc.clone().add(0, 1, 0).getBlock();
+        int x = loc.getBlockX();
+        int y = loc.getBlockY();
+        int z = loc.getBlockZ();
 
         // Check if there's solid ground below
-        if (!below.getType().isSolid()) {
+        if (!terrain.isSolid(x, y - 1, z)) {
             // Check if there's a block within 3 blocks below
             boolean foundGround = false;
             for (int i = 2; i <= 4; i++) {
-                Block checkBelow = loc.clone().add(0, -i, 0).getBlock();
-                if (checkBelow.getType().isSolid()) {
+                if (terrain.isSolid(x, y - i, z)) {
                     foundGround = true;
                     break;
                 }
@@ -222,79 +470,44 @@ public class PetPathfinder {
             if (!foundGround) return false;
         }
 
-        // Check if the location is passable
-        return isPassable(loc) && isPassable(above.getLocation());
-    }
-
-    /**
-     * Check if a location is passable (not solid)
-     */
-    private static boolean isPassable(Location loc) {
-        Block block = loc.getBlock();
-        Material type = block.getType();
-
-        // Check for solid blocks that pets can't pass through
-        if (type.isSolid()) {
-            // Allow some passable solid blocks
-            switch (type) {
-                case TALL_GRASS:
-                case SHORT_GRASS:
-                case SNOW:
-                case VINE:
-                case LADDER:
-                    return true;
-                default:
-                    return false;
-            }
-        }
-
-        // Check for dangerous blocks
-        switch (type) {
-            case LAVA:
-            case FIRE:
-            case CACTUS:
-            case SWEET_BERRY_BUSH:
-            case WITHER_ROSE:
-                return false;
-            default:
-                return true;
-        }
+        // Check if the location and the block above are passable
+        return terrain.isPassable(x, y, z) && terrain.isPassable(x, y + 1, z);
     }
 
     /**
      * Find the nearest safe location within a radius
      */
-    private static Location findNearestSafeLocation(Location center, int radius) {
-        List<Location> candidates = new ArrayList<>();
+    private Location findNearestSafeLocation(Location center, int radius, PetTerrainCache.Terrain terrain) {
+        Location nearest = null;
+        double nearestDistanceSq = Double.MAX_VALUE;
+        Location candidate = center.clone();
 
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
                 for (int y = -2; y <= 2; y++) {
-                    Location candidate = center.clone().add(x, y, z);
-                    if (isSafeLocation(candidate)) {
-                        candidates.add(candidate);
+                    // Offsets are whole blocks, so the distance is known before touching the world
+                    double distanceSq = x * x + y * y + z * z;
+                    if (distanceSq >= nearestDistanceSq) {
+                        continue;
+                    }
+                    candidate.setX(center.getX() + x);
+                    candidate.setY(center.getY() + y);
+                    candidate.setZ(center.getZ() + z);
+                    if (isSafeLocation(candidate, terrain)) {
+                        nearest = candidate.clone();
+                        nearestDistanceSq = distanceSq;
                     }
                 }
             }
         }
 
-        if (candidates.isEmpty()) {
-            return center; // Fallback to original location
-        }
-
-        // Sort by distance to center
-        candidates.sort((a, b) -> Double.compare(
-                a.distanceSquared(center),
-                b.distanceSquared(center)
-        ));
-
-        return candidates.get(0);
+        return nearest != null ? nearest : center; // Fallback to original location
     }
 
     /**
      * Find a safe teleport location near the player
      */
-    private static Location findSafeTeleportLocation(Location playerLoc) {
+    private Location findSafeTeleportLocation(Location playerLoc, PetTerrainCache.Terrain terrain) {
         // Try positions around the player
         for (int attempts = 0; attempts < MAX_PATHFIND_ATTEMPTS; attempts++) {
             double angle = Math.random() * Math.PI * 2;
@@ -306,53 +519,39 @@ public class PetPathfinder {
             Location candidate = new Location(playerLoc.getWorld(), x, playerLoc.getY(), z);
 
             // Find ground level
-            candidate = findGroundLevel(candidate);
+            candidate = findGroundLevel(candidate, terrain);
 
-            if (candidate != null && isSafeLocation(candidate)) {
+            if (candidate != null && isSafeLocation(candidate, terrain)) {
                 return candidate;
             }
         }
 
         // Fallback: teleport directly to player location
-        return findGroundLevel(playerLoc.clone().add(1, 0, 1));
+        return findGroundLevel(playerLoc.clone().add(1, 0, 1), terrain);
     }
 
     /**
      * Find the ground level at a given X,Z coordinate
      */
-    private static Location findGroundLevel(Location loc) {
-        if (loc.getWorld() == null) return null;
-
-        // Start from a high Y level and work down
-        int startY = Math.max((int) loc.getY() + 10, loc.getWorld().getMaxHeight() - 1);
-
-        for (int y = startY; y >= loc.getWorld().getMinHeight(); y--) {
-            Location checkLoc = new Location(loc.getWorld(), loc.getX(), y, loc.getZ());
-            Block block = checkLoc.getBlock();
-            Block above = checkLoc.clone().add(0, 1, 0).getBlock();
-            Block above2 = checkLoc.clone().add(0, 2, 0).getBlock();
-
-            if (block.getType().isSolid() &&
-                    isPassable(above.getLocation()) &&
-                    isPassable(above2.getLocation())) {
-                return above.getLocation();
-            }
-        }
+    private Location findGroundLevel(Location loc, PetTerrainCache.Terrain terrain) {
+        World world = loc.getWorld();
+        if (world == null) return null;
 
-        return loc; // Fallback
-    }
+        int x = loc.getBlockX();
+        int z = loc.getBlockZ();
 
-    /**
-     * Rotate a vector by a given angle around the Y axis
-     */
-    private static Vector rotateVector(Vector vector, double angleRadians) {
-        double cos = Math.cos(angleRadians);
-        double sin = Math.sin(angleRadians);
+        // Start a few blocks above and work down, capped at the build limit
+        int startY = Math.min(loc.getBlockY() + 10, world.getMaxHeight() - 1);
 
-        double x = vector.getX() * cos - vector.getZ() * sin;
-        double z = vector.getX() * sin + vector.getZ() * cos;
+        for (int y = startY; y >= world.getMinHeight(); y--) {
+            if (terrain.isSolid(x, y, z) &&
+                    terrain.isPassable(x, y + 1, z) &&
+                    terrain.isPassable(x, y + 2, z)) {
+                return new Location(world, x, y + 1, z);
+            }
+        }
 
-        return new Vector(x, vector.getY(), z);
+        return loc; // Fallback
     }
 
     /**
@@ -372,6 +571,27 @@ public class PetPathfinder {
         pet.setVelocity(velocity);
     }
 
+    // Statistics
+
+    boolean isAsync() {
+        return async;
+    }
+
+    int getMaxNodes() {
+        return maxNodes;
+    }
+
+    long getPlansComputed() {
+        return plansComputed.sum();
+    }
+
+    /**
+     * Time spent planning routes, mostly off the main thread
+     */
+    long getPlanNanos() {
+        return planNanos.sum();
+    }
+
     /**
      * Result of movement calculation
      */
@@ -393,6 +613,82 @@ public class PetPathfinder {
         }
     }
 
+    /**
+     * Route of one pet, planned off-thread and walked on the owner's thread
+     */
+    static final class Route {
+        private final AtomicReference<Plan> plan = new AtomicReference<>();
+        private final AtomicBoolean planning = new AtomicBoolean();
+
+        // Only touched on the owner's thread
+        private Plan steering;
+        private int next;
+    }
+
+    /**
+     * Finished plan, never changed once published
+     */
+    private static final class Plan {
+        private final MovementType type;
+        private final double[] waypoints;
+        private final Location target;
+        private final World ownerWorld;
+        private final double ownerX;
+        private final double ownerY;
+        private final double ownerZ;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Plan(MovementType type, double[] waypoints, Location target, Location ownerLoc) {
+            this.type = type;
+            this.waypoints = waypoints;
+            this.target = target;
+            this.ownerWorld = ownerLoc.getWorld();
+            this.ownerX = ownerLoc.getX();
+            this.ownerY = ownerLoc.getY();
+            this.ownerZ = ownerLoc.getZ();
+        }
+
+        /**
+         * Whether the owner moved away from where the plan was made for, or the plan got too old
+         */
+        private boolean isStale(Location ownerLoc, long now) {
+            if (ownerLoc.getWorld() != ownerWorld || now - createdAt > PLAN_LIFETIME_MILLIS) {
+                return true;
+            }
+            double dx = ownerLoc.getX() - ownerX;
+            double dy = ownerLoc.getY() - ownerY;
+            double dz = ownerLoc.getZ() - ownerZ;
+            return dx * dx + dy * dy + dz * dz > REPLAN_DISTANCE * REPLAN_DISTANCE;
+        }
+    }
+
+    /**
+     * Block of an A* search
+     */
+    private static final class Node implements Comparable<Node> {
+        private final int x;
+        private final int y;
+        private final int z;
+        private final Node parent;
+        private final double g;
+        private final double h;
+        private boolean closed;
+
+        private Node(int x, int y, int z, Node parent, double g, double h) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.parent = parent;
+            this.g = g;
+            this.h = h;
+        }
+
+        @Override
+        public int compareTo(Node other) {
+            return Double.compare(g + h, other.g + other.h);
+        }
+    }
+
     /**
      * Types of movement the pet can perform
      */
@@ -400,6 +696,7 @@ public class PetPathfinder {
         WALK,       // Normal walking movement
         TELEPORT,   // Teleport to location
         JUMP,       // Jump movement
+        WAIT,       // Not there yet, waiting for a route
         IDLE        // Stay in place
     }
 }
\ No newline at end of file
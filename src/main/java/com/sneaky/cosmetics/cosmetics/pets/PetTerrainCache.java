@@ -0,0 +1,439 @@
+package com.sneaky.cosmetics.cosmetics.pets;
+
+import com.sneaky.cosmetics.SneakyCosmetics;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFadeEvent;
+import org.bukkit.event.block.BlockFormEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockGrowEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.block.BlockSpreadEvent;
+import org.bukkit.event.block.LeavesDecayEvent;
+import org.bukkit.event.entity.EntityChangeBlockEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived cache of what pets can stand on and walk through, keyed by packed block coordinates
+ * Pets following each other over the same terrain mostly hit this cache instead of the world,
+ * entries are dropped when their block changes and the whole cache expires every effects.pets.block-cache.lifetime ticks
+ * Chunk snapshots taken for off-thread pathfinding are cached the same way, planners read cached blocks but never add any
+ */
+final class PetTerrainCache implements Listener {
+
+    /**
+     * Read-only view of the blocks a pathfinder works on
+     */
+    interface Terrain {
+        World getWorld();
+
+        boolean isSolid(int x, int y, int z);
+
+        boolean isPassable(int x, int y, int z);
+    }
+
+    // Bits of a cached block state, KNOWN keeps a cached air block from reading as zero
+    private static final byte KNOWN = 1;
+    private static final byte SOLID = 2;
+    private static final byte PASSABLE = 4;
+
+    private final SneakyCosmetics plugin;
+    private final Map<UUID, Map<Long, Byte>> worlds = new ConcurrentHashMap<>();
+    private final Map<UUID, Map<Long, ChunkSnapshot>> chunks = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled;
+    private volatile int maxEntries;
+    private volatile int maxChunks;
+    private int lifetime;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    PetTerrainCache(SneakyCosmetics plugin) {
+        this.plugin = plugin;
+        loadSettings();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+    }
+
+    void loadSettings() {
+        enabled = plugin.getConfig().getBoolean("effects.pets.block-cache.enabled", true);
+        lifetime = Math.max(1, plugin.getConfig().getInt("effects.pets.block-cache.lifetime", 100));
+        maxEntries = Math.max(0, plugin.getConfig().getInt("effects.pets.block-cache.max-entries", 50000));
+        maxChunks = Math.max(0, plugin.getConfig().getInt("effects.pets.block-cache.max-chunks", 256));
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Ticks after which every cached block is dropped
+     */
+    int getLifetime() {
+        return lifetime;
+    }
+
+    boolean isSolid(World world, int x, int y, int z) {
+        return (lookup(world, x, y, z) & SOLID) != 0;
+    }
+
+    /**
+     * Whether a pet can be inside a block, some solid plants are fine and dangerous blocks are not
+     */
+    boolean isPassable(World world, int x, int y, int z) {
+        return (lookup(world, x, y, z) & PASSABLE) != 0;
+    }
+
+    private byte lookup(World world, int x, int y, int z) {
+        if (!enabled) {
+            return classify(world.getType(x, y, z));
+        }
+
+        Map<Long, Byte> blocks = worlds.computeIfAbsent(world.getUID(), uuid -> new ConcurrentHashMap<>());
+        long key = pack(x, y, z);
+        Byte cached = blocks.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        byte state = classify(world.getType(x, y, z));
+        if (blocks.size() < maxEntries) {
+            blocks.put(key, state);
+        }
+        return state;
+    }
+
+    /**
+     * View of the live world through the block cache, only usable on the thread that owns the blocks
+     */
+    Terrain live(World world) {
+        return new Terrain() {
+            @Override
+            public World getWorld() {
+                return world;
+            }
+
+            @Override
+            public boolean isSolid(int x, int y, int z) {
+                return PetTerrainCache.this.isSolid(world, x, y, z);
+            }
+
+            @Override
+            public boolean isPassable(int x, int y, int z) {
+                return PetTerrainCache.this.isPassable(world, x, y, z);
+            }
+        };
+    }
+
+    /**
+     * Snapshot the loaded chunks in a range, on the thread that owns them
+     * The returned view can be read from any thread, blocks in chunks that were not loaded count as walls
+     */
+    Terrain capture(World world, int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        Map<Long, ChunkSnapshot> cached = enabled
+                ? chunks.computeIfAbsent(world.getUID(), uuid -> new ConcurrentHashMap<>())
+                : null;
+        Map<Long, ChunkSnapshot> captured = new HashMap<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                long key = chunkKey(chunkX, chunkZ);
+                ChunkSnapshot snapshot = cached != null ? cached.get(key) : null;
+                if (snapshot == null) {
+                    if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                        continue;
+                    }
+                    try {
+                        snapshot = world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false);
+                    } catch (RuntimeException e) {
+                        // Chunk owned by another region on Folia
+                        continue;
+                    }
+                    if (cached != null && cached.size() < maxChunks) {
+                        cached.put(key, snapshot);
+                    }
+                }
+                captured.put(key, snapshot);
+            }
+        }
+        return new SnapshotTerrain(world, captured, enabled ? worlds.computeIfAbsent(world.getUID(), uuid -> new ConcurrentHashMap<>()) : null);
+    }
+
+    private static byte classify(Material type) {
+        byte state = KNOWN;
+        if (type.isSolid()) {
+            state |= SOLID;
+        }
+        if (isPassable(type)) {
+            state |= PASSABLE;
+        }
+        return state;
+    }
+
+    private static boolean isPassable(Material type) {
+        // Check for solid blocks that pets can't pass through
+        if (type.isSolid()) {
+            // Allow some passable solid blocks
+            switch (type) {
+                case TALL_GRASS:
+                case SHORT_GRASS:
+                case SNOW:
+                case VINE:
+                case LADDER:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        // Check for dangerous blocks
+        switch (type) {
+            case LAVA:
+            case FIRE:
+            case CACTUS:
+            case SWEET_BERRY_BUSH:
+            case WITHER_ROSE:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Pack block coordinates into one key, 26 bits for x and z and 12 for y
+     */
+    static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Forget a block that is about to change, along with the snapshot of its chunk
+     */
+    void invalidate(Block block) {
+        UUID worldId = block.getWorld().getUID();
+        Map<Long, ChunkSnapshot> snapshots = chunks.get(worldId);
+        if (snapshots != null) {
+            snapshots.remove(chunkKey(block.getX() >> 4, block.getZ() >> 4));
+        }
+        Map<Long, Byte> blocks = worlds.get(worldId);
+        if (blocks != null) {
+            blocks.remove(pack(block.getX(), block.getY(), block.getZ()));
+        }
+    }
+
+    private void invalidate(List<Block> changed) {
+        for (Block block : changed) {
+            invalidate(block);
+        }
+    }
+
+    /**
+     * Forget the blocks a piston moves, both neighbours along the axis since the reported direction
+     * differs between extending and retracting
+     */
+    private void invalidateMoved(Block piston, List<Block> moved, BlockFace direction) {
+        BlockFace opposite = direction.getOppositeFace();
+        invalidate(piston.getRelative(direction));
+        invalidate(piston.getRelative(opposite));
+        for (Block block : moved) {
+            invalidate(block);
+            invalidate(block.getRelative(direction));
+            invalidate(block.getRelative(opposite));
+        }
+    }
+
+    /**
+     * Drop every cached block, called once per lifetime and when the cache is disabled
+     */
+    void clear() {
+        chunks.clear();
+        worlds.clear();
+    }
+
+    int size() {
+        int size = 0;
+        for (Map<Long, Byte> blocks : worlds.values()) {
+            size += blocks.size();
+        }
+        return size;
+    }
+
+    int getChunkCount() {
+        int count = 0;
+        for (Map<Long, ChunkSnapshot> snapshots : chunks.values()) {
+            count += snapshots.size();
+        }
+        return count;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    // Block changes, the cached state is dropped before the change is applied
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFade(BlockFadeEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockGrow(BlockGrowEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockForm(BlockFormEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockSpread(BlockSpreadEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent event) {
+        invalidate(event.getToBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onLeavesDecay(LeavesDecayEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityChangeBlock(EntityChangeBlockEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        invalidateMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        invalidateMoved(event.getBlock(), event.getBlocks(), event.getDirection());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        chunks.remove(event.getWorld().getUID());
+        worlds.remove(event.getWorld().getUID());
+    }
+
+    /**
+     * Blocks of a set of chunk snapshots, read through the block cache
+     * Blocks read from a snapshot are never written to the cache, a block change between the read and the write
+     * would put the old state back for the whole lifetime of the cache
+     */
+    private final class SnapshotTerrain implements Terrain {
+        private final World world;
+        private final Map<Long, ChunkSnapshot> captured;
+        private final Map<Long, Byte> blocks;
+        private final int minHeight;
+        private final int maxHeight;
+
+        private SnapshotTerrain(World world, Map<Long, ChunkSnapshot> captured, Map<Long, Byte> blocks) {
+            this.world = world;
+            this.captured = captured;
+            this.blocks = blocks;
+            this.minHeight = world.getMinHeight();
+            this.maxHeight = world.getMaxHeight();
+        }
+
+        @Override
+        public World getWorld() {
+            return world;
+        }
+
+        @Override
+        public boolean isSolid(int x, int y, int z) {
+            return (lookup(x, y, z) & SOLID) != 0;
+        }
+
+        @Override
+        public boolean isPassable(int x, int y, int z) {
+            return (lookup(x, y, z) & PASSABLE) != 0;
+        }
+
+        private byte lookup(int x, int y, int z) {
+            long key = pack(x, y, z);
+            if (blocks != null) {
+                Byte state = blocks.get(key);
+                if (state != null) {
+                    hits.increment();
+                    return state;
+                }
+            }
+
+            ChunkSnapshot snapshot = captured.get(chunkKey(x >> 4, z >> 4));
+            if (snapshot == null) {
+                // Outside the captured area, never route through it
+                return KNOWN;
+            }
+
+            misses.increment();
+            return y < minHeight || y >= maxHeight
+                    ? classify(Material.VOID_AIR)
+                    : classify(snapshot.getBlockType(x & 15, y, z & 15));
+        }
+    }
+}
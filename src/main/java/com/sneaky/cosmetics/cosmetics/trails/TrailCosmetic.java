@@ -1,17 +1,20 @@
 package com.sneaky.cosmetics.cosmetics.trails;
 
+import com.sneaky.cosmetics.SneakyCosmetics;
 import com.sneaky.cosmetics.cosmetics.Cosmetic;
 import com.sneaky.cosmetics.cosmetics.CosmeticType;
+import com.sneaky.cosmetics.managers.PlayerCosmeticSession.EmitterSlot;
+import com.sneaky.cosmetics.rendering.CosmeticEmitter;
+import com.sneaky.cosmetics.rendering.ParticleSink;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.plugin.Plugin;
 
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Trail cosmetic that creates particle trails behind the player as they move
@@ -26,8 +29,8 @@ public class TrailCosmetic extends Cosmetic {
     private final double speed;
     private final Plugin plugin;
     
-    private static final Map<Player, BukkitRunnable> activeTrails = new ConcurrentHashMap<>();
-    private static final Map<Player, Location> lastLocations = new ConcurrentHashMap<>();
+    // Minimum distance (squared) a player has to move before the next trail point
+    private static final double MIN_MOVE_SQUARED = 0.1 * 0.1;
     
     public TrailCosmetic(String id, String displayName, int price, Material iconMaterial,
                         List<String> description, String permission, boolean requiresVIP,
@@ -49,55 +52,198 @@ public class TrailCosmetic extends Cosmetic {
         // Stop any existing trail effect
         deactivate(player);
         
-        // Initialize last location
-        lastLocations.put(player, player.getLocation());
-        
-        // Start new trail effect
-        BukkitRunnable trailTask = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!player.isOnline()) {
-                    this.cancel();
-                    activeTrails.remove(player);
-                    lastLocations.remove(player);
-                    return;
-                }
-                
-                Location currentLocation = player.getLocation();
-                Location lastLocation = lastLocations.get(player);
-                
-                // Only spawn particles if the player has moved
-                if (lastLocation != null && currentLocation.distance(lastLocation) > 0.1) {
-                    // Spawn particles at the player's feet
-                    Location trailLocation = currentLocation.clone().add(0, 0.1, 0);
-                    player.getWorld().spawnParticle(particle, trailLocation, 
-                        count, offsetX, offsetY, offsetZ, speed);
-                }
-                
-                lastLocations.put(player, currentLocation);
-            }
-        };
-        
-        trailTask.runTaskTimer(plugin, 0L, 2L); // Every 0.1 seconds
-        activeTrails.put(player, trailTask);
+        // Start new trail effect, it only renders when the player moves
+        TrailEmitter emitter = new TrailEmitter(player, new TrailSettings(SneakyCosmetics.getInstance().getConfig()));
+        getSession(player).putEmitter(EmitterSlot.TRAIL, emitter);
+        SneakyCosmetics.getInstance().getRenderScheduler().register(emitter);
     }
     
     @Override
     public void deactivate(Player player) {
-        BukkitRunnable task = activeTrails.remove(player);
-        if (task != null) {
-            task.cancel();
+        CosmeticEmitter emitter = getSession(player).removeEmitter(EmitterSlot.TRAIL);
+        if (emitter != null) {
+            emitter.cancel();
+        }
+    }
+    
+    /**
+     * Handle a position change of a player, called from the move listener
+     * Only wakes the player's trail once they moved far enough from the last trail point
+     */
+    public static void handleMove(Player player, Location to) {
+        CosmeticEmitter emitter = getSession(player).getEmitter(EmitterSlot.TRAIL);
+        if (emitter instanceof TrailEmitter) {
+            ((TrailEmitter) emitter).onMove(to);
         }
-        lastLocations.remove(player);
     }
     
     @Override
     public boolean isActive(Player player) {
-        return activeTrails.containsKey(player);
+        return getSession(player).hasEmitter(EmitterSlot.TRAIL);
     }
     
     @Override
     public void cleanup(Player player) {
         deactivate(player);
     }
+    
+    /**
+     * Trail emitter driven by player movement instead of polling
+     * In path mode the last points are kept in a ring buffer, every render draws the newest segment of the path
+     * fading towards its older end, and the particles already sent fade out on the client
+     */
+    private class TrailEmitter extends CosmeticEmitter {
+        // Last trail point, kept in primitives so move checks don't allocate
+        private World lastWorld;
+        private double lastX;
+        private double lastY;
+        private double lastZ;
+        
+        private final TrailSettings settings;
+        
+        // Path mode state, history is null for the plain burst trail
+        private final TrailHistory history;
+        
+        private TrailEmitter(Player player, TrailSettings settings) {
+            super(player, TrailCosmetic.this, "trail", 2L, true); // At most every 0.1 seconds
+            this.settings = settings;
+            this.history = settings.path ? new TrailHistory(settings.length) : null;
+            Location location = player.getLocation();
+            markPosition(location.getWorld(), location.getX(), location.getY(), location.getZ());
+        }
+        
+        private void onMove(Location to) {
+            if (to.getWorld() != lastWorld) {
+                // Changed worlds, start the trail over
+                if (history != null) {
+                    history.clear();
+                }
+                markPosition(to.getWorld(), to.getX(), to.getY(), to.getZ());
+                return;
+            }
+            
+            double dx = to.getX() - lastX;
+            double dy = to.getY() - lastY;
+            double dz = to.getZ() - lastZ;
+            if (dx * dx + dy * dy + dz * dz > MIN_MOVE_SQUARED) {
+                requestRender();
+            }
+        }
+        
+        private void markPosition(World world, double x, double y, double z) {
+            lastWorld = world;
+            lastX = x;
+            lastY = y;
+            lastZ = z;
+        }
+        
+        @Override
+        protected void render(long frame, ParticleSink sink) {
+            if (history != null) {
+                history.add(anchor.getX(), anchor.getY() + 0.1, anchor.getZ(), getRenderTick());
+                renderTailSegment(sink);
+            } else if (anchor.getWorld() == lastWorld) {
+                renderInterpolated(sink);
+            }
+            
+            // Spawn particles at the player's feet
+            sink.spawn(particle, anchor.getX(), anchor.getY() + 0.1, anchor.getZ(), 
+                count, offsetX, offsetY, offsetZ, speed);
+            markPosition(anchor.getWorld(), anchor.getX(), anchor.getY(), anchor.getZ());
+        }
+        
+        /**
+         * Fill the gap between the previous trail point and the current one
+         * Fast movement such as elytra flight covers several blocks between two renders, the number of
+         * intermediate points grows with the distance but never beyond the configured ceiling
+         */
+        private void renderInterpolated(ParticleSink sink) {
+            double dx = anchor.getX() - lastX;
+            double dy = anchor.getY() - lastY;
+            double dz = anchor.getZ() - lastZ;
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+            if (settings.maxPoints == 0 || distanceSq > settings.maxDistanceSq) {
+                // Nothing to fill, or a teleport that should not draw a line
+                return;
+            }
+            
+            int points = Math.min(settings.maxPoints, (int) (Math.sqrt(distanceSq) / settings.spacing));
+            if (points <= 0) {
+                return;
+            }
+            
+            int pointCount = Math.max(1, count / 2);
+            double step = 1.0 / (points + 1);
+            for (int i = 1; i <= points; i++) {
+                double t = i * step;
+                sink.spawn(particle, lastX + dx * t, lastY + dy * t + 0.1, lastZ + dz * t,
+                    pointCount, offsetX, offsetY, offsetZ, speed);
+            }
+        }
+        
+        /**
+         * Draw the newest segment of the path, from the previous point to the one just recorded
+         * Points get fewer particles and a tighter spread towards the older end by the age of the previous point,
+         * older segments are never sent again
+         */
+        private void renderTailSegment(ParticleSink sink) {
+            if (history.size() < 2) {
+                return;
+            }
+            long age = getRenderTick() - history.tick(1);
+            if (age >= settings.fadeTicks) {
+                // The path behind the player has faded out, start a new one here
+                history.truncate(1);
+                return;
+            }
+            
+            double dx = history.x(0) - history.x(1);
+            double dy = history.y(0) - history.y(1);
+            double dz = history.z(0) - history.z(1);
+            double distanceSq = dx * dx + dy * dy + dz * dz;
+            if (settings.maxPoints == 0 || distanceSq > settings.maxDistanceSq) {
+                // Nothing to fill, or a teleport that should not draw a line
+                return;
+            }
+            
+            int points = Math.min(settings.maxPoints, (int) (Math.sqrt(distanceSq) / settings.spacing));
+            int pointCount = Math.max(1, count / 2);
+            double oldFade = 1.0 - (double) age / settings.fadeTicks;
+            double step = 1.0 / (points + 1);
+            // The previous point itself was sent in full by the last render
+            for (int i = 1; i <= points; i++) {
+                double t = i * step;
+                double fade = oldFade + (1.0 - oldFade) * t;
+                sink.spawn(particle, history.x(1) + dx * t, history.y(1) + dy * t, history.z(1) + dz * t,
+                    Math.max(1, (int) Math.round(pointCount * fade)), offsetX * fade, offsetY * fade, offsetZ * fade, speed);
+            }
+        }
+        
+        @Override
+        protected void onUnregister() {
+            getSession(player).removeEmitter(EmitterSlot.TRAIL, this);
+        }
+    }
+    
+    /**
+     * Trail rendering settings, read from effects.trails when a trail is activated
+     */
+    private static final class TrailSettings {
+        private final boolean path;
+        private final int length;
+        private final long fadeTicks;
+        private final double spacing;
+        private final int maxPoints;
+        private final double maxDistanceSq;
+        
+        private TrailSettings(FileConfiguration config) {
+            this.path = "path".equalsIgnoreCase(config.getString("effects.trails.mode", "path"));
+            this.length = config.getInt("effects.trails.length", 10);
+            this.fadeTicks = Math.max(1L, config.getLong("effects.trails.fade-time", 100L));
+            this.spacing = Math.max(0.1, config.getDouble("effects.trails.interpolation.spacing", 0.5));
+            this.maxPoints = Math.max(0, config.getInt("effects.trails.interpolation.max-points", 8));
+            double maxDistance = config.getDouble("effects.trails.interpolation.max-distance", 12.0);
+            this.maxDistanceSq = maxDistance * maxDistance;
+        }
+    }
 }
\ No newline at end of file
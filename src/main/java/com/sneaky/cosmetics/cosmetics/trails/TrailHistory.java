@@ -0,0 +1,73 @@
+package com.sneaky.cosmetics.cosmetics.trails;
+
+/**
+ * Fixed-size history of trail points in a single primitive array
+ * Each point takes four slots, x, y, z and the tick it was recorded in, so a trail of any length
+ * costs one allocation per wearer and no Location objects
+ */
+final class TrailHistory {
+
+    private static final int STRIDE = 4;
+
+    private final double[] points;
+    private final int capacity;
+    // Slot of the newest point
+    private int head = -1;
+    private int size;
+
+    TrailHistory(int capacity) {
+        this.capacity = Math.max(2, capacity);
+        this.points = new double[this.capacity * STRIDE];
+    }
+
+    /**
+     * Record a new point, overwriting the oldest once the buffer is full
+     */
+    void add(double x, double y, double z, long tick) {
+        head = (head + 1) % capacity;
+        int base = head * STRIDE;
+        points[base] = x;
+        points[base + 1] = y;
+        points[base + 2] = z;
+        points[base + 3] = tick;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    /**
+     * Drop every point older than the given age index, 0 being the newest point
+     */
+    void truncate(int age) {
+        size = Math.max(0, Math.min(size, age));
+    }
+
+    void clear() {
+        head = -1;
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double x(int age) {
+        return points[base(age)];
+    }
+
+    double y(int age) {
+        return points[base(age) + 1];
+    }
+
+    double z(int age) {
+        return points[base(age) + 2];
+    }
+
+    long tick(int age) {
+        return (long) points[base(age) + 3];
+    }
+
+    private int base(int age) {
+        return ((head - age + capacity) % capacity) * STRIDE;
+    }
+}
@@ -0,0 +1,121 @@
+package com.sneaky.cosmetics.cosmetics.wings;
+
+/**
+ * Precomputed wing point cloud for every beat phase
+ * Every wing type flies the same outline and only picks its own particles, so one table serves them all
+ * Points are stored in the wearer's local frame as packed (lateral, up, back) triples,
+ * so rendering only has to rotate them by the player's yaw and translate them
+ */
+public final class WingGeometry {
+
+    // Wing configuration
+    private static final int WING_SEGMENTS = 12; // Number of wing sections
+    private static final double WING_SPAN = 2.5; // How wide the wings extend
+    private static final double WING_HEIGHT = 1.8; // How tall the wings are
+    private static final double BASE_HEIGHT = 1.4; // Wing root above the player's feet
+    private static final double BASE_BACK = 0.3; // Wing root behind the player
+
+    // One full flap of sin(time * 0.01) takes 2π / 0.01 milliseconds
+    public static final long BEAT_PERIOD_MS = 628L;
+    public static final int BEAT_PHASES = 32;
+
+    private static final WingGeometry SHARED = new WingGeometry();
+
+    private final double[][] membrane = new double[BEAT_PHASES][];
+    private final double[][] tips = new double[BEAT_PHASES][];
+    private final double[] progress = new double[WING_SEGMENTS * 2];
+
+    private WingGeometry() {
+        for (int phase = 0; phase < BEAT_PHASES; phase++) {
+            double wingBeat = Math.sin(2 * Math.PI * phase / BEAT_PHASES) * 0.3; // Wing flapping animation
+            membrane[phase] = compileMembrane(wingBeat);
+            tips[phase] = compileTips(wingBeat);
+        }
+
+        for (int side = 0; side < 2; side++) {
+            for (int i = 0; i < WING_SEGMENTS; i++) {
+                progress[side * WING_SEGMENTS + i] = (double) i / (WING_SEGMENTS - 1);
+            }
+        }
+    }
+
+    /**
+     * Get the precomputed geometry shared by every wing type
+     */
+    public static WingGeometry get() {
+        return SHARED;
+    }
+
+    /**
+     * Get the beat phase for a point in time
+     */
+    public static int phaseAt(long timeMillis) {
+        return (int) ((timeMillis % BEAT_PERIOD_MS) * BEAT_PHASES / BEAT_PERIOD_MS);
+    }
+
+    /**
+     * Packed (lateral, up, back) membrane points for a beat phase, left wing first
+     * The returned array is shared and must not be modified
+     */
+    public double[] getMembrane(int phase) {
+        return membrane[phase];
+    }
+
+    /**
+     * Packed (lateral, up, back) wing tip points for a beat phase, left tip first
+     * The returned array is shared and must not be modified
+     */
+    public double[] getTips(int phase) {
+        return tips[phase];
+    }
+
+    /**
+     * Position of a membrane point along its wing, 0.0 at the body to 1.0 at the tip
+     */
+    public double getProgress(int point) {
+        return progress[point];
+    }
+
+    private static double[] compileMembrane(double wingBeat) {
+        double[] points = new double[WING_SEGMENTS * 2 * 3];
+        int index = 0;
+
+        for (int side = 0; side < 2; side++) {
+            // Direction multiplier for left/right wing
+            double sideMultiplier = side == 0 ? 1.0 : -1.0;
+
+            for (int i = 0; i < WING_SEGMENTS; i++) {
+                double progress = (double) i / (WING_SEGMENTS - 1); // 0.0 to 1.0
+
+                // Create a realistic wing curve (starts narrow, widens, then tapers)
+                double wingCurve = Math.sin(progress * Math.PI) * WING_SPAN;
+                double heightCurve = Math.cos(progress * Math.PI * 0.5) * WING_HEIGHT;
+
+                // Add wing beat animation
+                double animatedHeight = heightCurve + wingBeat * (1.0 - progress * 0.5);
+                double animatedSpan = wingCurve * (1.0 + wingBeat * 0.2);
+
+                points[index++] = animatedSpan * sideMultiplier;
+                points[index++] = BASE_HEIGHT + animatedHeight * 0.5 - progress * 0.3;
+                // Backward offset increases with distance from body
+                points[index++] = BASE_BACK + progress * 0.8;
+            }
+        }
+        return points;
+    }
+
+    private static double[] compileTips(double wingBeat) {
+        double[] points = new double[2 * 3];
+        int index = 0;
+
+        for (int side = 0; side < 2; side++) {
+            double sideMultiplier = side == 0 ? 1.0 : -1.0;
+
+            // Wing tip position (furthest point of wing)
+            points[index++] = (2.5 + wingBeat * 0.3) * sideMultiplier;
+            points[index++] = BASE_HEIGHT + 0.5 + wingBeat * 0.2;
+            points[index++] = BASE_BACK + 1.2;
+        }
+        return points;
+    }
+}
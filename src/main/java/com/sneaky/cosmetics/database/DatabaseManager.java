@@ -538,6 +538,53 @@ public class DatabaseManager {
         });
     }
     
+    public CompletableFuture<String> getPlayerSetting(UUID uuid, String key) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection connection = getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                     "SELECT setting_value FROM player_settings WHERE player_uuid = ? AND setting_key = ?"
+                 )) {
+                
+                statement.setString(1, uuid.toString());
+                statement.setString(2, key);
+                ResultSet result = statement.executeQuery();
+                
+                return result.next() ? result.getString("setting_value") : null;
+                
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to get setting " + key + " for " + uuid, e);
+                return null;
+            }
+        });
+    }
+    
+    // player_settings is keyed by player only, so a player holds a single setting row
+    public CompletableFuture<Void> setPlayerSetting(UUID uuid, String key, String value) {
+        return CompletableFuture.runAsync(() -> {
+            try (Connection connection = getConnection()) {
+                String sql;
+                if (databaseType.equals("mysql")) {
+                    sql = "INSERT INTO player_settings (player_uuid, setting_key, setting_value, updated_at) VALUES (?, ?, ?, ?) " +
+                          "ON DUPLICATE KEY UPDATE setting_key = VALUES(setting_key), setting_value = VALUES(setting_value), " +
+                          "updated_at = VALUES(updated_at)";
+                } else {
+                    sql = "INSERT OR REPLACE INTO player_settings (player_uuid, setting_key, setting_value, updated_at) VALUES (?, ?, ?, ?)";
+                }
+                
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, uuid.toString());
+                    statement.setString(2, key);
+                    statement.setString(3, value);
+                    statement.setLong(4, System.currentTimeMillis());
+                    statement.executeUpdate();
+                }
+                
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Failed to save setting " + key + " for " + uuid, e);
+            }
+        });
+    }
+    
     // Statistics methods for bStats
     public int getTotalCosmeticsOwned() {
         try (Connection connection = getConnection();
@@ -678,6 +725,31 @@ public class DatabaseManager {
         return null;
     }
     
+    /**
+     * Load the cosmetics a player had active when they last quit
+     */
+    public CompletableFuture<java.util.Set<String>> getPlayerActiveCosmetics(UUID playerId) {
+        return CompletableFuture.supplyAsync(() -> {
+            java.util.Set<String> activeCosmetics = new java.util.HashSet<>();
+            try (Connection connection = getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                     "SELECT cosmetic_id FROM active_cosmetics WHERE player_uuid = ?"
+                 )) {
+                
+                statement.setString(1, playerId.toString());
+                ResultSet result = statement.executeQuery();
+                
+                while (result.next()) {
+                    activeCosmetics.add(result.getString("cosmetic_id"));
+                }
+                
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Failed to load active cosmetics for " + playerId, e);
+            }
+            return activeCosmetics;
+        });
+    }
+    
     public void savePlayerActiveCosmetics(UUID playerId, java.util.Set<String> activeCosmetics) {
         plugin.getSchedulerAdapter().runTaskAsynchronously(() -> {
             try (Connection conn = dataSource.getConnection()) {
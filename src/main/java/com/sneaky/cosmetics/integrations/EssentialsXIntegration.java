@@ -3,6 +3,8 @@ package com.sneaky.cosmetics.integrations;
 import com.earth2me.essentials.api.Economy;
 import com.earth2me.essentials.api.NoLoanPermittedException;
 import com.earth2me.essentials.api.UserDoesNotExistException;
+import net.ess3.api.IEssentials;
+import net.ess3.api.IUser;
 import com.sneaky.cosmetics.SneakyCosmetics;
 import org.bukkit.entity.Player;
 
@@ -55,6 +57,59 @@ public class EssentialsXIntegration {
         return enabled;
     }
     
+    /**
+     * Get the EssentialsX user of a player, null when unavailable
+     */
+    private IUser getUser(Player player) {
+        if (!isEnabled()) {
+            return null;
+        }
+        
+        try {
+            Object essentials = plugin.getServer().getPluginManager().getPlugin("Essentials");
+            if (essentials instanceof IEssentials) {
+                return ((IEssentials) essentials).getUser(player);
+            }
+        } catch (Exception e) {
+            plugin.getLogger().fine("Error getting EssentialsX user for " + player.getName() + ": " + e.getMessage());
+        }
+        return null;
+    }
+    
+    /**
+     * Check if a player is AFK in EssentialsX
+     */
+    public boolean isAFK(Player player) {
+        IUser user = getUser(player);
+        return user != null && user.isAfk();
+    }
+    
+    /**
+     * Check if a player is vanished in EssentialsX
+     */
+    public boolean isVanished(Player player) {
+        IUser user = getUser(player);
+        return user != null && user.isVanished();
+    }
+    
+    /**
+     * Check if cosmetics should be disabled due to EssentialsX status
+     */
+    public boolean shouldDisableCosmetics(Player player) {
+        if (!isEnabled()) {
+            return false;
+        }
+        
+        boolean disableOnVanish = plugin.getConfig().getBoolean("integrations.essentialsx.disable-on-vanish", true);
+        boolean disableOnAFK = plugin.getConfig().getBoolean("integrations.essentialsx.disable-on-afk", false);
+        
+        if (disableOnVanish && isVanished(player)) {
+            return true;
+        }
+        
+        return disableOnAFK && isAFK(player);
+    }
+    
     /**
      * Get a player's balance from EssentialsX
      */
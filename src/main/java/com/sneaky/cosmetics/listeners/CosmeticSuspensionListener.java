@@ -0,0 +1,197 @@
+package com.sneaky.cosmetics.listeners;
+
+import com.sneaky.cosmetics.SneakyCosmetics;
+import com.sneaky.cosmetics.integrations.CMIIntegration;
+import com.sneaky.cosmetics.integrations.EssentialsXIntegration;
+import com.sneaky.cosmetics.rendering.CosmeticRenderScheduler;
+import org.bukkit.GameMode;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Pauses cosmetic rendering for players nobody should see particles from
+ * Spectators, players in disabled worlds and players that CMI or EssentialsX report as vanished or AFK
+ * get their emitters parked in the render scheduler, and status changes resume them again
+ */
+public class CosmeticSuspensionListener implements Listener {
+
+    // Status events of CMI and EssentialsX, hooked by name so neither plugin is required
+    private static final String[] CMI_EVENTS = {
+        "com.Zrips.CMI.events.CMIAfkEnterEvent",
+        "com.Zrips.CMI.events.CMIAfkLeaveEvent",
+        "com.Zrips.CMI.events.CMIPlayerVanishEvent",
+        "com.Zrips.CMI.events.CMIPlayerUnVanishEvent"
+    };
+    private static final String[] ESSENTIALS_EVENTS = {
+        "net.ess3.api.events.AfkStatusChangeEvent",
+        "net.ess3.api.events.VanishStatusChangeEvent"
+    };
+
+    private final SneakyCosmetics plugin;
+    private final Set<String> disabledWorlds = new HashSet<>();
+
+    public CosmeticSuspensionListener(SneakyCosmetics plugin) {
+        this.plugin = plugin;
+        loadSettings();
+    }
+
+    /**
+     * Register this listener and the status events of the available integrations
+     */
+    public void register() {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+
+        CMIIntegration cmi = plugin.getCMIIntegration();
+        if (cmi != null && cmi.isAvailable()) {
+            registerStatusEvents(CMI_EVENTS, "CMI");
+        }
+
+        EssentialsXIntegration essentials = plugin.getEssentialsXIntegration();
+        if (essentials != null && essentials.isEnabled()) {
+            registerStatusEvents(ESSENTIALS_EVENTS, "EssentialsX");
+        }
+    }
+
+    /**
+     * Read the disabled worlds from the configuration
+     */
+    public void loadSettings() {
+        disabledWorlds.clear();
+        for (String world : plugin.getConfig().getStringList("cosmetics.disabled-worlds")) {
+            disabledWorlds.add(world.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Re-check every online player, used after a reload
+     */
+    public void updateAll() {
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            update(player);
+        }
+    }
+
+    /**
+     * Whether a player's cosmetics should currently stop rendering
+     */
+    public boolean shouldSuspend(Player player) {
+        if (player.getGameMode() == GameMode.SPECTATOR) {
+            return true;
+        }
+
+        if (!disabledWorlds.isEmpty() && disabledWorlds.contains(player.getWorld().getName().toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+
+        CMIIntegration cmi = plugin.getCMIIntegration();
+        if (cmi != null && cmi.shouldDisableCosmetics(player)) {
+            return true;
+        }
+
+        EssentialsXIntegration essentials = plugin.getEssentialsXIntegration();
+        return essentials != null && essentials.shouldDisableCosmetics(player);
+    }
+
+    /**
+     * Park or resume a player's emitters according to their current state
+     */
+    public void update(Player player) {
+        if (!plugin.getSchedulerAdapter().isOwnedByCurrentRegion(player)) {
+            // Player state is only read on the thread that owns the player, e.g. after a reload on Folia
+            updateLater(player);
+            return;
+        }
+        apply(player);
+    }
+
+    /**
+     * Re-check a player on the next tick, for events fired before the new state is applied
+     */
+    public void updateLater(Player player) {
+        plugin.getSchedulerAdapter().runTaskLaterForEntity(player, () -> apply(player), null, 1L);
+    }
+
+    private void apply(Player player) {
+        CosmeticRenderScheduler scheduler = plugin.getRenderScheduler();
+        if (scheduler == null || !player.isOnline()) {
+            return;
+        }
+
+        if (scheduler.setSuspended(player, shouldSuspend(player))) {
+            plugin.getLogger().fine((scheduler.isSuspended(player) ? "Paused" : "Resumed")
+                + " cosmetic rendering for " + player.getName());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        // Vanish and AFK plugins restore their state during join, check once it has settled
+        updateLater(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        update(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGameModeChange(PlayerGameModeChangeEvent event) {
+        updateLater(event.getPlayer());
+    }
+
+    private void registerStatusEvents(String[] eventClasses, String source) {
+        int registered = 0;
+        for (String className : eventClasses) {
+            try {
+                Class<? extends Event> eventClass = Class.forName(className).asSubclass(Event.class);
+                plugin.getServer().getPluginManager().registerEvent(eventClass, this, EventPriority.MONITOR,
+                    (listener, event) -> {
+                        if (eventClass.isInstance(event)) {
+                            Player player = getEventPlayer(event);
+                            if (player != null) {
+                                updateLater(player);
+                            }
+                        }
+                    }, plugin, true);
+                registered++;
+            } catch (ClassNotFoundException | ClassCastException e) {
+                plugin.getLogger().fine(source + " event " + className + " not found, skipping");
+            }
+        }
+        plugin.getLogger().info("Listening to " + registered + " " + source + " status events for cosmetic rendering");
+    }
+
+    /**
+     * Get the player of a CMI or EssentialsX status event
+     */
+    private Player getEventPlayer(Event event) {
+        try {
+            // CMI events expose getPlayer()
+            for (Method method : event.getClass().getMethods()) {
+                if (method.getName().equals("getPlayer") && method.getParameterCount() == 0
+                    && Player.class.isAssignableFrom(method.getReturnType())) {
+                    return (Player) method.invoke(event);
+                }
+            }
+
+            // EssentialsX status events expose the affected user
+            Object user = event.getClass().getMethod("getAffected").invoke(event);
+            Object base = user.getClass().getMethod("getBase").invoke(user);
+            return base instanceof Player ? (Player) base : null;
+        } catch (Exception e) {
+            plugin.getLogger().fine("Could not read the player of " + event.getEventName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.sneaky.cosmetics.listeners;
 
 import com.sneaky.cosmetics.SneakyCosmetics;
+import com.sneaky.cosmetics.cosmetics.trails.TrailCosmetic;
 import com.sneaky.cosmetics.managers.CreditManager;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
 import java.util.Map;
 import java.util.Set;
 
@@ -29,6 +34,12 @@ public class PlayerListener implements Listener {
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
         
+        // Cosmetic state of the player lives in this session until they quit
+        plugin.getCosmeticManager().getActivationManager().openSession(player);
+        
+        // Make the player findable by proximity queries right away
+        plugin.getPlayerIndex().update(player);
+        
         // Handle credit system initialization
         creditManager.handlePlayerJoin(player);
         
@@ -55,15 +66,12 @@ public class PlayerListener implements Listener {
             }, 60L); // Wait 3 seconds after join
         }
         
-        // Load player's active cosmetics
-        plugin.getSchedulerAdapter().runTaskAsynchronously(() -> {
+        // Load and reactivate player's previously active cosmetics, the session starts empty
+        plugin.getLogger().info("Loading cosmetics for " + player.getName());
+        plugin.getDatabaseManager().getPlayerActiveCosmetics(player.getUniqueId()).thenAccept(activeCosmetics -> {
             try {
-                plugin.getLogger().info("Loading cosmetics for " + player.getName());
-                
-                // Load and reactivate player's previously active cosmetics
-                Set<String> activeCosmetics = plugin.getCosmeticManager().getActiveCosmetics(player);
                 for (String cosmeticId : activeCosmetics) {
-                    plugin.getSchedulerAdapter().runTask(() -> {
+                    plugin.getSchedulerAdapter().runTaskForEntity(player, () -> {
                         if (player.isOnline()) {
                             plugin.getCosmeticManager().activateCosmetic(player, cosmeticId);
                         }
@@ -76,6 +84,19 @@ public class PlayerListener implements Listener {
             }
         });
         
+        // Restore the player's particle quota preference
+        if (plugin.getDatabaseManager() != null && plugin.getRenderScheduler() != null) {
+            plugin.getDatabaseManager().getPlayerSetting(player.getUniqueId(), "particle-quota").thenAccept(value -> {
+                if ("low".equalsIgnoreCase(value)) {
+                    plugin.getSchedulerAdapter().runTask(() -> {
+                        if (player.isOnline()) {
+                            plugin.getRenderScheduler().setLowEndClient(player.getUniqueId(), true);
+                        }
+                    });
+                }
+            });
+        }
+        
         // Note: Achievement auto-check on join has been disabled
         // Players must now manually claim achievements via the GUI
     }
@@ -87,41 +108,22 @@ public class PlayerListener implements Listener {
         // Handle credit system cleanup
         creditManager.handlePlayerQuit(player);
         
-        // Stop any active cosmetic effects
-        plugin.getSchedulerAdapter().runTask(() -> {
-            // Stop particles
-            if (plugin.getParticleManager() != null) {
-                plugin.getParticleManager().stopPlayerEffects(player);
-            }
-            
-            // Stop trails
-            if (plugin.getTrailManager() != null) {
-                plugin.getTrailManager().stopPlayerTrails(player);
-            }
-            
-            // Remove pets
-            if (plugin.getPetManager() != null) {
-                plugin.getPetManager().removePet(player);
-            }
-            
-            // Stop wing effects
-            if (plugin.getWingManager() != null) {
-                plugin.getWingManager().stopPlayerWings(player);
-            }
-            
-            // Stop aura effects
-            if (plugin.getAuraManager() != null) {
-                plugin.getAuraManager().stopPlayerAuras(player);
-            }
-        });
+        plugin.getPlayerIndex().remove(player);
+        
+        // Drop the player's emitters from the render loop right away
+        if (plugin.getRenderScheduler() != null) {
+            plugin.getRenderScheduler().unregisterAll(player);
+        }
+        
+        // Stop every active cosmetic and free the player's session in one step
+        Set<String> activeCosmetics = plugin.getCosmeticManager().getActivationManager().closeSession(player);
         
         // Save player data asynchronously
         plugin.getSchedulerAdapter().runTaskAsynchronously(() -> {
             try {
                 plugin.getLogger().info("Saving cosmetics data for " + player.getName());
                 
-                // Save current active cosmetics state to database
-                Set<String> activeCosmetics = plugin.getCosmeticManager().getActiveCosmetics(player);
+                // Save the cosmetics that were active when the player left
                 plugin.getDatabaseManager().savePlayerActiveCosmetics(player.getUniqueId(), activeCosmetics);
                 
                 // Record session statistics
@@ -142,4 +144,27 @@ public class PlayerListener implements Listener {
             plugin.getDatabaseManager().invalidateCache(player.getUniqueId());
         }, 200L); // Wait 10 seconds before cache cleanup
     }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        plugin.getPlayerIndex().update(event.getPlayer(), event.getTo());
+        
+        // Trails only render when their wearer actually moves
+        TrailCosmetic.handleMove(event.getPlayer(), event.getTo());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        plugin.getPlayerIndex().update(event.getPlayer(), event.getTo());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        plugin.getPlayerIndex().update(event.getPlayer());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        plugin.getPlayerIndex().update(event.getPlayer(), event.getRespawnLocation());
+    }
 }
\ No newline at end of file
@@ -17,13 +17,106 @@ public class CosmeticActivationManager {
     
     private final SneakyCosmetics plugin;
     private final CosmeticRegistry registry;
-    private final Map<UUID, Set<String>> activeCosmetics = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerCosmeticSession> sessions = new ConcurrentHashMap<>();
     private MorphManager morphManager;
     
     public CosmeticActivationManager(SneakyCosmetics plugin, CosmeticRegistry registry) {
         this.plugin = plugin;
         this.registry = registry;
         this.morphManager = new MorphManager(plugin);
+        
+        // Players already online when the plugin is enabled never fire a join event
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            openSession(player);
+        }
+    }
+    
+    /**
+     * Create the session of a player that joined
+     */
+    public PlayerCosmeticSession openSession(Player player) {
+        return sessions.computeIfAbsent(player.getUniqueId(), uuid -> new PlayerCosmeticSession(uuid, false));
+    }
+    
+    /**
+     * Get the session of a player
+     * A player without an open session gets a detached one, so late callbacks for a player that already
+     * quit never recreate state that nothing would free
+     */
+    public PlayerCosmeticSession getSession(Player player) {
+        PlayerCosmeticSession session = sessions.get(player.getUniqueId());
+        return session != null ? session : new PlayerCosmeticSession(player.getUniqueId(), true);
+    }
+    
+    /**
+     * Deactivate everything a player has active and free their session, called when they quit
+     * @return the cosmetics that were active, for saving
+     */
+    public Set<String> closeSession(Player player) {
+        PlayerCosmeticSession session = sessions.get(player.getUniqueId());
+        if (session == null) {
+            return new HashSet<>();
+        }
+        
+        Set<String> active = new HashSet<>(session.getActiveCosmeticIds());
+        for (String cosmeticId : active) {
+            Cosmetic cosmetic = registry.getCosmetic(cosmeticId);
+            if (cosmetic == null) {
+                continue;
+            }
+            try {
+                if (cosmetic instanceof MorphCosmetic) {
+                    morphManager.removeMorph(player);
+                } else {
+                    cosmetic.cleanup(player);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to clean up cosmetic " + cosmeticId + " for " + player.getName() + ": " + e.getMessage());
+            }
+        }
+        
+        sessions.remove(player.getUniqueId(), session);
+        session.release(plugin.getSchedulerAdapter());
+        return active;
+    }
+    
+    /**
+     * Free every session, called on shutdown after cosmetics were cleared
+     */
+    public void closeAllSessions() {
+        for (PlayerCosmeticSession session : sessions.values()) {
+            session.release(plugin.getSchedulerAdapter());
+        }
+        sessions.clear();
+    }
+    
+    public int getSessionCount() {
+        return sessions.size();
+    }
+    
+    /**
+     * Sum of the state held by all sessions, for memory audits
+     */
+    public int getSessionStateSize() {
+        int size = 0;
+        for (PlayerCosmeticSession session : sessions.values()) {
+            size += session.getStateSize();
+        }
+        return size;
+    }
+    
+    /**
+     * Get the sessions whose player is no longer online, which should never happen
+     */
+    public List<UUID> findOrphanedSessions() {
+        List<UUID> orphaned = new ArrayList<>();
+        for (UUID playerId : sessions.keySet()) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player == null || !player.isOnline()) {
+                orphaned.add(playerId);
+            }
+        }
+        return orphaned;
     }
     
     /**
@@ -55,6 +148,11 @@ public class CosmeticActivationManager {
             return false;
         }
         
+        // A player whose session is closed has quit, whatever is activated now could never be deactivated
+        if (getSession(player).isDetached()) {
+            return false;
+        }
+        
         // Deactivate other cosmetics of the same type first
         deactivateAllCosmetics(player, cosmetic.getType());
         
@@ -68,7 +166,7 @@ public class CosmeticActivationManager {
                 cosmetic.activate(player);
             }
             
-            activeCosmetics.computeIfAbsent(player.getUniqueId(), k -> new HashSet<>()).add(cosmeticId);
+            getSession(player).getActiveCosmeticIds().add(cosmeticId);
             
             // Record statistics
             if (plugin.getStatisticsManager() != null) {
@@ -93,8 +191,8 @@ public class CosmeticActivationManager {
             return false;
         }
         
-        Set<String> playerCosmetics = activeCosmetics.get(player.getUniqueId());
-        if (playerCosmetics == null || !playerCosmetics.contains(cosmeticId)) {
+        Set<String> playerCosmetics = getSession(player).getActiveCosmeticIds();
+        if (!playerCosmetics.contains(cosmeticId)) {
             return false; // Not active
         }
         
@@ -108,10 +206,6 @@ public class CosmeticActivationManager {
             
             playerCosmetics.remove(cosmeticId);
             
-            if (playerCosmetics.isEmpty()) {
-                activeCosmetics.remove(player.getUniqueId());
-            }
-            
             plugin.getLogger().fine("Deactivated cosmetic " + cosmeticId + " for " + player.getName());
             return true;
             
@@ -136,8 +230,7 @@ public class CosmeticActivationManager {
      * Deactivate all cosmetics of a specific type for a player
      */
     public void deactivateAllCosmetics(Player player, CosmeticType type) {
-        Set<String> playerCosmetics = activeCosmetics.get(player.getUniqueId());
-        if (playerCosmetics == null) return;
+        Set<String> playerCosmetics = getSession(player).getActiveCosmeticIds();
         
         Iterator<String> iterator = playerCosmetics.iterator();
         while (iterator.hasNext()) {
@@ -159,18 +252,15 @@ public class CosmeticActivationManager {
                 }
             }
         }
-        
-        if (playerCosmetics.isEmpty()) {
-            activeCosmetics.remove(player.getUniqueId());
-        }
     }
     
     /**
      * Clear all active cosmetics for a player
      */
     public void clearAllCosmetics(Player player) {
-        Set<String> playerCosmetics = activeCosmetics.remove(player.getUniqueId());
-        if (playerCosmetics == null) return;
+        Set<String> activeIds = getSession(player).getActiveCosmeticIds();
+        Set<String> playerCosmetics = new HashSet<>(activeIds);
+        activeIds.clear();
         
         for (String cosmeticId : playerCosmetics) {
             Cosmetic cosmetic = registry.getCosmetic(cosmeticId);
@@ -193,14 +283,14 @@ public class CosmeticActivationManager {
      * Check if a cosmetic is currently active for a player
      */
     public boolean isCosmeticActive(Player player, String cosmeticId) {
-        return activeCosmetics.getOrDefault(player.getUniqueId(), new HashSet<>()).contains(cosmeticId);
+        return getSession(player).getActiveCosmeticIds().contains(cosmeticId);
     }
     
     /**
      * Get all active cosmetics for a player
      */
     public Set<String> getActiveCosmetics(Player player) {
-        return new HashSet<>(activeCosmetics.getOrDefault(player.getUniqueId(), new HashSet<>()));
+        return new HashSet<>(getSession(player).getActiveCosmeticIds());
     }
     
     /**
@@ -241,43 +331,16 @@ public class CosmeticActivationManager {
         return accessible;
     }
     
-    /**
-     * Clean up cosmetics for offline players
-     */
-    public int cleanupOfflinePlayerCosmetics() {
-        int cleanedUp = 0;
-        
-        for (Iterator<Map.Entry<UUID, Set<String>>> iterator = activeCosmetics.entrySet().iterator(); iterator.hasNext();) {
-            Map.Entry<UUID, Set<String>> entry = iterator.next();
-            UUID playerId = entry.getKey();
-            Player player = plugin.getServer().getPlayer(playerId);
-            
-            if (player == null || !player.isOnline()) {
-                // Player is offline, clean up their cosmetics
-                Set<String> playerCosmetics = entry.getValue();
-                for (String cosmeticId : playerCosmetics) {
-                    Cosmetic cosmetic = registry.getCosmetic(cosmeticId);
-                    if (cosmetic != null) {
-                        try {
-                            cosmetic.cleanup(plugin.getServer().getOfflinePlayer(playerId).getPlayer());
-                            cleanedUp++;
-                        } catch (Exception e) {
-                            plugin.getLogger().warning("Failed to cleanup cosmetic " + cosmeticId + " for offline player " + playerId);
-                        }
-                    }
-                }
-                iterator.remove(); // Remove offline player from active cosmetics
-                plugin.getLogger().fine("Cleaned up " + playerCosmetics.size() + " cosmetics for offline player " + playerId);
-            }
-        }
-        
-        return cleanedUp;
-    }
-    
     /**
      * Get the internal active cosmetics map (for database saving)
      */
     public Map<UUID, Set<String>> getActiveCosmetsMap() {
-        return new HashMap<>(activeCosmetics);
+        Map<UUID, Set<String>> active = new HashMap<>();
+        for (PlayerCosmeticSession session : sessions.values()) {
+            if (!session.getActiveCosmeticIds().isEmpty()) {
+                active.put(session.getPlayerId(), new HashSet<>(session.getActiveCosmeticIds()));
+            }
+        }
+        return active;
     }
 }
\ No newline at end of file
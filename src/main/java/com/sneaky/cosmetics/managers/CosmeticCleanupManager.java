@@ -2,6 +2,9 @@ package com.sneaky.cosmetics.managers;
 
 import com.sneaky.cosmetics.SneakyCosmetics;
 
+import java.util.List;
+import java.util.UUID;
+
 /**
  * Handles cleanup and maintenance tasks for cosmetics
  */
@@ -16,36 +19,22 @@ public class CosmeticCleanupManager {
     }
     
     /**
-     * Run comprehensive cleanup of inactive cosmetic entities and effects
+     * Audit the per-player sessions
+     * Sessions are freed on quit, so this only reports how much state is held and any session that outlived its player
      */
     public void cleanupInactiveCosmetics() {
-        plugin.getLogger().info("Running cosmetic cleanup task...");
-        
         plugin.getSchedulerAdapter().runTaskAsynchronously(() -> {
-            int cleanedUp = 0;
-            
             try {
-                // Clean up cosmetics for offline players
-                cleanedUp += activationManager.cleanupOfflinePlayerCosmetics();
-                
-                // Clean up particle effects for offline players
-                if (plugin.getParticleManager() != null) {
-                    plugin.getParticleManager().cleanupOfflinePlayerParticles();
+                List<UUID> orphaned = activationManager.findOrphanedSessions();
+                if (!orphaned.isEmpty()) {
+                    plugin.getLogger().warning("Found " + orphaned.size() + " cosmetic sessions of offline players: " + orphaned);
                 }
                 
-                // Clean up database cache for offline players
-                if (plugin.getDatabaseManager() != null) {
-                    // Database manager has its own cleanup task, but we can trigger cache cleanup
-                    for (org.bukkit.entity.Player onlinePlayer : plugin.getServer().getOnlinePlayers()) {
-                        // Keep online players in cache, database manager handles offline cleanup
-                    }
-                }
-                
-                plugin.getLogger().info("Cosmetic cleanup completed. Cleaned up " + cleanedUp + " entities.");
+                plugin.getLogger().fine("Cosmetic session audit: " + activationManager.getSessionCount() + " sessions holding "
+                    + activationManager.getSessionStateSize() + " state entries");
                 
             } catch (Exception e) {
-                plugin.getLogger().warning("Error during cosmetic cleanup: " + e.getMessage());
-                e.printStackTrace();
+                plugin.getLogger().warning("Error during cosmetic session audit: " + e.getMessage());
             }
         });
     }
@@ -54,12 +43,12 @@ public class CosmeticCleanupManager {
      * Schedule regular cleanup tasks
      */
     public void startCleanupTasks() {
-        // Schedule cleanup every 30 minutes
+        // Audit sessions every 30 minutes
         plugin.getSchedulerAdapter().runTaskTimerAsynchronously(() -> {
             cleanupInactiveCosmetics();
         }, 36000L, 36000L); // 30 minutes in ticks
         
-        plugin.getLogger().info("Scheduled cosmetic cleanup tasks");
+        plugin.getLogger().info("Scheduled cosmetic session audits");
     }
     
     /**
@@ -74,11 +63,6 @@ public class CosmeticCleanupManager {
                 activationManager.clearAllCosmetics(player);
             }
             
-            // Clean up particle effects
-            if (plugin.getParticleManager() != null) {
-                plugin.getParticleManager().cleanupOfflinePlayerParticles();
-            }
-            
             plugin.getLogger().info("Force cleanup completed");
             
         } catch (Exception e) {
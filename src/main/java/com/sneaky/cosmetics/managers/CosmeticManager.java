@@ -46,6 +46,7 @@ public class CosmeticManager {
     public void shutdown() {
         plugin.getLogger().info("Shutting down cosmetic system...");
         cleanupManager.forceCleanupAll();
+        activationManager.closeAllSessions();
     }
     
     // Delegation methods to CosmeticRegistry
@@ -120,6 +121,10 @@ public class CosmeticManager {
         return activationManager.getAccessibleCosmetics(player, type);
     }
     
+    public PlayerCosmeticSession getSession(Player player) {
+        return activationManager.getSession(player);
+    }
+    
     /**
      * Get the morph manager for direct access to morph functionality
      */
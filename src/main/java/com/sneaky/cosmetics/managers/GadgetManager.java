@@ -13,21 +13,16 @@ import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.FireworkMeta;
 import org.bukkit.metadata.FixedMetadataValue;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
 import java.util.Collection;
-import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages gadget functionality and interactions
  */
 public class GadgetManager implements Listener {
     private final SneakyCosmetics plugin;
-    private final Map<Player, Long> cooldowns = new ConcurrentHashMap<>();
-    private final Map<Player, Long> damageImmunity = new ConcurrentHashMap<>();
     private final Random random = new Random();
     
     // Cooldown times in milliseconds
@@ -132,14 +127,11 @@ public class GadgetManager implements Listener {
         player.sendMessage("§2✓ Grappling hook launched! Right-click again to retract.");
         
         // Auto-retract after 10 seconds
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!hook.isDead()) {
-                    hook.remove();
-                }
+        plugin.getSchedulerAdapter().runTaskLaterForEntity(hook, () -> {
+            if (!hook.isDead()) {
+                hook.remove();
             }
-        }.runTaskLater(plugin, 200L);
+        }, null, 200L);
     }
     
     @EventHandler
@@ -205,7 +197,7 @@ public class GadgetManager implements Listener {
         firework.setFireworkMeta(meta);
         
         player.playSound(player.getLocation(), Sound.ENTITY_FIREWORK_ROCKET_LAUNCH, 1.0f, 1.0f);
-        player.sendMessage("§c✓ Firework launched! §e" + (3 - (System.currentTimeMillis() - cooldowns.getOrDefault(player, 0L)) / 1000) + "s cooldown");
+        player.sendMessage("§c✓ Firework launched! §e" + (3 - (System.currentTimeMillis() - plugin.getCosmeticManager().getSession(player).getLastGadgetUse()) / 1000) + "s cooldown");
     }
     
     private void handlePaintBrush(Player player, PlayerInteractEvent event) {
@@ -289,10 +281,8 @@ public class GadgetManager implements Listener {
         player.playSound(player.getLocation(), Sound.ENTITY_PLAYER_LEVELUP, 0.5f, 1.5f);
         
         // Send message to nearby players
-        for (Player nearby : player.getWorld().getPlayers()) {
-            if (nearby.getLocation().distance(player.getLocation()) <= 20) {
-                nearby.sendMessage("§6🎉 " + player.getName() + " is celebrating! 🎉");
-            }
+        for (Player nearby : plugin.getPlayerIndex().getNearbyPlayers(player.getLocation(), 20)) {
+            nearby.sendMessage("§6🎉 " + player.getName() + " is celebrating! 🎉");
         }
         
         player.sendMessage("§6✓ Party time! 🎉");
@@ -464,17 +454,14 @@ public class GadgetManager implements Listener {
         player.sendMessage("§2✓ Super jump activated!");
         
         // Schedule landing effect
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (player.isOnGround()) {
-                    Location landLoc = player.getLocation();
-                    player.getWorld().spawnParticle(Particle.EXPLOSION, landLoc, 5, 1.0, 0.1, 1.0, 0);
-                    player.playSound(landLoc, Sound.ENTITY_GENERIC_EXPLODE, 0.3f, 1.5f);
-                    cancel();
-                }
+        plugin.getSchedulerAdapter().runTaskTimerForEntity(player, task -> {
+            if (player.isOnGround()) {
+                Location landLoc = player.getLocation();
+                player.getWorld().spawnParticle(Particle.EXPLOSION, landLoc, 5, 1.0, 0.1, 1.0, 0);
+                player.playSound(landLoc, Sound.ENTITY_GENERIC_EXPLODE, 0.3f, 1.5f);
+                task.cancel();
             }
-        }.runTaskTimer(plugin, 10L, 2L);
+        }, null, 10L, 2L);
     }
     
     private void handlePortalGun(Player player, PlayerInteractEvent event) {
@@ -502,24 +489,25 @@ public class GadgetManager implements Listener {
         player.playSound(targetLoc, Sound.BLOCK_END_PORTAL_SPAWN, 1.0f, 1.0f);
         
         // Teleport player after brief delay
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Create departure effects
-                Location departLoc = player.getLocation();
-                player.getWorld().spawnParticle(Particle.PORTAL, departLoc.add(0, 1, 0), 50, 1.0, 1.0, 1.0, 0.5);
-                
-                // Teleport
+        plugin.getSchedulerAdapter().runTaskLaterForEntity(player, () -> {
+            // Create departure effects
+            Location departLoc = player.getLocation();
+            player.getWorld().spawnParticle(Particle.PORTAL, departLoc.add(0, 1, 0), 50, 1.0, 1.0, 1.0, 0.5);
+            
+            // Teleport, asynchronously on Folia where the target may lie in another region
+            if (plugin.getSchedulerAdapter().isFolia()) {
+                player.teleportAsync(targetLoc);
+            } else {
                 player.teleport(targetLoc);
-                
-                // Arrival effects
-                player.getWorld().spawnParticle(Particle.PORTAL, targetLoc, 50, 1.0, 1.0, 1.0, 0.5);
-                player.getWorld().spawnParticle(Particle.FLASH, targetLoc, 1, 0, 0, 0, 0);
-                player.playSound(targetLoc, Sound.ENTITY_ENDERMAN_TELEPORT, 1.0f, 1.2f);
-                
-                player.sendMessage("§5✓ Portal travel successful!");
             }
-        }.runTaskLater(plugin, 20L); // 1 second delay
+            
+            // Arrival effects
+            player.getWorld().spawnParticle(Particle.PORTAL, targetLoc, 50, 1.0, 1.0, 1.0, 0.5);
+            player.getWorld().spawnParticle(Particle.FLASH, targetLoc, 1, 0, 0, 0, 0);
+            player.playSound(targetLoc, Sound.ENTITY_ENDERMAN_TELEPORT, 1.0f, 1.2f);
+            
+            player.sendMessage("§5✓ Portal travel successful!");
+        }, null, 20L); // 1 second delay
         
         player.sendMessage("§5✓ Portal created! Teleporting...");
     }
@@ -533,20 +521,15 @@ public class GadgetManager implements Listener {
         Player player = (Player) event.getEntity();
         
         // Check if player has damage immunity from gadgets
-        if (damageImmunity.containsKey(player)) {
-            long immunityEnd = damageImmunity.get(player);
-            if (System.currentTimeMillis() < immunityEnd) {
-                event.setCancelled(true);
-                player.sendMessage("§6✦ Gadget protection active! ✦");
-                return;
-            } else {
-                // Immunity expired, remove it
-                damageImmunity.remove(player);
-            }
+        PlayerCosmeticSession session = plugin.getCosmeticManager().getSession(player);
+        if (System.currentTimeMillis() < session.getDamageImmunityUntil()) {
+            event.setCancelled(true);
+            player.sendMessage("§6✦ Gadget protection active! ✦");
+            return;
         }
         
         // Check if player is using any active gadget
-        if (com.sneaky.cosmetics.cosmetics.gadgets.GadgetCosmetic.getActiveGadget(player) != null) {
+        if (session.getActiveGadget() != null) {
             // Provide brief damage immunity (1 second) while using gadgets
             grantDamageImmunity(player, 1000);
             event.setCancelled(true);
@@ -555,16 +538,8 @@ public class GadgetManager implements Listener {
     }
     
     private void grantDamageImmunity(Player player, long durationMs) {
-        long endTime = System.currentTimeMillis() + durationMs;
-        damageImmunity.put(player, endTime);
-        
-        // Remove immunity after duration
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                damageImmunity.remove(player);
-            }
-        }.runTaskLater(plugin, durationMs / 50L); // Convert ms to ticks
+        // Expires by itself, the damage handler compares against the end time
+        plugin.getCosmeticManager().getSession(player).setDamageImmunityUntil(System.currentTimeMillis() + durationMs);
     }
     
     private void handleRocketLauncher(Player player, PlayerInteractEvent event) {
@@ -594,28 +569,25 @@ public class GadgetManager implements Listener {
         rocket.setVelocity(direction);
         
         // Create explosion effects where it lands
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (rocket.isDead() || !rocket.isValid()) {
-                    Location explodeLoc = rocket.getLocation();
-                    explodeLoc.getWorld().spawnParticle(Particle.EXPLOSION, explodeLoc, 20, 3.0, 3.0, 3.0, 0.1);
-                    explodeLoc.getWorld().spawnParticle(Particle.LAVA, explodeLoc, 30, 2.0, 2.0, 2.0, 0.2);
-                    explodeLoc.getWorld().playSound(explodeLoc, Sound.ENTITY_GENERIC_EXPLODE, 2.0f, 0.8f);
-                    
-                    // Push nearby entities away
-                    for (Entity entity : explodeLoc.getWorld().getNearbyEntities(explodeLoc, 8, 4, 8)) {
-                        if (entity instanceof LivingEntity && entity != player) {
-                            Vector pushDirection = entity.getLocation().toVector().subtract(explodeLoc.toVector()).normalize();
-                            pushDirection.multiply(2.0);
-                            pushDirection.setY(Math.max(pushDirection.getY(), 0.8));
-                            entity.setVelocity(pushDirection);
-                        }
+        // The rocket's scheduler retires the task when it detonates, which is when the explosion plays
+        plugin.getSchedulerAdapter().runTaskTimerForEntity(rocket, task -> { }, () -> {
+            Location explodeLoc = rocket.getLocation();
+            plugin.getSchedulerAdapter().runTaskAt(explodeLoc, () -> {
+                explodeLoc.getWorld().spawnParticle(Particle.EXPLOSION, explodeLoc, 20, 3.0, 3.0, 3.0, 0.1);
+                explodeLoc.getWorld().spawnParticle(Particle.LAVA, explodeLoc, 30, 2.0, 2.0, 2.0, 0.2);
+                explodeLoc.getWorld().playSound(explodeLoc, Sound.ENTITY_GENERIC_EXPLODE, 2.0f, 0.8f);
+                
+                // Push nearby entities away
+                for (Entity entity : explodeLoc.getWorld().getNearbyEntities(explodeLoc, 8, 4, 8)) {
+                    if (entity instanceof LivingEntity && entity != player) {
+                        Vector pushDirection = entity.getLocation().toVector().subtract(explodeLoc.toVector()).normalize();
+                        pushDirection.multiply(2.0);
+                        pushDirection.setY(Math.max(pushDirection.getY(), 0.8));
+                        entity.setVelocity(pushDirection);
                     }
-                    cancel();
                 }
-            }
-        }.runTaskTimer(plugin, 0L, 2L);
+            });
+        }, 1L, 2L);
         
         player.playSound(player.getLocation(), Sound.ENTITY_FIREWORK_ROCKET_LAUNCH, 1.5f, 0.8f);
         player.sendMessage("§c✓ Rocket launched! Incoming explosion!");
@@ -635,41 +607,38 @@ public class GadgetManager implements Listener {
         grantDamageImmunity(player, 10000); // 10 seconds immunity
         
         // Visual force field effect
-        new BukkitRunnable() {
-            int ticks = 0;
-            @Override
-            public void run() {
-                if (ticks >= 200 || !player.isOnline()) { // 10 seconds
-                    cancel();
-                    return;
-                }
-                
-                Location playerLoc = player.getLocation().add(0, 1, 0);
-                
-                // Create rotating particle shield
-                for (int i = 0; i < 360; i += 30) {
-                    double angle = Math.toRadians(i + (ticks * 5));
-                    double x = Math.cos(angle) * 3;
-                    double z = Math.sin(angle) * 3;
-                    Location particleLoc = playerLoc.clone().add(x, 0, z);
-                    player.getWorld().spawnParticle(Particle.BLOCK, particleLoc, 1, 0, 0, 0, 0, Material.BARRIER.createBlockData());
-                    player.getWorld().spawnParticle(Particle.END_ROD, particleLoc, 1, 0, 0, 0, 0);
-                }
-                
-                // Vertical rings
-                for (int y = -1; y <= 2; y++) {
-                    for (int i = 0; i < 360; i += 45) {
-                        double angle = Math.toRadians(i + (ticks * 3));
-                        double x = Math.cos(angle) * 2.5;
-                        double z = Math.sin(angle) * 2.5;
-                        Location particleLoc = playerLoc.clone().add(x, y, z);
-                        player.getWorld().spawnParticle(Particle.ENCHANT, particleLoc, 1, 0, 0, 0, 0);
-                    }
+        int[] ticks = {0};
+        plugin.getSchedulerAdapter().runTaskTimerForEntity(player, task -> {
+            if (ticks[0] >= 200) { // 10 seconds
+                task.cancel();
+                return;
+            }
+            
+            Location playerLoc = player.getLocation().add(0, 1, 0);
+            
+            // Create rotating particle shield
+            for (int i = 0; i < 360; i += 30) {
+                double angle = Math.toRadians(i + (ticks[0] * 5));
+                double x = Math.cos(angle) * 3;
+                double z = Math.sin(angle) * 3;
+                Location particleLoc = playerLoc.clone().add(x, 0, z);
+                player.getWorld().spawnParticle(Particle.BLOCK, particleLoc, 1, 0, 0, 0, 0, Material.BARRIER.createBlockData());
+                player.getWorld().spawnParticle(Particle.END_ROD, particleLoc, 1, 0, 0, 0, 0);
+            }
+            
+            // Vertical rings
+            for (int y = -1; y <= 2; y++) {
+                for (int i = 0; i < 360; i += 45) {
+                    double angle = Math.toRadians(i + (ticks[0] * 3));
+                    double x = Math.cos(angle) * 2.5;
+                    double z = Math.sin(angle) * 2.5;
+                    Location particleLoc = playerLoc.clone().add(x, y, z);
+                    player.getWorld().spawnParticle(Particle.ENCHANT, particleLoc, 1, 0, 0, 0, 0);
                 }
-                
-                ticks += 2;
             }
-        }.runTaskTimer(plugin, 0L, 2L);
+            
+            ticks[0] += 2;
+        }, null, 1L, 2L);
         
         player.playSound(player.getLocation(), Sound.BLOCK_BEACON_ACTIVATE, 1.0f, 1.5f);
     }
@@ -779,47 +748,41 @@ public class GadgetManager implements Listener {
         
         // Warning effects at target
         for (int i = 0; i < 3; i++) {
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    targetLoc.getWorld().spawnParticle(Particle.LAVA, targetLoc.clone().add(0, 10, 0), 30, 5.0, 5.0, 5.0, 0.1);
-                    targetLoc.getWorld().spawnParticle(Particle.FLAME, targetLoc.clone().add(0, 8, 0), 50, 3.0, 3.0, 3.0, 0.2);
-                    targetLoc.getWorld().playSound(targetLoc, Sound.ENTITY_BLAZE_SHOOT, 1.0f, 0.5f);
-                }
-            }.runTaskLater(plugin, i * 20L);
+            plugin.getSchedulerAdapter().runTaskLaterAt(targetLoc, () -> {
+                targetLoc.getWorld().spawnParticle(Particle.LAVA, targetLoc.clone().add(0, 10, 0), 30, 5.0, 5.0, 5.0, 0.1);
+                targetLoc.getWorld().spawnParticle(Particle.FLAME, targetLoc.clone().add(0, 8, 0), 50, 3.0, 3.0, 3.0, 0.2);
+                targetLoc.getWorld().playSound(targetLoc, Sound.ENTITY_BLAZE_SHOOT, 1.0f, 0.5f);
+            }, i * 20L);
         }
         
         // Meteor impact after 3 seconds
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                // Massive explosion effect
-                targetLoc.getWorld().spawnParticle(Particle.EXPLOSION, targetLoc, 50, 5.0, 5.0, 5.0, 0.2);
-                targetLoc.getWorld().spawnParticle(Particle.LAVA, targetLoc, 100, 8.0, 8.0, 8.0, 0.3);
-                targetLoc.getWorld().spawnParticle(Particle.FLAME, targetLoc, 200, 10.0, 10.0, 10.0, 0.5);
-                targetLoc.getWorld().spawnParticle(Particle.SMOKE, targetLoc, 150, 8.0, 8.0, 8.0, 0.4);
-                
-                // Sound effects
-                targetLoc.getWorld().playSound(targetLoc, Sound.ENTITY_GENERIC_EXPLODE, 2.0f, 0.5f);
-                targetLoc.getWorld().playSound(targetLoc, Sound.ENTITY_DRAGON_FIREBALL_EXPLODE, 1.5f, 0.8f);
-                
-                // Push entities away from impact
-                for (Entity entity : targetLoc.getWorld().getNearbyEntities(targetLoc, 15, 8, 15)) {
-                    if (entity instanceof LivingEntity) {
-                        Vector pushDirection = entity.getLocation().toVector().subtract(targetLoc.toVector()).normalize();
-                        pushDirection.multiply(3.0);
-                        pushDirection.setY(Math.max(pushDirection.getY(), 1.5));
-                        entity.setVelocity(pushDirection);
-                        
-                        if (entity instanceof Player && entity != player) {
-                            ((Player) entity).sendMessage("§c☀ Meteor impact! Take cover!");
-                        }
+        plugin.getSchedulerAdapter().runTaskLaterAt(targetLoc, () -> {
+            // Massive explosion effect
+            targetLoc.getWorld().spawnParticle(Particle.EXPLOSION, targetLoc, 50, 5.0, 5.0, 5.0, 0.2);
+            targetLoc.getWorld().spawnParticle(Particle.LAVA, targetLoc, 100, 8.0, 8.0, 8.0, 0.3);
+            targetLoc.getWorld().spawnParticle(Particle.FLAME, targetLoc, 200, 10.0, 10.0, 10.0, 0.5);
+            targetLoc.getWorld().spawnParticle(Particle.SMOKE, targetLoc, 150, 8.0, 8.0, 8.0, 0.4);
+            
+            // Sound effects
+            targetLoc.getWorld().playSound(targetLoc, Sound.ENTITY_GENERIC_EXPLODE, 2.0f, 0.5f);
+            targetLoc.getWorld().playSound(targetLoc, Sound.ENTITY_DRAGON_FIREBALL_EXPLODE, 1.5f, 0.8f);
+            
+            // Push entities away from impact
+            for (Entity entity : targetLoc.getWorld().getNearbyEntities(targetLoc, 15, 8, 15)) {
+                if (entity instanceof LivingEntity) {
+                    Vector pushDirection = entity.getLocation().toVector().subtract(targetLoc.toVector()).normalize();
+                    pushDirection.multiply(3.0);
+                    pushDirection.setY(Math.max(pushDirection.getY(), 1.5));
+                    entity.setVelocity(pushDirection);
+                    
+                    if (entity instanceof Player && entity != player) {
+                        ((Player) entity).sendMessage("§c☀ Meteor impact! Take cover!");
                     }
                 }
-                
-                player.sendMessage("§c✓ Meteor impact successful! ☀");
             }
-        }.runTaskLater(plugin, 60L); // 3 seconds delay
+            
+            player.sendMessage("§c✓ Meteor impact successful! ☀");
+        }, 60L); // 3 seconds delay
         
         player.playSound(player.getLocation(), Sound.ENTITY_WITHER_SPAWN, 1.0f, 0.5f);
         grantDamageImmunity(player, 8000); // 8 seconds immunity
@@ -847,16 +810,11 @@ public class GadgetManager implements Listener {
         grantDamageImmunity(player, 10000); // 10 seconds immunity while invisible
         
         // Show uncloaking effect after duration
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (player.isOnline()) {
-                    Location loc = player.getLocation().add(0, 1, 0);
-                    player.getWorld().spawnParticle(Particle.FLASH, loc, 10, 1.0, 1.0, 1.0, 0.1);
-                    player.sendMessage("§7✓ Invisibility cloak deactivated.");
-                }
-            }
-        }.runTaskLater(plugin, 200L);
+        plugin.getSchedulerAdapter().runTaskLaterForEntity(player, () -> {
+            Location loc = player.getLocation().add(0, 1, 0);
+            player.getWorld().spawnParticle(Particle.FLASH, loc, 10, 1.0, 1.0, 1.0, 0.1);
+            player.sendMessage("§7✓ Invisibility cloak deactivated.");
+        }, null, 200L);
     }
     
     private void handleSpeedBooster(Player player, PlayerInteractEvent event) {
@@ -875,23 +833,20 @@ public class GadgetManager implements Listener {
         ));
         
         // Speed trail effect
-        new BukkitRunnable() {
-            int ticks = 0;
-            @Override
-            public void run() {
-                if (ticks >= 120 || !player.isOnline()) {
-                    cancel();
-                    return;
-                }
-                
-                Location playerLoc = player.getLocation();
-                player.getWorld().spawnParticle(Particle.DUST, playerLoc, 5, 0.5, 0.1, 0.5, 0, 
-                    new Particle.DustOptions(Color.fromRGB(0, 255, 255), 1.0f));
-                player.getWorld().spawnParticle(Particle.CRIT, playerLoc, 3, 0.3, 0.3, 0.3, 0.1);
-                
-                ticks++;
+        int[] ticks = {0};
+        plugin.getSchedulerAdapter().runTaskTimerForEntity(player, task -> {
+            if (ticks[0] >= 120) {
+                task.cancel();
+                return;
             }
-        }.runTaskTimer(plugin, 0L, 1L);
+            
+            Location playerLoc = player.getLocation();
+            player.getWorld().spawnParticle(Particle.DUST, playerLoc, 5, 0.5, 0.1, 0.5, 0, 
+                new Particle.DustOptions(Color.fromRGB(0, 255, 255), 1.0f));
+            player.getWorld().spawnParticle(Particle.CRIT, playerLoc, 3, 0.3, 0.3, 0.3, 0.1);
+            
+            ticks[0]++;
+        }, null, 1L, 1L);
         
         player.playSound(player.getLocation(), Sound.ENTITY_HORSE_GALLOP, 1.0f, 1.5f);
         player.sendMessage("§f✓ Speed boost activated! ⚡");
@@ -941,7 +896,8 @@ public class GadgetManager implements Listener {
     
     private boolean checkCooldown(Player player, long cooldownTime) {
         long currentTime = System.currentTimeMillis();
-        long lastUsed = cooldowns.getOrDefault(player, 0L);
+        PlayerCosmeticSession session = plugin.getCosmeticManager().getSession(player);
+        long lastUsed = session.getLastGadgetUse();
         
         if (currentTime - lastUsed < cooldownTime) {
             long remaining = (cooldownTime - (currentTime - lastUsed)) / 1000;
@@ -949,19 +905,16 @@ public class GadgetManager implements Listener {
             return false;
         }
         
-        cooldowns.put(player, currentTime);
+        session.setLastGadgetUse(currentTime);
         return true;
     }
     
     public void stopAllTasks() {
-        // Clear cooldowns when plugin disables
-        cooldowns.clear();
-        damageImmunity.clear();
+        // Cooldowns and immunity live in the player sessions, freed by the cosmetic manager
     }
     
     public void stopPlayerEffects(Player player) {
-        // Remove player from cooldowns
-        cooldowns.remove(player);
+        // Cooldowns are freed with the player's session on quit
     }
     
     // Legacy methods for compatibility
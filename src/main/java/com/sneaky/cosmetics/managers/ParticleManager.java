@@ -13,22 +13,6 @@ public class ParticleManager {
         this.plugin = plugin;
     }
     
-    /**
-     * Clean up particle effects for offline players
-     */
-    public void cleanupOfflinePlayerParticles() {
-        try {
-            // Clean up advanced particles if available
-            Class<?> advancedParticleClass = Class.forName("com.sneaky.cosmetics.cosmetics.particles.AdvancedParticleCosmetic");
-            advancedParticleClass.getMethod("cleanupOfflinePlayerParticles").invoke(null);
-            plugin.getLogger().fine("Cleaned up advanced particle effects for offline players");
-        } catch (ClassNotFoundException e) {
-            plugin.getLogger().fine("AdvancedParticleCosmetic class not found, skipping cleanup");
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to cleanup offline player particles: " + e.getMessage());
-        }
-    }
-    
     /**
      * Stop all particle effects for a specific player
      */
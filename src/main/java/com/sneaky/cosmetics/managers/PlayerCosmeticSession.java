@@ -0,0 +1,236 @@
+package com.sneaky.cosmetics.managers;
+
+import com.sneaky.cosmetics.cosmetics.pets.PetData;
+import com.sneaky.cosmetics.rendering.CosmeticEmitter;
+import com.sneaky.cosmetics.utils.SchedulerAdapter;
+import org.bukkit.entity.Entity;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All runtime cosmetic state of one online player
+ * Created when the player joins and released in one step when they quit, keyed by UUID so nothing
+ * holds on to the Player object after disconnect
+ */
+public final class PlayerCosmeticSession {
+
+    /**
+     * Emitter kinds a player can have running at the same time, one of each
+     */
+    public enum EmitterSlot {
+        PARTICLE,
+        ADVANCED_PARTICLE,
+        TRAIL,
+        WING,
+        AURA
+    }
+
+    private final UUID playerId;
+    private final boolean detached;
+
+    private final Set<String> activeCosmetics = ConcurrentHashMap.newKeySet();
+    private final Map<EmitterSlot, CosmeticEmitter> emitters = new ConcurrentHashMap<>();
+
+    // Hat
+    private volatile ItemStack originalHelmet;
+
+    // Gadgets
+    private volatile ItemStack activeGadget;
+    private volatile long lastGadgetUse;
+    private volatile long damageImmunityUntil;
+
+    // Pet
+    private volatile Entity pet;
+    private volatile SchedulerAdapter.Task petTask;
+    private volatile PetData petData;
+    private volatile long lastPetInteraction;
+    private volatile boolean ridingPet;
+
+    PlayerCosmeticSession(UUID playerId, boolean detached) {
+        this.playerId = playerId;
+        this.detached = detached;
+    }
+
+    public UUID getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Whether this session belongs to no online player, state written to it is dropped
+     */
+    public boolean isDetached() {
+        return detached;
+    }
+
+    // Active cosmetics
+
+    Set<String> getActiveCosmeticIds() {
+        return activeCosmetics;
+    }
+
+    public Set<String> getActiveCosmetics() {
+        return Collections.unmodifiableSet(activeCosmetics);
+    }
+
+    // Emitters
+
+    public CosmeticEmitter getEmitter(EmitterSlot slot) {
+        return emitters.get(slot);
+    }
+
+    public boolean hasEmitter(EmitterSlot slot) {
+        return emitters.containsKey(slot);
+    }
+
+    /**
+     * Store the emitter of a slot, returning the one it replaces
+     * A detached session cancels the emitter instead, nothing could reach it to stop it later
+     */
+    public CosmeticEmitter putEmitter(EmitterSlot slot, CosmeticEmitter emitter) {
+        if (detached) {
+            emitter.cancel();
+            return null;
+        }
+        return emitters.put(slot, emitter);
+    }
+
+    public CosmeticEmitter removeEmitter(EmitterSlot slot) {
+        return emitters.remove(slot);
+    }
+
+    /**
+     * Clear a slot only if it still holds the given emitter, used when an emitter unregisters itself
+     */
+    public void removeEmitter(EmitterSlot slot, CosmeticEmitter emitter) {
+        emitters.remove(slot, emitter);
+    }
+
+    // Hat
+
+    public ItemStack getOriginalHelmet() {
+        return originalHelmet;
+    }
+
+    public void setOriginalHelmet(ItemStack originalHelmet) {
+        this.originalHelmet = originalHelmet;
+    }
+
+    // Gadgets
+
+    public ItemStack getActiveGadget() {
+        return activeGadget;
+    }
+
+    public void setActiveGadget(ItemStack activeGadget) {
+        this.activeGadget = activeGadget;
+    }
+
+    public long getLastGadgetUse() {
+        return lastGadgetUse;
+    }
+
+    public void setLastGadgetUse(long lastGadgetUse) {
+        this.lastGadgetUse = lastGadgetUse;
+    }
+
+    public long getDamageImmunityUntil() {
+        return damageImmunityUntil;
+    }
+
+    public void setDamageImmunityUntil(long damageImmunityUntil) {
+        this.damageImmunityUntil = damageImmunityUntil;
+    }
+
+    // Pet
+
+    public Entity getPet() {
+        return pet;
+    }
+
+    public void setPet(Entity pet) {
+        this.pet = pet;
+    }
+
+    public SchedulerAdapter.Task getPetTask() {
+        return petTask;
+    }
+
+    public void setPetTask(SchedulerAdapter.Task petTask) {
+        this.petTask = petTask;
+    }
+
+    public PetData getPetData() {
+        return petData;
+    }
+
+    public void setPetData(PetData petData) {
+        this.petData = petData;
+    }
+
+    public long getLastPetInteraction() {
+        return lastPetInteraction;
+    }
+
+    public void setLastPetInteraction(long lastPetInteraction) {
+        this.lastPetInteraction = lastPetInteraction;
+    }
+
+    public boolean isRidingPet() {
+        return ridingPet;
+    }
+
+    public void setRidingPet(boolean ridingPet) {
+        this.ridingPet = ridingPet;
+    }
+
+    /**
+     * Free whatever the cosmetics left behind, called after they were deactivated
+     * Emitters are cancelled and the pet removed so nothing keeps running for a player that is gone
+     */
+    void release(SchedulerAdapter scheduler) {
+        for (CosmeticEmitter emitter : emitters.values()) {
+            emitter.cancel();
+        }
+        emitters.clear();
+
+        SchedulerAdapter.Task task = petTask;
+        if (task != null) {
+            task.cancel();
+        }
+        Entity entity = pet;
+        if (entity != null && !entity.isDead()) {
+            if (!scheduler.isFolia() && scheduler.isMainThread()) {
+                // Also covers plugin disable, when no task can be scheduled anymore
+                entity.remove();
+            } else {
+                scheduler.runTaskForEntity(entity, entity::remove);
+            }
+        }
+
+        activeCosmetics.clear();
+        originalHelmet = null;
+        activeGadget = null;
+        pet = null;
+        petTask = null;
+        petData = null;
+        ridingPet = false;
+    }
+
+    /**
+     * Count the pieces of state this session holds, for memory audits
+     */
+    public int getStateSize() {
+        int size = activeCosmetics.size() + emitters.size();
+        if (originalHelmet != null) size++;
+        if (activeGadget != null) size++;
+        if (pet != null) size++;
+        if (petTask != null) size++;
+        if (petData != null) size++;
+        return size;
+    }
+}
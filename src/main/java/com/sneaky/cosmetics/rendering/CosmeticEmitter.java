@@ -0,0 +1,172 @@
+package com.sneaky.cosmetics.rendering;
+
+import com.sneaky.cosmetics.cosmetics.Cosmetic;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+/**
+ * A single active cosmetic effect driven by the CosmeticRenderScheduler
+ * Replaces the per-player BukkitRunnable that particle-based cosmetics used to start
+ */
+public abstract class CosmeticEmitter {
+
+    protected final Player player;
+    protected final Cosmetic cosmetic;
+    // Wearer position, refreshed by the scheduler right before every render
+    protected final Location anchor = new Location(null, 0, 0, 0);
+    private final String intervalKey;
+    private final long defaultInterval;
+    private final boolean eventDriven;
+
+    // Scheduler-owned state, only touched from the thread that ticks the emitter's lane
+    CosmeticRenderScheduler scheduler;
+    RenderLane lane;
+    int slot = -1;
+    long interval;
+    long nextTick;
+    long earliestTick;
+    long renderTick;
+    int lastRequested;
+    int crowdSlot;
+    int crowdSize;
+    boolean parked;
+
+    // Set once the emitter is cancelled, a cancelled emitter is never registered again
+    private volatile boolean cancelled;
+
+    // Off-thread rendering state, handed between the main thread and the geometry pool
+    ParticleRecording recording;
+    boolean asyncPending;
+    long asyncFrame;
+    Exception asyncError;
+
+    /**
+     * @param intervalKey key under cosmetics.render-intervals used to resolve the render interval
+     * @param defaultInterval interval in ticks used when the key is not configured
+     */
+    protected CosmeticEmitter(Player player, Cosmetic cosmetic, String intervalKey, long defaultInterval) {
+        this(player, cosmetic, intervalKey, defaultInterval, false);
+    }
+
+    /**
+     * @param eventDriven when true the emitter idles until requestRender() is called,
+     *                    and the interval becomes the minimum number of ticks between two renders
+     */
+    protected CosmeticEmitter(Player player, Cosmetic cosmetic, String intervalKey, long defaultInterval,
+                              boolean eventDriven) {
+        this.player = player;
+        this.cosmetic = cosmetic;
+        this.intervalKey = intervalKey;
+        this.defaultInterval = defaultInterval;
+        this.interval = defaultInterval;
+        this.eventDriven = eventDriven;
+    }
+
+    /**
+     * Render one frame of this effect
+     * Only called when at least one player is in range, anchor holds the wearer's current position
+     * @param frame animation frame from the shared clock, the render tick divided by the interval,
+     *              so every wearer of the same cosmetic gets the same frame in the same tick,
+     *              frames are skipped while the emitter is slowed down or deferred
+     * @param sink receives the particles and sends them to the viewers in range
+     */
+    protected abstract void render(long frame, ParticleSink sink);
+
+    /**
+     * Whether render() may run on a worker thread
+     * Only return true when rendering reads nothing but the anchor, the frame and immutable or emitter-owned state,
+     * the particles are then computed off the main thread and sent one tick later
+     */
+    protected boolean supportsAsyncRender() {
+        return false;
+    }
+
+    /**
+     * Called once after the emitter has been removed from the scheduler
+     * Override to drop the emitter from any cosmetic-side bookkeeping
+     */
+    protected void onUnregister() {
+        // Default: nothing to clean up
+    }
+
+    /**
+     * Animation time in milliseconds derived from the shared render clock
+     */
+    protected long animationTime() {
+        return renderTick * 50L;
+    }
+
+    /**
+     * Ask the scheduler to render an event-driven emitter as soon as its interval allows
+     */
+    public void requestRender() {
+        if (scheduler != null) {
+            scheduler.requestRender(this);
+        }
+    }
+
+    /**
+     * Stop this emitter, equivalent to cancelling the old runnable
+     */
+    public void cancel() {
+        cancelled = true;
+        if (scheduler != null) {
+            scheduler.unregister(this);
+        }
+    }
+
+    /**
+     * Check if this emitter is currently registered with the scheduler, rendering or parked
+     */
+    public boolean isRegistered() {
+        return slot >= 0 || parked;
+    }
+
+    /**
+     * Check if this emitter was cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check if this emitter is parked because its wearer is suspended
+     */
+    public boolean isParked() {
+        return parked;
+    }
+
+    /**
+     * Tick of the frame being rendered, for effects that age their own state
+     */
+    protected long getRenderTick() {
+        return renderTick;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Cosmetic getCosmetic() {
+        return cosmetic;
+    }
+
+    public String getIntervalKey() {
+        return intervalKey;
+    }
+
+    public long getDefaultInterval() {
+        return defaultInterval;
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    /**
+     * Get the interval in ticks this emitter currently renders at
+     */
+    public long getInterval() {
+        return interval;
+    }
+}
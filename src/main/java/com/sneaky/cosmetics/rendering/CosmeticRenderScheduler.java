@@ -0,0 +1,732 @@
+package com.sneaky.cosmetics.rendering;
+
+import com.sneaky.cosmetics.SneakyCosmetics;
+import com.sneaky.cosmetics.utils.SchedulerAdapter;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.logging.Logger;
+
+/**
+ * Tick-driven renderer for every active particle, trail, wing and aura emitter
+ * Emitters are kept in flat arrays and rendered according to the intervals in cosmetics.render-intervals,
+ * and only for the players within cosmetics.max-effect-distance
+ * Emitters that support it have their geometry computed on a worker pool and sent on the following tick
+ *
+ * On Paper one global loop renders a single lane holding every emitter. On Folia each wearer's emitters
+ * form their own lane, ticked by the wearer's entity scheduler on the region thread that owns them,
+ * while the global loop advances the shared animation clock, the render quality and the crowd cells.
+ * The server-wide particle budget, the viewer quotas and crowd thinning are shared by every lane
+ */
+public class CosmeticRenderScheduler {
+
+    // Weight of the newest sample in the moving tick-time average
+    private static final double AVERAGE_WEIGHT = 0.05;
+
+    /**
+     * Counters kept by every lane, read back through the lanes for the statistics
+     */
+    private enum LaneCounter {
+        PACKETS_SENT(lane -> lane.sink.getPacketsSent()),
+        PARTICLE_CALLS(lane -> lane.sink.getParticleCalls()),
+        FAR_BURSTS(lane -> lane.sink.getFarBursts()),
+        QUEUE_FLUSHES(lane -> lane.queue.getFlushes()),
+        QUOTA_DROPPED_FRAMES(lane -> lane.quota.getDroppedFrames()),
+        REQUESTED_PARTICLES(lane -> lane.budget.getTotalRequested()),
+        EMITTED_PARTICLES(lane -> lane.budget.getTotalEmitted()),
+        DECIMATED_FRAMES(lane -> lane.budget.getDecimatedFrames()),
+        BUDGET_DROPPED_FRAMES(lane -> lane.budget.getDroppedFrames());
+
+        private final ToLongFunction<RenderLane> reader;
+
+        LaneCounter(ToLongFunction<RenderLane> reader) {
+            this.reader = reader;
+        }
+    }
+
+    private final SneakyCosmetics plugin;
+    private final SchedulerAdapter adapter;
+    private final QualityController quality;
+    private final RenderLimits limits = new RenderLimits();
+    private final CrowdThinning crowd = new CrowdThinning();
+    private volatile Map<String, Long> intervals = new HashMap<>();
+    private boolean legacyIntervalsNoticed;
+
+    // Settings, lanes pick them up on their own thread when the version changes
+    private volatile int settingsVersion;
+    private volatile double maxDistanceSq;
+    private volatile boolean showOwnEffects;
+    private boolean distanceLod;
+    private double nearDistance;
+    private double reduceDistance;
+    private boolean budgetEnabled;
+    private int maxParticlesPerPlayer;
+    private int maxParticlesPerTick;
+    private boolean quotaEnabled;
+    private int maxParticlesPerViewer;
+    private int lowEndParticlesPerViewer;
+    private boolean crowdEnabled;
+    private int crowdCellSize;
+    private int maxEmittersPerCell;
+    private int crowdRebuildInterval;
+    private volatile boolean asyncGeometry;
+    private int geometryThreads;
+
+    // Paper renders every emitter in the shared lane, Folia gives every wearer a lane of their own
+    private final boolean regionThreaded;
+    private final RenderLane sharedLane;
+    private final Map<UUID, RenderLane> lanes = new ConcurrentHashMap<>();
+    private final LongAdder[] retiredCounters = new LongAdder[LaneCounter.values().length];
+
+    private volatile long currentTick;
+    private volatile boolean running;
+    private SchedulerAdapter.Task task;
+    private volatile ForkJoinPool geometryPool;
+
+    // Statistics, lanes update them from their own threads on Folia
+    final LongAdder workNanos = new LongAdder();
+    final LongAdder renderedFrames = new LongAdder();
+    final LongAdder culledFrames = new LongAdder();
+    final LongAdder asyncFrames = new LongAdder();
+    final LongAdder lateFrames = new LongAdder();
+    private volatile long lastTickNanos;
+    private volatile double averageTickNanos;
+    private volatile long peakTickNanos;
+
+    public CosmeticRenderScheduler(SneakyCosmetics plugin) {
+        this.plugin = plugin;
+        this.adapter = plugin.getSchedulerAdapter();
+        this.quality = new QualityController(plugin);
+        this.regionThreaded = adapter.isFolia();
+        this.sharedLane = regionThreaded ? null : newLane();
+        for (int i = 0; i < retiredCounters.length; i++) {
+            retiredCounters[i] = new LongAdder();
+        }
+        loadIntervals();
+        loadViewSettings();
+    }
+
+    /**
+     * Start the render loop
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (asyncGeometry) {
+            geometryPool = createGeometryPool(geometryThreads);
+        }
+        task = adapter.runGlobalTaskTimer(handle -> tick(), 1L, 1L);
+        plugin.getLogger().info("Started cosmetic render scheduler"
+                + (regionThreaded ? ", rendering every wearer on their own region thread" : ""));
+    }
+
+    /**
+     * Stop the render loop and drop every registered emitter
+     */
+    public void stop() {
+        running = false;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+        if (geometryPool != null) {
+            geometryPool.shutdownNow();
+            geometryPool = null;
+        }
+        if (sharedLane != null) {
+            sharedLane.clear();
+        }
+        for (RenderLane lane : lanes.values()) {
+            // Shutting down, the lane tasks are cancelled before their state is dropped
+            if (lane.task != null) {
+                lane.task.cancel();
+            }
+            lane.clear();
+        }
+        lanes.clear();
+        limits.clear();
+        crowd.clear();
+    }
+
+    /**
+     * Reload intervals and view distances from the configuration and apply them to active emitters
+     */
+    public void reload() {
+        loadIntervals();
+        loadViewSettings();
+        quality.loadSettings();
+        if (running && asyncGeometry && geometryPool == null) {
+            geometryPool = createGeometryPool(geometryThreads);
+        }
+    }
+
+    private void loadViewSettings() {
+        double maxDistance = Math.max(1.0, plugin.getConfig().getDouble("cosmetics.max-effect-distance", 50.0));
+        maxDistanceSq = maxDistance * maxDistance;
+        showOwnEffects = plugin.getConfig().getBoolean("cosmetics.show-own-effects", true);
+
+        boolean optimize = plugin.getConfig().getBoolean("performance.particle-optimization.enabled", true);
+        nearDistance = plugin.getConfig().getDouble("performance.particle-optimization.near-distance", 16.0);
+        reduceDistance = Math.max(nearDistance,
+                plugin.getConfig().getDouble("performance.particle-optimization.reduce-distance", 30.0));
+        distanceLod = optimize && nearDistance < maxDistance;
+        budgetEnabled = optimize;
+        maxParticlesPerPlayer = plugin.getConfig().getInt("performance.particle-optimization.max-particles-per-player", 100);
+        maxParticlesPerTick = plugin.getConfig().getInt("performance.particle-optimization.max-particles-per-tick", 2000);
+
+        // Disabling only stops new submissions, a running pool is kept until the scheduler stops
+        asyncGeometry = plugin.getConfig().getBoolean("performance.async-geometry.enabled", true);
+        geometryThreads = plugin.getConfig().getInt("performance.async-geometry.threads", 0);
+
+        quotaEnabled = plugin.getConfig().getBoolean("performance.viewer-quota.enabled", true);
+        maxParticlesPerViewer = plugin.getConfig().getInt("performance.viewer-quota.max-particles-per-viewer", 400);
+        lowEndParticlesPerViewer = plugin.getConfig().getInt("performance.viewer-quota.low-end-particles-per-viewer", 100);
+
+        crowdEnabled = plugin.getConfig().getBoolean("performance.crowd-thinning.enabled", true);
+        crowdCellSize = plugin.getConfig().getInt("performance.crowd-thinning.cell-size", 16);
+        maxEmittersPerCell = plugin.getConfig().getInt("performance.crowd-thinning.max-emitters-per-cell", 40);
+        crowdRebuildInterval = plugin.getConfig().getInt("performance.crowd-thinning.rebuild-interval", 20);
+        crowd.configure(crowdEnabled, crowdCellSize, maxEmittersPerCell, crowdRebuildInterval);
+
+        // Written last, a lane that sees the new version also sees the settings above
+        settingsVersion++;
+    }
+
+    /**
+     * Apply the current settings to a lane, on the thread that ticks it
+     */
+    void configure(RenderLane lane) {
+        lane.sink.configure(distanceLod, nearDistance, reduceDistance);
+        lane.budget.configure(budgetEnabled, maxParticlesPerPlayer, maxParticlesPerTick);
+        lane.quota.configure(quotaEnabled, maxParticlesPerViewer, lowEndParticlesPerViewer);
+        lane.queue.setDeferred(quotaEnabled);
+        for (int i = 0; i < lane.size; i++) {
+            lane.emitters[i].interval = resolveInterval(lane.emitters[i]);
+        }
+        for (List<CosmeticEmitter> parkedEmitters : lane.parked.values()) {
+            for (CosmeticEmitter emitter : parkedEmitters) {
+                emitter.interval = resolveInterval(emitter);
+            }
+        }
+    }
+
+    private ForkJoinPool createGeometryPool(int threads) {
+        int parallelism = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("SneakyCosmetics-Geometry-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        };
+        plugin.getLogger().info("Computing cosmetic geometry on " + parallelism + " worker thread(s)");
+        return new ForkJoinPool(parallelism, factory, null, false);
+    }
+
+    private void loadIntervals() {
+        Map<String, Long> loaded = new HashMap<>();
+        if (plugin.getConfig().contains("cosmetics.intervals", true) && !legacyIntervalsNoticed) {
+            // Old configs carry the slow values the previous timers never read, they must not slow rendering down now
+            plugin.getLogger().info("cosmetics.intervals is no longer used, render intervals are read from cosmetics.render-intervals");
+            legacyIntervalsNoticed = true;
+        }
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("cosmetics.render-intervals");
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                long value = section.getLong(key);
+                if (value > 0) {
+                    loaded.put(key.toLowerCase(), value);
+                }
+            }
+        }
+        intervals = loaded;
+    }
+
+    private long resolveInterval(CosmeticEmitter emitter) {
+        Long configured = intervals.get(emitter.getIntervalKey());
+        return configured != null ? configured : Math.max(1L, emitter.getDefaultInterval());
+    }
+
+    private RenderLane newLane() {
+        return new RenderLane(this, new ViewerIndex(plugin.getPlayerIndex(), adapter, regionThreaded), limits, crowd);
+    }
+
+    /**
+     * Get the lane a player's emitters render in, on Folia only from the thread that owns the player
+     * @param create open a lane for a player that has none yet
+     */
+    private RenderLane laneOf(Player player, boolean create) {
+        if (!regionThreaded) {
+            return sharedLane;
+        }
+        UUID uuid = player.getUniqueId();
+        RenderLane lane = lanes.get(uuid);
+        if (lane == null && create) {
+            RenderLane opened = newLane();
+            lanes.put(uuid, opened);
+            // The entity scheduler follows the wearer across regions and retires the lane when they are removed
+            opened.task = adapter.runTaskTimerForEntity(player, handle -> tickLane(uuid, opened),
+                    () -> retireLane(uuid, opened), 1L, 1L);
+            lane = opened;
+        }
+        return lane;
+    }
+
+    /**
+     * Whether the current thread may touch a wearer's lane, on Folia it has to own the wearer
+     */
+    private boolean ownsLane(Player player) {
+        return !regionThreaded || adapter.isOwnedByCurrentRegion(player);
+    }
+
+    private void tickLane(UUID uuid, RenderLane lane) {
+        if (!running) {
+            return;
+        }
+        lane.tick(currentTick, quality.getTier());
+        if (lane.isEmpty()) {
+            retireLane(uuid, lane);
+        }
+    }
+
+    private void retireLane(UUID uuid, RenderLane lane) {
+        if (!lanes.remove(uuid, lane)) {
+            return;
+        }
+        if (lane.task != null) {
+            lane.task.cancel();
+        }
+        lane.clear();
+        for (LaneCounter counter : LaneCounter.values()) {
+            retiredCounters[counter.ordinal()].add(counter.reader.applyAsLong(lane));
+        }
+    }
+
+    /**
+     * Register an emitter, it will render on the next tick
+     * Event-driven emitters stay idle until their first render request,
+     * and emitters of a suspended player are parked until the player is resumed
+     */
+    public void register(CosmeticEmitter emitter) {
+        if (!ownsLane(emitter.player)) {
+            adapter.runTaskForEntity(emitter.player, () -> register(emitter));
+            return;
+        }
+        if (emitter.slot >= 0 || emitter.parked || emitter.isCancelled()) {
+            return;
+        }
+        emitter.scheduler = this;
+        emitter.interval = resolveInterval(emitter);
+
+        RenderLane lane = laneOf(emitter.player, true);
+        List<CosmeticEmitter> parkedEmitters = lane.parked.get(emitter.player.getUniqueId());
+        if (parkedEmitters != null) {
+            emitter.lane = lane;
+            emitter.parked = true;
+            parkedEmitters.add(emitter);
+            return;
+        }
+        lane.attach(emitter, currentTick);
+    }
+
+    /**
+     * Park or resume every emitter of a player
+     * Suspended players keep their cosmetics, the emitters just leave the render loop until resumed
+     * On Folia this has to run on the thread that owns the player, calls from other threads are handed over
+     * @return whether the state changed
+     */
+    public boolean setSuspended(Player player, boolean suspended) {
+        if (!ownsLane(player)) {
+            adapter.runTaskForEntity(player, () -> setSuspended(player, suspended));
+            return false;
+        }
+        RenderLane lane = laneOf(player, suspended);
+        return lane != null && lane.setSuspended(player, suspended, currentTick);
+    }
+
+    public boolean isSuspended(Player player) {
+        RenderLane lane = laneOf(player, false);
+        return lane != null && lane.parked.containsKey(player.getUniqueId());
+    }
+
+    /**
+     * Schedule an event-driven emitter for its next allowed tick
+     */
+    public void requestRender(CosmeticEmitter emitter) {
+        if (!ownsLane(emitter.player)) {
+            adapter.runTaskForEntity(emitter.player, () -> requestRender(emitter));
+            return;
+        }
+        if (emitter.slot < 0 || emitter.nextTick != RenderLane.IDLE) {
+            return;
+        }
+        emitter.nextTick = Math.max(currentTick + 1, emitter.earliestTick);
+    }
+
+    /**
+     * Remove an emitter from the render loop
+     */
+    public void unregister(CosmeticEmitter emitter) {
+        if (!ownsLane(emitter.player)) {
+            adapter.runTaskForEntity(emitter.player, () -> unregister(emitter));
+            return;
+        }
+        if (emitter.lane != null) {
+            emitter.lane.unregister(emitter);
+        }
+    }
+
+    /**
+     * Remove every emitter owned by a player and forget them as a viewer, called when they quit
+     */
+    public void unregisterAll(Player player) {
+        limits.forget(player.getUniqueId());
+        RenderLane lane = laneOf(player, false);
+        if (lane == null) {
+            return;
+        }
+        lane.unregisterAll(player);
+        if (regionThreaded) {
+            retireLane(player.getUniqueId(), lane);
+        }
+    }
+
+    private void tick() {
+        if (!running) {
+            return;
+        }
+
+        long tick = currentTick + 1;
+        currentTick = tick;
+        quality.update(tick);
+        limits.advance(tick);
+        crowd.rebuild(tick, plugin.getPlayerIndex());
+
+        if (sharedLane != null) {
+            sharedLane.tick(tick, quality.getTier());
+        }
+
+        // On Folia this is the work the lanes did on their region threads since the last tick
+        recordTickTime(workNanos.sumThenReset());
+    }
+
+    private void recordTickTime(long elapsed) {
+        lastTickNanos = elapsed;
+        if (elapsed > peakTickNanos) {
+            peakTickNanos = elapsed;
+        }
+        averageTickNanos = averageTickNanos == 0
+                ? elapsed
+                : averageTickNanos + (elapsed - averageTickNanos) * AVERAGE_WEIGHT;
+    }
+
+    // Lane access
+
+    int getSettingsVersion() {
+        return settingsVersion;
+    }
+
+    ForkJoinPool getGeometryPool() {
+        return geometryPool;
+    }
+
+    boolean isAsyncGeometrySubmitting() {
+        return asyncGeometry;
+    }
+
+    double getMaxDistanceSq() {
+        return maxDistanceSq;
+    }
+
+    boolean isShowOwnEffects() {
+        return showOwnEffects;
+    }
+
+    Logger getLogger() {
+        return plugin.getLogger();
+    }
+
+    /**
+     * Every lane, the statistics below read them without synchronization since they are only shown to admins
+     */
+    private Collection<RenderLane> allLanes() {
+        return sharedLane != null ? Collections.singletonList(sharedLane) : lanes.values();
+    }
+
+    private long total(LaneCounter counter) {
+        long total = retiredCounters[counter.ordinal()].sum();
+        for (RenderLane lane : allLanes()) {
+            total += counter.reader.applyAsLong(lane);
+        }
+        return total;
+    }
+
+    /**
+     * Reset the peak tick time counter
+     */
+    public void resetPeak() {
+        peakTickNanos = 0;
+    }
+
+    // Statistics getters
+
+    public int getActiveEmitterCount() {
+        int count = 0;
+        for (RenderLane lane : allLanes()) {
+            count += lane.size;
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of players whose emitters are parked
+     */
+    public int getSuspendedPlayerCount() {
+        int count = 0;
+        for (RenderLane lane : allLanes()) {
+            count += lane.parked.size();
+        }
+        return count;
+    }
+
+    public int getParkedEmitterCount() {
+        int count = 0;
+        for (RenderLane lane : allLanes()) {
+            for (List<CosmeticEmitter> parkedEmitters : lane.parked.values()) {
+                count += parkedEmitters.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of lanes rendering on their own thread, 0 when one loop renders everything
+     */
+    public int getRegionLaneCount() {
+        return lanes.size();
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public double getAverageTickNanos() {
+        return averageTickNanos;
+    }
+
+    public long getPeakTickNanos() {
+        return peakTickNanos;
+    }
+
+    public long getRenderedFrames() {
+        return renderedFrames.sum();
+    }
+
+    /**
+     * Get the number of frames skipped because no player was in range
+     */
+    public long getCulledFrames() {
+        return culledFrames.sum();
+    }
+
+    /**
+     * Get the number of frames whose geometry was computed off the main thread
+     */
+    public long getAsyncFrames() {
+        return asyncFrames.sum();
+    }
+
+    /**
+     * Get the number of times an emitter was due while its previous frame was still being computed
+     */
+    public long getLateFrames() {
+        return lateFrames.sum();
+    }
+
+    public boolean isAsyncGeometryEnabled() {
+        return asyncGeometry && geometryPool != null;
+    }
+
+    /**
+     * Let a viewer receive the smaller low-end particle quota
+     */
+    public void setLowEndClient(UUID viewer, boolean lowEnd) {
+        limits.setLowEnd(viewer, lowEnd);
+    }
+
+    public boolean isLowEndClient(UUID viewer) {
+        return limits.isLowEnd(viewer);
+    }
+
+    public boolean isViewerQuotaEnabled() {
+        return quotaEnabled;
+    }
+
+    public int getMaxParticlesPerViewer() {
+        return Math.max(1, maxParticlesPerViewer);
+    }
+
+    public int getLowEndParticlesPerViewer() {
+        return Math.max(1, Math.min(getMaxParticlesPerViewer(), lowEndParticlesPerViewer));
+    }
+
+    /**
+     * Get the number of viewers that went over their particle quota in the last tick
+     */
+    public int getQuotaLimitedViewers() {
+        int count = 0;
+        for (RenderLane lane : allLanes()) {
+            count += lane.quota.getLimitedViewers();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of frames a viewer did not receive because of their quota
+     */
+    public long getQuotaDroppedFrames() {
+        return total(LaneCounter.QUOTA_DROPPED_FRAMES);
+    }
+
+    public boolean isCrowdThinningEnabled() {
+        return crowdEnabled;
+    }
+
+    public int getMaxEmittersPerCell() {
+        return Math.max(1, maxEmittersPerCell);
+    }
+
+    /**
+     * Get the number of cells that held more emitters than allowed at the last rebuild
+     */
+    public int getCrowdedCells() {
+        return crowd.getCrowdedCells();
+    }
+
+    /**
+     * Get the number of times a due emitter waited for its turn in a crowded cell
+     */
+    public long getCrowdDeferredFrames() {
+        return crowd.getDeferredFrames();
+    }
+
+    public long getPacketsSent() {
+        return total(LaneCounter.PACKETS_SENT);
+    }
+
+    public long getParticleCalls() {
+        return total(LaneCounter.PARTICLE_CALLS);
+    }
+
+    public long getFarBursts() {
+        return total(LaneCounter.FAR_BURSTS);
+    }
+
+    /**
+     * Get the number of ticks queued particles were sent in
+     */
+    public long getQueueFlushes() {
+        return total(LaneCounter.QUEUE_FLUSHES);
+    }
+
+    /**
+     * Get the controller adapting render quality to server load
+     */
+    public QualityController getQualityController() {
+        return quality;
+    }
+
+    public boolean isBudgetEnabled() {
+        return budgetEnabled;
+    }
+
+    public int getMaxParticlesPerPlayer() {
+        return Math.max(1, maxParticlesPerPlayer);
+    }
+
+    public int getMaxParticlesPerTick() {
+        return Math.max(1, maxParticlesPerTick);
+    }
+
+    /**
+     * Get the total number of particles emitters asked for
+     */
+    public long getRequestedParticles() {
+        return total(LaneCounter.REQUESTED_PARTICLES);
+    }
+
+    /**
+     * Get the total number of particles that fit the budget and were spawned
+     */
+    public long getEmittedParticles() {
+        return total(LaneCounter.EMITTED_PARTICLES);
+    }
+
+    public int getLastTickRequestedParticles() {
+        int count = 0;
+        for (RenderLane lane : allLanes()) {
+            count += lane.budget.getTickRequested();
+        }
+        return count;
+    }
+
+    public int getLastTickEmittedParticles() {
+        int count = 0;
+        for (RenderLane lane : allLanes()) {
+            count += lane.budget.getTickEmitted();
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of frames rendered with every n-th point skipped
+     */
+    public long getDecimatedFrames() {
+        return total(LaneCounter.DECIMATED_FRAMES);
+    }
+
+    /**
+     * Get the number of frames skipped because the budget was used up
+     */
+    public long getBudgetDroppedFrames() {
+        return total(LaneCounter.BUDGET_DROPPED_FRAMES);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Count active emitters per interval key, used by the admin render command
+     */
+    public Map<String, Integer> getEmitterCountsByKey() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (RenderLane lane : allLanes()) {
+            CosmeticEmitter[] emitters = lane.emitters;
+            int size = Math.min(lane.size, emitters.length);
+            for (int i = 0; i < size; i++) {
+                CosmeticEmitter emitter = emitters[i];
+                if (emitter != null) {
+                    counts.merge(emitter.getIntervalKey(), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+}
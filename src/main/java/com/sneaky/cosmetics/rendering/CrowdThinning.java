@@ -0,0 +1,162 @@
+package com.sneaky.cosmetics.rendering;
+
+import com.sneaky.cosmetics.utils.PlayerSpatialIndex;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many emitters of a crowded area render in the same tick
+ * Wearers are bucketed into square cells every few ticks by their position in the player index, and when a cell
+ * holds more emitters than allowed only a rotating window of them may render each tick, so every wearer still gets a turn
+ * One instance is shared by every render lane, the global loop rebuilds the cells from the emitter counts lanes report
+ */
+final class CrowdThinning {
+
+    // Emitters every wearer rendered at the last report, written by the lanes
+    private final Map<UUID, Integer> weights = new ConcurrentHashMap<>();
+
+    // First slot and cell size of every placed wearer, replaced as a whole by every rebuild
+    private volatile Map<UUID, Placement> placements = Collections.emptyMap();
+    private volatile int generation;
+
+    private volatile boolean enabled;
+    private volatile int cellShift;
+    private volatile int maxPerCell;
+    private volatile int rebuildInterval;
+
+    // Statistics
+    private volatile int crowdedCells;
+    private final LongAdder deferredFrames = new LongAdder();
+
+    void configure(boolean enabled, int cellSize, int maxPerCell, int rebuildInterval) {
+        // Round the cell size to a power of two so a block coordinate maps to its cell with a shift
+        this.cellShift = 31 - Integer.numberOfLeadingZeros(Math.max(1, cellSize));
+        this.maxPerCell = Math.max(1, maxPerCell);
+        this.rebuildInterval = Math.max(1, rebuildInterval);
+        this.enabled = enabled;
+    }
+
+    /**
+     * Re-bucket the wearers when the rebuild interval is over, called by the global loop
+     * Positions come from the player index, so no player is read off the thread that owns them
+     */
+    void rebuild(long tick, PlayerSpatialIndex index) {
+        if (!enabled || tick % rebuildInterval != 0) {
+            return;
+        }
+
+        int shift = cellShift;
+        Map<World, Map<Long, int[]>> cells = new HashMap<>();
+        List<UUID> wearers = new ArrayList<>();
+        List<int[]> wearerCells = new ArrayList<>();
+        List<Integer> firstSlots = new ArrayList<>();
+        index.forEachPosition((uuid, world, x, z) -> {
+            Integer weight = weights.get(uuid);
+            if (weight == null) {
+                return;
+            }
+            long key = ((long) (((int) Math.floor(x)) >> shift) << 32) | ((((int) Math.floor(z)) >> shift) & 0xFFFFFFFFL);
+            int[] cell = cells.computeIfAbsent(world, w -> new HashMap<>()).computeIfAbsent(key, k -> new int[1]);
+            wearers.add(uuid);
+            wearerCells.add(cell);
+            firstSlots.add(cell[0]);
+            cell[0] += weight;
+        });
+
+        Map<UUID, Placement> placed = new HashMap<>();
+        for (int i = 0; i < wearers.size(); i++) {
+            placed.put(wearers.get(i), new Placement(firstSlots.get(i), wearerCells.get(i)[0]));
+        }
+        int crowded = 0;
+        for (Map<Long, int[]> worldCells : cells.values()) {
+            for (int[] cell : worldCells.values()) {
+                if (cell[0] > maxPerCell) {
+                    crowded++;
+                }
+            }
+        }
+        crowdedCells = crowded;
+        placements = placed;
+        generation++;
+    }
+
+    /**
+     * Incremented by every rebuild, lanes place their emitters again when it changes
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Place the emitters of a wearer in their cell and report how many there are for the next rebuild
+     * @param emitters emitters of the wearer in the lane, numbered from their first slot on
+     */
+    void place(UUID wearer, List<CosmeticEmitter> emitters) {
+        weights.put(wearer, emitters.size());
+        Placement placement = placements.get(wearer);
+        for (int i = 0; i < emitters.size(); i++) {
+            CosmeticEmitter emitter = emitters.get(i);
+            if (placement == null) {
+                emitter.crowdSize = 0;
+            } else {
+                emitter.crowdSlot = placement.firstSlot + i;
+                emitter.crowdSize = placement.cellSize;
+            }
+        }
+    }
+
+    /**
+     * Whether a due emitter has to wait because its cell is crowded and it is not its turn
+     * The window of maxPerCell slots moves on every tick, wrapping around the cell
+     */
+    boolean defer(CosmeticEmitter emitter, long tick) {
+        int max = maxPerCell;
+        if (!enabled || emitter.crowdSize <= max) {
+            return false;
+        }
+        if (Math.floorMod(emitter.crowdSlot - tick * max, (long) emitter.crowdSize) < max) {
+            return false;
+        }
+        deferredFrames.increment();
+        return true;
+    }
+
+    /**
+     * Stop counting a wearer, called when their lane no longer renders anything for them
+     */
+    void forget(UUID wearer) {
+        weights.remove(wearer);
+    }
+
+    void clear() {
+        weights.clear();
+        placements = Collections.emptyMap();
+        crowdedCells = 0;
+    }
+
+    int getCrowdedCells() {
+        return crowdedCells;
+    }
+
+    long getDeferredFrames() {
+        return deferredFrames.sum();
+    }
+
+    private static final class Placement {
+        private final int firstSlot;
+        private final int cellSize;
+
+        private Placement(int firstSlot, int cellSize) {
+            this.firstSlot = firstSlot;
+            this.cellSize = cellSize;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.sneaky.cosmetics.rendering;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Renders a range of emitters into their recordings on the geometry pool
+ */
+final class GeometryTask extends RecursiveAction {
+
+    // Emitters rendered by one task before it stops splitting
+    private static final int THRESHOLD = 16;
+
+    private final CosmeticEmitter[] emitters;
+    private final int from;
+    private final int to;
+
+    GeometryTask(CosmeticEmitter[] emitters, int from, int to) {
+        this.emitters = emitters;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= THRESHOLD) {
+            for (int i = from; i < to; i++) {
+                renderInto(emitters[i]);
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new GeometryTask(emitters, from, middle), new GeometryTask(emitters, middle, to));
+    }
+
+    private static void renderInto(CosmeticEmitter emitter) {
+        ParticleRecording recording = emitter.recording;
+        recording.reset();
+        try {
+            emitter.render(emitter.asyncFrame, recording);
+        } catch (Exception e) {
+            // Reported on the main thread when the frame is replayed
+            emitter.asyncError = e;
+        }
+    }
+}
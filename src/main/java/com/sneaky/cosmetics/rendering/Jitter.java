@@ -0,0 +1,53 @@
+package com.sneaky.cosmetics.rendering;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cheap per-emitter pseudo random sequence backed by one shared precomputed table
+ * Used instead of Math.random() for visual jitter on hot render paths
+ */
+public final class Jitter {
+
+    private static final int SIZE = 4096;
+    private static final int MASK = SIZE - 1;
+    private static final double[] TABLE = new double[SIZE];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5C05_3E71L);
+        for (int i = 0; i < SIZE; i++) {
+            TABLE[i] = random.nextDouble();
+        }
+    }
+
+    private int cursor;
+    private final int stride;
+
+    public Jitter(int seed) {
+        this.cursor = seed & MASK;
+        // Odd strides visit every table entry before repeating
+        this.stride = ((seed >>> 12) & 0x3F) * 2 + 1;
+    }
+
+    /**
+     * Create a jitter sequence with a random starting point
+     */
+    public static Jitter seeded() {
+        return new Jitter(ThreadLocalRandom.current().nextInt());
+    }
+
+    /**
+     * Next value in [0, 1)
+     */
+    public double next() {
+        cursor = (cursor + stride) & MASK;
+        return TABLE[cursor];
+    }
+
+    /**
+     * Next value in [-spread / 2, spread / 2)
+     */
+    public double centered(double spread) {
+        return (next() - 0.5) * spread;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sneaky.cosmetics.rendering;
+
+import org.bukkit.entity.Player;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-player and server-wide particle budget for the render scheduler
+ * Emitters that would go over budget are thinned out by skipping points instead of being dropped
+ * Every lane keeps the usage of its own wearers, the server-wide count is shared through RenderLimits
+ */
+final class ParticleBudget {
+
+    private final Map<Player, PlayerUsage> usage = new HashMap<>();
+    private final RenderLimits limits;
+
+    private boolean enabled;
+    private int maxPerPlayer;
+    private int maxPerTick;
+
+    private long tick;
+    private int tickRequested;
+    private int tickEmitted;
+
+    // Statistics
+    private long totalRequested;
+    private long totalEmitted;
+    private long decimatedFrames;
+    private long droppedFrames;
+
+    ParticleBudget(RenderLimits limits) {
+        this.limits = limits;
+    }
+
+    void configure(boolean enabled, int maxPerPlayer, int maxPerTick) {
+        this.enabled = enabled;
+        this.maxPerPlayer = Math.max(1, maxPerPlayer);
+        this.maxPerTick = Math.max(1, maxPerTick);
+    }
+
+    /**
+     * Start a new tick and reset the per-tick counters
+     */
+    void advance(long tick) {
+        tickRequested = 0;
+        tickEmitted = 0;
+        this.tick = tick;
+
+        // Drop usage entries of players that stopped rendering
+        if (tick % 200 == 0) {
+            usage.values().removeIf(entry -> entry.tick < tick - 1);
+        }
+    }
+
+    /**
+     * Get how many particles an emitter of this player may still spawn this tick
+     */
+    int allowance(Player player) {
+        if (!enabled) {
+            return Integer.MAX_VALUE;
+        }
+        PlayerUsage entry = usage.get(player);
+        int playerUsed = entry != null && entry.tick == tick ? entry.used : 0;
+        return Math.min(maxPerPlayer - playerUsed, maxPerTick - limits.getTickEmitted());
+    }
+
+    /**
+     * Get the point stride that fits an expected request into an allowance, 1 keeps every point
+     */
+    static int stride(int expected, int allowance) {
+        if (expected <= allowance) {
+            return 1;
+        }
+        return (expected + allowance - 1) / allowance;
+    }
+
+    /**
+     * Record what an emitter asked for and what it was allowed to spawn
+     */
+    void record(Player player, int requested, int emitted, boolean decimated) {
+        tickRequested += requested;
+        tickEmitted += emitted;
+        limits.recordEmitted(emitted);
+        totalRequested += requested;
+        totalEmitted += emitted;
+        if (decimated) {
+            decimatedFrames++;
+        }
+
+        if (enabled && emitted > 0) {
+            PlayerUsage entry = usage.computeIfAbsent(player, p -> new PlayerUsage());
+            if (entry.tick != tick) {
+                entry.tick = tick;
+                entry.used = 0;
+            }
+            entry.used += emitted;
+        }
+    }
+
+    /**
+     * Record a frame that was skipped because the budget was used up
+     */
+    void recordDropped(int expected) {
+        tickRequested += expected;
+        totalRequested += expected;
+        droppedFrames++;
+    }
+
+    void forget(Player player) {
+        usage.remove(player);
+    }
+
+    void clear() {
+        usage.clear();
+    }
+
+    long getTotalRequested() {
+        return totalRequested;
+    }
+
+    long getTotalEmitted() {
+        return totalEmitted;
+    }
+
+    long getDecimatedFrames() {
+        return decimatedFrames;
+    }
+
+    long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Particles requested during the current tick, or the last completed one when called between ticks
+     */
+    int getTickRequested() {
+        return tickRequested;
+    }
+
+    int getTickEmitted() {
+        return tickEmitted;
+    }
+
+    private static final class PlayerUsage {
+        private long tick;
+        private int used;
+    }
+}
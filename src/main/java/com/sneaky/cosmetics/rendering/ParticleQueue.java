@@ -0,0 +1,185 @@
+package com.sneaky.cosmetics.rendering;
+
+import com.destroystokyo.paper.ParticleBuilder;
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds every cosmetic particle of a tick back and sends them in one pass at the end of the tick
+ * Each queued particle keeps the audience list it was rendered for, so the viewer quota can still take
+ * viewers out before anything is sent. The server writes one packet per receiver for every particle,
+ * queueing changes when they go out and who gets them, not how many packets are sent,
+ * so without a viewer quota particles are sent right away instead of being copied and held
+ */
+final class ParticleQueue {
+
+    private final ParticleBuilder builder = new ParticleBuilder(Particle.FLAME);
+    private final List<List<Player>> audiences = new ArrayList<>();
+    private int audiencesUsed;
+
+    private Emission[] emissions = new Emission[256];
+    private int size;
+
+    // Hold particles until the end of the tick, only needed while a viewer quota may trim audiences
+    private boolean deferred = true;
+    private int sendFailures;
+
+    // Statistics
+    private long flushes;
+    private long failed;
+
+    /**
+     * Get an empty audience list, valid until the next flush
+     */
+    List<Player> audience() {
+        if (audiencesUsed == audiences.size()) {
+            audiences.add(new ArrayList<>());
+        }
+        return audiences.get(audiencesUsed++);
+    }
+
+    void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+
+    void add(Particle particle, World world, double x, double y, double z, int count,
+             double offsetX, double offsetY, double offsetZ, double extra, Object data, List<Player> receivers) {
+        if (receivers.isEmpty()) {
+            // An empty receiver list would make the builder fall back to nearby players
+            return;
+        }
+        if (!deferred) {
+            // Audiences are complete when a frame starts, nothing will change them anymore
+            if (!send(particle, world, x, y, z, count, offsetX, offsetY, offsetZ, extra, data, receivers)) {
+                sendFailures++;
+            }
+            return;
+        }
+        if (size == emissions.length) {
+            emissions = Arrays.copyOf(emissions, size * 2);
+        }
+        Emission emission = emissions[size];
+        if (emission == null) {
+            emission = emissions[size] = new Emission();
+        }
+        size++;
+
+        emission.particle = particle;
+        emission.world = world;
+        emission.x = x;
+        emission.y = y;
+        emission.z = z;
+        emission.count = count;
+        emission.offsetX = offsetX;
+        emission.offsetY = offsetY;
+        emission.offsetZ = offsetZ;
+        emission.extra = extra;
+        emission.data = data;
+        emission.receivers = receivers;
+    }
+
+    /**
+     * Send every queued particle and reset the queue
+     * @return the number of particles that could not be sent
+     */
+    int flush() {
+        int failures = sendFailures;
+        sendFailures = 0;
+        for (int i = 0; i < size; i++) {
+            Emission emission = emissions[i];
+            if (emission.receivers.isEmpty()) {
+                // Every receiver was trimmed by the viewer quota
+                emission.clear();
+                continue;
+            }
+            if (!send(emission.particle, emission.world, emission.x, emission.y, emission.z, emission.count,
+                    emission.offsetX, emission.offsetY, emission.offsetZ, emission.extra, emission.data, emission.receivers)) {
+                failures++;
+            }
+            emission.clear();
+        }
+        if (size > 0) {
+            flushes++;
+        }
+        failed += failures;
+        size = 0;
+
+        for (int i = 0; i < audiencesUsed; i++) {
+            audiences.get(i).clear();
+        }
+        audiencesUsed = 0;
+        builder.receivers((List<Player>) null).data(null);
+        return failures;
+    }
+
+    private boolean send(Particle particle, World world, double x, double y, double z, int count,
+                         double offsetX, double offsetY, double offsetZ, double extra, Object data, List<Player> receivers) {
+        try {
+            builder.particle(particle)
+                    .location(world, x, y, z)
+                    .count(count)
+                    .offset(offsetX, offsetY, offsetZ)
+                    .extra(extra)
+                    .data(data)
+                    .receivers(receivers)
+                    .spawn();
+            return true;
+        } catch (IllegalArgumentException e) {
+            // Bad particle data from a cosmetic, skip it and keep sending the rest
+            return false;
+        }
+    }
+
+    /**
+     * Drop every queued particle without sending it
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            emissions[i].clear();
+        }
+        size = 0;
+        sendFailures = 0;
+        for (int i = 0; i < audiencesUsed; i++) {
+            audiences.get(i).clear();
+        }
+        audiencesUsed = 0;
+    }
+
+    int getPending() {
+        return size;
+    }
+
+    long getFlushes() {
+        return flushes;
+    }
+
+    long getFailed() {
+        return failed;
+    }
+
+    private static final class Emission {
+        private Particle particle;
+        private World world;
+        private double x;
+        private double y;
+        private double z;
+        private int count;
+        private double offsetX;
+        private double offsetY;
+        private double offsetZ;
+        private double extra;
+        private Object data;
+        private List<Player> receivers;
+
+        private void clear() {
+            world = null;
+            data = null;
+            receivers = null;
+        }
+    }
+}
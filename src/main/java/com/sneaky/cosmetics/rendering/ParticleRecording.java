@@ -0,0 +1,67 @@
+package com.sneaky.cosmetics.rendering;
+
+import org.bukkit.Particle;
+
+import java.util.Arrays;
+
+/**
+ * Sink that records spawn calls instead of sending them
+ * Used to compute a frame on a worker thread and replay it on the main thread later
+ */
+final class ParticleRecording extends ParticleSink {
+
+    // x, y, z, offsetX, offsetY, offsetZ, extra per call
+    private static final int STRIDE = 7;
+
+    private Particle[] particles = new Particle[32];
+    private Object[] data = new Object[32];
+    private int[] counts = new int[32];
+    private double[] values = new double[32 * STRIDE];
+    private int size;
+
+    @Override
+    public <T> void spawn(Particle particle, double x, double y, double z, int count,
+                          double offsetX, double offsetY, double offsetZ, double extra, T data) {
+        if (size == particles.length) {
+            int capacity = size * 2;
+            particles = Arrays.copyOf(particles, capacity);
+            this.data = Arrays.copyOf(this.data, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            values = Arrays.copyOf(values, capacity * STRIDE);
+        }
+
+        particles[size] = particle;
+        this.data[size] = data;
+        counts[size] = count;
+        int v = size * STRIDE;
+        values[v] = x;
+        values[v + 1] = y;
+        values[v + 2] = z;
+        values[v + 3] = offsetX;
+        values[v + 4] = offsetY;
+        values[v + 5] = offsetZ;
+        values[v + 6] = extra;
+        size++;
+    }
+
+    /**
+     * Send every recorded call to another sink, in recording order
+     */
+    void replay(ParticleSink target) {
+        for (int i = 0; i < size; i++) {
+            int v = i * STRIDE;
+            target.spawn(particles[i], values[v], values[v + 1], values[v + 2], counts[i],
+                    values[v + 3], values[v + 4], values[v + 5], values[v + 6], data[i]);
+        }
+    }
+
+    void reset() {
+        Arrays.fill(particles, 0, size, null);
+        Arrays.fill(data, 0, size, null);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+}
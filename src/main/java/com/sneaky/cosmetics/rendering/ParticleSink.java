@@ -0,0 +1,24 @@
+package com.sneaky.cosmetics.rendering;
+
+import org.bukkit.Particle;
+
+/**
+ * Receives the particles of a rendering emitter
+ * Emitters never spawn particles on the world directly, the scheduler decides who gets them and when
+ */
+public abstract class ParticleSink {
+
+    /**
+     * Spawn a particle for the viewers of the current emitter
+     */
+    public void spawn(Particle particle, double x, double y, double z, int count,
+                      double offsetX, double offsetY, double offsetZ, double extra) {
+        spawn(particle, x, y, z, count, offsetX, offsetY, offsetZ, extra, null);
+    }
+
+    /**
+     * Spawn a particle with extra data for the viewers of the current emitter
+     */
+    public abstract <T> void spawn(Particle particle, double x, double y, double z, int count,
+                                   double offsetX, double offsetY, double offsetZ, double extra, T data);
+}
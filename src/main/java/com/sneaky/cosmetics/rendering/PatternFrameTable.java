@@ -0,0 +1,111 @@
+package com.sneaky.cosmetics.rendering;
+
+import java.util.Arrays;
+
+/**
+ * Immutable table of precomputed animation frames for a particle pattern
+ * Each frame is a packed array of x, y, z offsets relative to the effect anchor,
+ * so rendering only has to add the anchor position to the stored offsets
+ */
+public final class PatternFrameTable {
+
+    private final double[][] frames;
+    private final int maxPoints;
+
+    private PatternFrameTable(double[][] frames) {
+        this.frames = frames;
+        int max = 0;
+        for (double[] frame : frames) {
+            max = Math.max(max, frame.length / 3);
+        }
+        this.maxPoints = max;
+    }
+
+    /**
+     * Compile a pattern into a frame table
+     * @param frameCount number of frames in one full animation cycle
+     * @param generator writes the offsets of a single frame
+     */
+    public static PatternFrameTable compile(int frameCount, FrameGenerator generator) {
+        if (frameCount <= 0) {
+            throw new IllegalArgumentException("Frame count must be positive: " + frameCount);
+        }
+
+        double[][] frames = new double[frameCount][];
+        PointBuffer buffer = new PointBuffer();
+        for (int frame = 0; frame < frameCount; frame++) {
+            buffer.reset();
+            generator.generate(frame, phase(frame, frameCount), buffer);
+            frames[frame] = buffer.toArray();
+        }
+        return new PatternFrameTable(frames);
+    }
+
+    /**
+     * Get the phase angle (0 to 2π) of a frame within its cycle
+     */
+    public static double phase(int frame, int frameCount) {
+        return 2 * Math.PI * frame / frameCount;
+    }
+
+    /**
+     * Get the packed offsets for an animation tick, wrapping around the cycle
+     * The returned array is shared and must not be modified
+     */
+    public double[] frame(long tick) {
+        int index = (int) (tick % frames.length);
+        return frames[index < 0 ? index + frames.length : index];
+    }
+
+    /**
+     * Get the number of frames in one animation cycle
+     */
+    public int getFrameCount() {
+        return frames.length;
+    }
+
+    /**
+     * Get the largest number of points in any frame
+     */
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    /**
+     * Writes the points of a single frame
+     */
+    @FunctionalInterface
+    public interface FrameGenerator {
+        /**
+         * @param frame index of the frame being compiled
+         * @param phase phase angle of the frame, from 0 up to (but excluding) 2π
+         * @param points buffer receiving the point offsets
+         */
+        void generate(int frame, double phase, PointBuffer points);
+    }
+
+    /**
+     * Growable buffer of packed points, only used while compiling
+     */
+    public static final class PointBuffer {
+        private double[] data = new double[48];
+        private int size;
+
+        public void add(double x, double y, double z) {
+            if (size + 3 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = x;
+            data[size++] = y;
+            data[size++] = z;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
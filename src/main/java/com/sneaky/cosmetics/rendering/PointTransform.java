@@ -0,0 +1,74 @@
+package com.sneaky.cosmetics.rendering;
+
+/**
+ * Moves precomputed point clouds to a player's position in bulk
+ * Every (a, b, c) triple becomes (a * xa + c * xc + originX, b + originY, a * za + c * zc + originZ)
+ */
+public final class PointTransform {
+
+    private PointTransform() {
+    }
+
+    /**
+     * Rotate packed (lateral, up, back) points by a yaw and translate them to an origin
+     * Lateral points to the player's left and back away from where they look, sin and cos are of the yaw
+     */
+    public static void rotateYaw(double[] src, double[] dst, int points,
+                                 double originX, double originY, double originZ, double sin, double cos) {
+        transform(src, dst, points, originX, originY, originZ, -sin, -cos, cos, -sin);
+    }
+
+    /**
+     * Translate packed (x, y, z) offsets to an origin
+     */
+    public static void translate(double[] src, double[] dst, int points,
+                                 double originX, double originY, double originZ) {
+        transform(src, dst, points, originX, originY, originZ, 1.0, 0.0, 0.0, 1.0);
+    }
+
+    private static void transform(double[] src, double[] dst, int points,
+                                  double originX, double originY, double originZ,
+                                  double xa, double xc, double za, double zc) {
+        for (int p = 0, end = points * 3; p < end; p += 3) {
+            double a = src[p];
+            double c = src[p + 2];
+            dst[p] = a * xa + c * xc + originX;
+            dst[p + 1] = src[p + 1] + originY;
+            dst[p + 2] = a * za + c * zc + originZ;
+        }
+    }
+
+    /**
+     * Reusable output array for transformed points, owned by a single emitter
+     */
+    public static final class Buffer {
+        private double[] points = new double[0];
+
+        /**
+         * Rotate and translate a packed point array, see PointTransform.rotateYaw
+         * @return this buffer's array, only the first src.length entries are valid
+         */
+        public double[] rotateYaw(double[] src, double originX, double originY, double originZ, double sin, double cos) {
+            double[] dst = ensureCapacity(src.length);
+            PointTransform.rotateYaw(src, dst, src.length / 3, originX, originY, originZ, sin, cos);
+            return dst;
+        }
+
+        /**
+         * Translate a packed offset array, see PointTransform.translate
+         * @return this buffer's array, only the first src.length entries are valid
+         */
+        public double[] translate(double[] src, double originX, double originY, double originZ) {
+            double[] dst = ensureCapacity(src.length);
+            PointTransform.translate(src, dst, src.length / 3, originX, originY, originZ);
+            return dst;
+        }
+
+        private double[] ensureCapacity(int length) {
+            if (points.length < length) {
+                points = new double[length];
+            }
+            return points;
+        }
+    }
+}
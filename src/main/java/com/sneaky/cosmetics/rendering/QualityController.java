@@ -0,0 +1,211 @@
+package com.sneaky.cosmetics.rendering;
+
+import com.sneaky.cosmetics.SneakyCosmetics;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Adapts cosmetic render quality to server load
+ * Reads the average tick time through Paper's tick-time API and steps all scheduler-driven
+ * cosmetics through quality tiers, with hysteresis so the tier does not flap around a threshold
+ */
+public class QualityController {
+
+    private static final int HISTORY_SIZE = 10;
+
+    public enum Tier {
+        FULL("Full", 1, 1),
+        REDUCED("Reduced points", 2, 1),
+        EXTENDED("Reduced points, longer interval", 2, 2),
+        SUSPENDED("Suspended", 0, 0);
+
+        private final String description;
+        private final int pointStride;
+        private final int intervalMultiplier;
+
+        Tier(String description, int pointStride, int intervalMultiplier) {
+            this.description = description;
+            this.pointStride = pointStride;
+            this.intervalMultiplier = intervalMultiplier;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Only every n-th point of a pattern is spawned
+         */
+        public int getPointStride() {
+            return pointStride;
+        }
+
+        /**
+         * Factor applied to every emitter's render interval
+         */
+        public int getIntervalMultiplier() {
+            return intervalMultiplier;
+        }
+    }
+
+    /**
+     * A logged tier change
+     */
+    public static class TierChange {
+        private final long timestamp;
+        private final Tier from;
+        private final Tier to;
+        private final double mspt;
+
+        TierChange(long timestamp, Tier from, Tier to, double mspt) {
+            this.timestamp = timestamp;
+            this.from = from;
+            this.to = to;
+            this.mspt = mspt;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Tier getFrom() {
+            return from;
+        }
+
+        public Tier getTo() {
+            return to;
+        }
+
+        public double getMspt() {
+            return mspt;
+        }
+    }
+
+    private final SneakyCosmetics plugin;
+    private final Deque<TierChange> history = new ArrayDeque<>();
+
+    // Settings
+    private boolean enabled;
+    private long checkInterval;
+    private final double[] enterMspt = new double[Tier.values().length];
+    private double recoveryMargin;
+    private long minTierTicks;
+
+    // Read by the render lanes, which run on region threads on Folia
+    private volatile Tier tier = Tier.FULL;
+    private long tierSince;
+    private double lastMspt;
+
+    public QualityController(SneakyCosmetics plugin) {
+        this.plugin = plugin;
+        loadSettings();
+    }
+
+    /**
+     * Load the adaptive quality settings, called again on reload
+     */
+    public void loadSettings() {
+        FileConfiguration config = plugin.getConfig();
+        enabled = config.getBoolean("performance.adaptive-quality.enabled", true);
+        checkInterval = Math.max(1L, config.getLong("performance.adaptive-quality.check-interval", 20L));
+        enterMspt[Tier.FULL.ordinal()] = 0.0;
+        enterMspt[Tier.REDUCED.ordinal()] = config.getDouble("performance.adaptive-quality.reduced-mspt", 40.0);
+        enterMspt[Tier.EXTENDED.ordinal()] = config.getDouble("performance.adaptive-quality.extended-mspt", 45.0);
+        enterMspt[Tier.SUSPENDED.ordinal()] = config.getDouble("performance.adaptive-quality.suspended-mspt", 55.0);
+        recoveryMargin = Math.max(0.0, config.getDouble("performance.adaptive-quality.recovery-margin", 5.0));
+        minTierTicks = Math.max(0L, config.getLong("performance.adaptive-quality.min-tier-duration", 200L));
+
+        if (!enabled && tier != Tier.FULL) {
+            changeTier(Tier.FULL, lastMspt);
+        }
+    }
+
+    /**
+     * Re-evaluate the tier, called by the render scheduler every tick
+     */
+    void update(long tick) {
+        if (!enabled || tick % checkInterval != 0) {
+            return;
+        }
+
+        double mspt;
+        try {
+            mspt = Bukkit.getServer().getAverageTickTime();
+        } catch (UnsupportedOperationException | NoSuchMethodError e) {
+            // No global tick time on this platform
+            plugin.getLogger().warning("Tick times are not available on this server, disabling adaptive cosmetic quality");
+            enabled = false;
+            changeTier(Tier.FULL, 0.0);
+            return;
+        }
+        lastMspt = mspt;
+
+        Tier target = Tier.FULL;
+        for (Tier candidate : Tier.values()) {
+            if (mspt >= enterMspt[candidate.ordinal()]) {
+                target = candidate;
+            }
+        }
+
+        if (target.ordinal() > tier.ordinal()) {
+            // Degrade immediately when the server is struggling
+            changeTier(target, mspt);
+            tierSince = tick;
+        } else if (target.ordinal() < tier.ordinal()
+                && tick - tierSince >= minTierTicks
+                && mspt < enterMspt[tier.ordinal()] - recoveryMargin) {
+            // Recover one tier at a time once the server has clearly settled
+            changeTier(Tier.values()[tier.ordinal() - 1], mspt);
+            tierSince = tick;
+        }
+    }
+
+    private void changeTier(Tier newTier, double mspt) {
+        if (newTier == tier) {
+            return;
+        }
+        Tier oldTier = tier;
+        tier = newTier;
+
+        history.addFirst(new TierChange(System.currentTimeMillis(), oldTier, newTier, mspt));
+        while (history.size() > HISTORY_SIZE) {
+            history.removeLast();
+        }
+        plugin.getLogger().info(String.format("Cosmetic quality changed from %s to %s (%.1f mspt)",
+                oldTier.name(), newTier.name(), mspt));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Tier getTier() {
+        return tier;
+    }
+
+    /**
+     * Get the average tick time seen at the last check
+     */
+    public double getLastMspt() {
+        return lastMspt;
+    }
+
+    /**
+     * Get the MSPT at which a tier is entered
+     */
+    public double getEnterMspt(Tier tier) {
+        return enterMspt[tier.ordinal()];
+    }
+
+    /**
+     * Get the most recent tier changes, newest first
+     */
+    public List<TierChange> getHistory() {
+        return new ArrayList<>(history);
+    }
+}
@@ -0,0 +1,454 @@
+package com.sneaky.cosmetics.rendering;
+
+import com.sneaky.cosmetics.utils.SchedulerAdapter;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+
+/**
+ * Emitters rendered together on one thread, with their own particle queue and budget and quota bookkeeping
+ * On Paper a single lane holds every emitter and is ticked by the global loop, on Folia every wearer gets
+ * a lane ticked by their entity scheduler, so their effects render on the thread that owns the wearer
+ * The server-wide budget, the viewer quotas and the crowd cells are shared between lanes,
+ * everything else in here is only touched from the thread that ticks the lane
+ */
+final class RenderLane {
+
+    // Next tick of an event-driven emitter that has nothing to render
+    static final long IDLE = Long.MAX_VALUE;
+
+    private final CosmeticRenderScheduler scheduler;
+    final ViewerIndex viewerIndex;
+    final ViewerList viewers = new ViewerList();
+    final ParticleQueue queue = new ParticleQueue();
+    final ViewerQuota quota;
+    final ViewerSink sink;
+    final ParticleBudget budget;
+    private final CrowdThinning crowd;
+
+    CosmeticEmitter[] emitters = new CosmeticEmitter[8];
+    int size;
+
+    // Emitters of suspended players, kept out of the render array so they cost nothing per tick
+    // Concurrent so the suspension state can be read from other threads
+    final Map<UUID, List<CosmeticEmitter>> parked = new ConcurrentHashMap<>();
+
+    // Off-thread geometry, the pool works on inFlight while this lane fills queued
+    private CosmeticEmitter[] queued = new CosmeticEmitter[8];
+    private CosmeticEmitter[] inFlight = new CosmeticEmitter[8];
+    private int queuedCount;
+    private int inFlightCount;
+    private Future<?> geometryTask;
+
+    private long lastTick = -1;
+    private int settingsVersion = -1;
+
+    // Wearers this lane reported to the shared crowd cells at the last rebuild
+    private int crowdGeneration = -1;
+    private final Set<UUID> placedWearers = new HashSet<>();
+    private final Map<UUID, List<CosmeticEmitter>> crowdGroups = new HashMap<>();
+
+    // Entity task driving this lane on Folia, null for the shared lane
+    SchedulerAdapter.Task task;
+
+    RenderLane(CosmeticRenderScheduler scheduler, ViewerIndex viewerIndex, RenderLimits limits, CrowdThinning crowd) {
+        this.scheduler = scheduler;
+        this.viewerIndex = viewerIndex;
+        this.quota = new ViewerQuota(limits);
+        this.budget = new ParticleBudget(limits);
+        this.crowd = crowd;
+        this.sink = new ViewerSink(queue, quota);
+    }
+
+    boolean isEmpty() {
+        return size == 0 && parked.isEmpty();
+    }
+
+    void attach(CosmeticEmitter emitter, long currentTick) {
+        if (size == emitters.length) {
+            emitters = Arrays.copyOf(emitters, size * 2);
+        }
+        emitter.lane = this;
+        emitter.nextTick = emitter.isEventDriven() ? IDLE : currentTick + 1;
+        emitter.earliestTick = currentTick + 1;
+        emitter.slot = size;
+        emitters[size++] = emitter;
+    }
+
+    /**
+     * Take an emitter out of the render array without telling it, used for removal and parking
+     */
+    CosmeticEmitter detach(int slot) {
+        CosmeticEmitter removed = emitters[slot];
+        int last = --size;
+        if (slot != last) {
+            CosmeticEmitter moved = emitters[last];
+            emitters[slot] = moved;
+            moved.slot = slot;
+        }
+        emitters[last] = null;
+        removed.slot = -1;
+        return removed;
+    }
+
+    void removeAt(int slot) {
+        detach(slot).onUnregister();
+    }
+
+    /**
+     * Park or resume every emitter of a player
+     * @return whether the state changed
+     */
+    boolean setSuspended(Player player, boolean suspended, long currentTick) {
+        UUID uuid = player.getUniqueId();
+        if (suspended == parked.containsKey(uuid)) {
+            return false;
+        }
+
+        if (suspended) {
+            List<CosmeticEmitter> parkedEmitters = new ArrayList<>();
+            for (int i = size - 1; i >= 0; i--) {
+                CosmeticEmitter emitter = emitters[i];
+                if (emitter.player.equals(player)) {
+                    detach(i);
+                    emitter.parked = true;
+                    parkedEmitters.add(emitter);
+                }
+            }
+            parked.put(uuid, parkedEmitters);
+        } else {
+            for (CosmeticEmitter emitter : parked.remove(uuid)) {
+                emitter.parked = false;
+                attach(emitter, currentTick);
+            }
+        }
+        return true;
+    }
+
+    void unregister(CosmeticEmitter emitter) {
+        if (emitter.parked) {
+            List<CosmeticEmitter> parkedEmitters = parked.get(emitter.player.getUniqueId());
+            if (parkedEmitters != null && parkedEmitters.remove(emitter)) {
+                emitter.parked = false;
+                emitter.onUnregister();
+            }
+            return;
+        }
+        int slot = emitter.slot;
+        if (slot < 0 || slot >= size || emitters[slot] != emitter) {
+            return;
+        }
+        removeAt(slot);
+    }
+
+    void unregisterAll(Player player) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (emitters[i].player.equals(player)) {
+                removeAt(i);
+            }
+        }
+        List<CosmeticEmitter> parkedEmitters = parked.remove(player.getUniqueId());
+        if (parkedEmitters != null) {
+            for (CosmeticEmitter emitter : parkedEmitters) {
+                emitter.parked = false;
+                emitter.onUnregister();
+            }
+        }
+        budget.forget(player);
+        quota.forget(player);
+        if (placedWearers.remove(player.getUniqueId())) {
+            crowd.forget(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Drop every emitter and buffered particle, the geometry pool has already been shut down
+     */
+    void clear() {
+        releaseInFlight();
+        Arrays.fill(queued, 0, queuedCount, null);
+        queuedCount = 0;
+        while (size > 0) {
+            removeAt(size - 1);
+        }
+        for (List<CosmeticEmitter> parkedEmitters : parked.values()) {
+            for (CosmeticEmitter emitter : parkedEmitters) {
+                emitter.parked = false;
+                emitter.onUnregister();
+            }
+        }
+        parked.clear();
+        for (UUID wearer : placedWearers) {
+            crowd.forget(wearer);
+        }
+        placedWearers.clear();
+        budget.clear();
+        quota.clear();
+        queue.clear();
+    }
+
+    /**
+     * Render the emitters that are due in a tick
+     * A lane ticked twice within the same server tick, which happens on Folia, only renders once
+     */
+    void tick(long tick, QualityController.Tier tier) {
+        if (tick == lastTick) {
+            return;
+        }
+        lastTick = tick;
+
+        long start = System.nanoTime();
+        try {
+            int version = scheduler.getSettingsVersion();
+            if (version != settingsVersion) {
+                settingsVersion = version;
+                scheduler.configure(this);
+            }
+
+            budget.advance(tick);
+            quota.advance(tick);
+
+            // Send the frames the geometry pool computed since the last tick
+            boolean poolBusy = geometryTask != null && !geometryTask.isDone();
+            if (!poolBusy) {
+                replayAsyncFrames(tier);
+            }
+
+            if (tier == QualityController.Tier.SUSPENDED) {
+                // Server is overloaded, emitters stay registered but nothing renders
+                quota.enforce();
+                queue.flush();
+                return;
+            }
+
+            int generation = crowd.getGeneration();
+            if (generation != crowdGeneration) {
+                crowdGeneration = generation;
+                placeEmitters();
+            }
+
+            ForkJoinPool pool = scheduler.getGeometryPool();
+            boolean offload = pool != null && scheduler.isAsyncGeometrySubmitting() && !poolBusy;
+
+            // Iterate backwards so swap-removal during rendering never skips an emitter
+            for (int i = size - 1; i >= 0; i--) {
+                if (i >= size) {
+                    continue;
+                }
+                CosmeticEmitter emitter = emitters[i];
+                if (tick < emitter.nextTick) {
+                    continue;
+                }
+                if (emitter.asyncPending) {
+                    // Previous frame is still being computed, try again next tick
+                    scheduler.lateFrames.increment();
+                    continue;
+                }
+                if (crowd.defer(emitter, tick)) {
+                    // Crowded cell, stays due until the rotating window reaches it
+                    continue;
+                }
+                long interval = emitter.interval * tier.getIntervalMultiplier();
+                if (emitter.isEventDriven()) {
+                    // Idle again until the next request, which may not come before the interval is over
+                    emitter.nextTick = IDLE;
+                    emitter.earliestTick = tick + interval;
+                } else {
+                    emitter.nextTick = tick + interval;
+                }
+                // Shared animation clock, wearers of the same cosmetic stay in step
+                long frame = tick / emitter.interval;
+                emitter.renderTick = tick;
+
+                try {
+                    emitter.player.getLocation(emitter.anchor);
+                    viewerIndex.collect(emitter.player, emitter.anchor, scheduler.getMaxDistanceSq(),
+                            scheduler.isShowOwnEffects(), viewers);
+
+                    // Nobody in range, skip the geometry entirely
+                    if (viewers.size == 0) {
+                        scheduler.culledFrames.increment();
+                        continue;
+                    }
+
+                    if (offload && emitter.supportsAsyncRender()) {
+                        // Snapshot taken, the anchor is left alone until the frame has been replayed
+                        queueAsync(emitter, frame);
+                        continue;
+                    }
+
+                    emit(emitter, tier, frame, null);
+                } catch (Exception e) {
+                    fail(emitter, e);
+                } finally {
+                    sink.end();
+                    viewers.clear();
+                }
+            }
+
+            if (offload) {
+                submitAsyncFrames(pool);
+            }
+
+            // Send everything rendered this tick in one pass
+            quota.enforce();
+            int failures = queue.flush();
+            if (failures > 0) {
+                scheduler.getLogger().warning("Failed to send " + failures + " cosmetic particles this tick");
+            }
+        } finally {
+            scheduler.workNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Number the emitters of every wearer for the crowd cells of the last rebuild and report their counts
+     */
+    private void placeEmitters() {
+        for (int i = 0; i < size; i++) {
+            CosmeticEmitter emitter = emitters[i];
+            crowdGroups.computeIfAbsent(emitter.player.getUniqueId(), uuid -> new ArrayList<>()).add(emitter);
+        }
+        for (Map.Entry<UUID, List<CosmeticEmitter>> entry : crowdGroups.entrySet()) {
+            crowd.place(entry.getKey(), entry.getValue());
+        }
+        // Wearers with nothing left in this lane stop counting towards their cell
+        for (UUID wearer : placedWearers) {
+            if (!crowdGroups.containsKey(wearer)) {
+                crowd.forget(wearer);
+            }
+        }
+        placedWearers.clear();
+        placedWearers.addAll(crowdGroups.keySet());
+        crowdGroups.clear();
+    }
+
+    /**
+     * Send one frame of an emitter through the budget and viewer sink
+     * @param recording frame computed off the main thread, or null to render the emitter right here
+     */
+    private void emit(CosmeticEmitter emitter, QualityController.Tier tier, long frame, ParticleRecording recording) {
+        // Thin the effect out when its last frame would not fit the remaining budget
+        int allowance = budget.allowance(emitter.player);
+        if (allowance <= 0) {
+            budget.recordDropped(emitter.lastRequested);
+            return;
+        }
+        int stride = ParticleBudget.stride(emitter.lastRequested, allowance) * Math.max(1, tier.getPointStride());
+
+        sink.begin(emitter.anchor.getWorld(), emitter.player, viewers, stride, allowance);
+        if (recording != null) {
+            recording.replay(sink);
+        } else {
+            emitter.render(frame, sink);
+        }
+        sink.flushFarViewers();
+        sink.recordQuota();
+        scheduler.renderedFrames.increment();
+
+        int requested = sink.getFrameRequested();
+        if (requested > 0) {
+            emitter.lastRequested = requested;
+        }
+        budget.record(emitter.player, requested, sink.getFrameEmitted(), stride > 1);
+    }
+
+    private void fail(CosmeticEmitter emitter, Exception e) {
+        scheduler.getLogger().log(Level.WARNING, "Failed to render cosmetic " + emitter.cosmetic.getId()
+                + " for " + emitter.player.getName() + ", stopping it", e);
+        unregister(emitter);
+    }
+
+    private void queueAsync(CosmeticEmitter emitter, long frame) {
+        if (emitter.recording == null) {
+            emitter.recording = new ParticleRecording();
+        }
+        if (queuedCount == queued.length) {
+            queued = Arrays.copyOf(queued, queuedCount * 2);
+        }
+        emitter.asyncPending = true;
+        emitter.asyncFrame = frame;
+        emitter.asyncError = null;
+        queued[queuedCount++] = emitter;
+    }
+
+    private void submitAsyncFrames(ForkJoinPool pool) {
+        if (queuedCount == 0) {
+            return;
+        }
+
+        // Swap buffers, the pool owns the submitted array until its task is done
+        CosmeticEmitter[] submitted = queued;
+        queued = inFlight;
+        inFlight = submitted;
+        inFlightCount = queuedCount;
+        queuedCount = 0;
+
+        try {
+            geometryTask = pool.submit(new GeometryTask(inFlight, 0, inFlightCount));
+            scheduler.asyncFrames.add(inFlightCount);
+        } catch (RejectedExecutionException e) {
+            // Pool is shutting down, drop these frames
+            releaseInFlight();
+        }
+    }
+
+    private void replayAsyncFrames(QualityController.Tier tier) {
+        if (geometryTask == null) {
+            return;
+        }
+        geometryTask = null;
+
+        for (int i = 0; i < inFlightCount; i++) {
+            CosmeticEmitter emitter = inFlight[i];
+            inFlight[i] = null;
+            emitter.asyncPending = false;
+            if (emitter.slot < 0 || tier == QualityController.Tier.SUSPENDED) {
+                // Cancelled while its frame was being computed, or rendering is suspended
+                continue;
+            }
+
+            try {
+                if (emitter.asyncError != null) {
+                    throw emitter.asyncError;
+                }
+
+                // Viewers are looked up again around the snapshot position
+                viewerIndex.collect(emitter.player, emitter.anchor, scheduler.getMaxDistanceSq(),
+                        scheduler.isShowOwnEffects(), viewers);
+                if (viewers.size > 0) {
+                    emit(emitter, tier, emitter.asyncFrame, emitter.recording);
+                }
+            } catch (Exception e) {
+                fail(emitter, e);
+            } finally {
+                emitter.asyncError = null;
+                emitter.recording.reset();
+                sink.end();
+                viewers.clear();
+            }
+        }
+        inFlightCount = 0;
+    }
+
+    private void releaseInFlight() {
+        for (int i = 0; i < inFlightCount; i++) {
+            inFlight[i].asyncPending = false;
+            inFlight[i] = null;
+        }
+        inFlightCount = 0;
+        geometryTask = null;
+    }
+}
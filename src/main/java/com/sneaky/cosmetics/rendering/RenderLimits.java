@@ -0,0 +1,95 @@
+package com.sneaky.cosmetics.rendering;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits shared by every render lane, the server-wide particle budget of a tick and the particles each viewer received
+ * On Folia lanes render on different region threads, so everything in here may be used concurrently
+ * The global loop starts every tick, lanes claim from the same counters whichever thread they run on
+ */
+final class RenderLimits {
+
+    private final Set<UUID> lowEndViewers = ConcurrentHashMap.newKeySet();
+    private final Map<UUID, ViewerUsage> viewers = new ConcurrentHashMap<>();
+    private final AtomicInteger tickEmitted = new AtomicInteger();
+    private volatile long tick;
+
+    /**
+     * Start a new tick, called by the global loop before any lane renders it
+     */
+    void advance(long tick) {
+        tickEmitted.set(0);
+        this.tick = tick;
+
+        // Drop entries of viewers that stopped receiving particles
+        if (tick % 200 == 0) {
+            viewers.values().removeIf(usage -> usage.tick < tick - 1);
+        }
+    }
+
+    /**
+     * Particles emitted by every lane in the current tick
+     */
+    int getTickEmitted() {
+        return tickEmitted.get();
+    }
+
+    void recordEmitted(int emitted) {
+        if (emitted > 0) {
+            tickEmitted.addAndGet(emitted);
+        }
+    }
+
+    /**
+     * Take particles from a viewer's quota for the current tick
+     * @return false, with nothing taken, when they do not fit the quota
+     */
+    boolean claim(UUID viewer, int particles, int quota) {
+        ViewerUsage usage = viewers.computeIfAbsent(viewer, uuid -> new ViewerUsage());
+        synchronized (usage) {
+            if (usage.tick != tick) {
+                usage.tick = tick;
+                usage.used = 0;
+            }
+            if (usage.used + particles > quota) {
+                return false;
+            }
+            usage.used += particles;
+            return true;
+        }
+    }
+
+    void setLowEnd(UUID viewer, boolean lowEnd) {
+        if (lowEnd) {
+            lowEndViewers.add(viewer);
+        } else {
+            lowEndViewers.remove(viewer);
+        }
+    }
+
+    boolean isLowEnd(UUID viewer) {
+        return lowEndViewers.contains(viewer);
+    }
+
+    /**
+     * Forget a viewer, called when they quit
+     */
+    void forget(UUID viewer) {
+        viewers.remove(viewer);
+        lowEndViewers.remove(viewer);
+    }
+
+    void clear() {
+        viewers.clear();
+        tickEmitted.set(0);
+    }
+
+    private static final class ViewerUsage {
+        private long tick = -1;
+        private int used;
+    }
+}
@@ -0,0 +1,41 @@
+package com.sneaky.cosmetics.rendering;
+
+/**
+ * Quantised sine/cosine lookup for rotating precomputed geometry by a player's yaw
+ * One step is 360 / STEPS degrees, well below what is visible on a particle effect
+ */
+public final class TrigTable {
+
+    public static final int STEPS = 1024;
+    private static final int MASK = STEPS - 1;
+    private static final double STEPS_PER_DEGREE = STEPS / 360.0;
+
+    private static final double[] SIN = new double[STEPS];
+    private static final double[] COS = new double[STEPS];
+
+    static {
+        for (int i = 0; i < STEPS; i++) {
+            double radians = 2 * Math.PI * i / STEPS;
+            SIN[i] = Math.sin(radians);
+            COS[i] = Math.cos(radians);
+        }
+    }
+
+    private TrigTable() {
+    }
+
+    /**
+     * Quantise an angle in degrees (any range, e.g. a yaw) to a table index
+     */
+    public static int index(double degrees) {
+        return (int) Math.round(degrees * STEPS_PER_DEGREE) & MASK;
+    }
+
+    public static double sin(int index) {
+        return SIN[index & MASK];
+    }
+
+    public static double cos(int index) {
+        return COS[index & MASK];
+    }
+}
@@ -0,0 +1,65 @@
+package com.sneaky.cosmetics.rendering;
+
+import com.sneaky.cosmetics.utils.PlayerSpatialIndex;
+import com.sneaky.cosmetics.utils.SchedulerAdapter;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+/**
+ * Finds the viewers of an emitter through the shared player grid
+ * Only the grid cells around the emitter are visited instead of every player in its world
+ * On Folia only viewers owned by the rendering region are collected, players across a region border are skipped
+ */
+final class ViewerIndex implements PlayerSpatialIndex.PlayerVisitor {
+
+    private final PlayerSpatialIndex players;
+    private final SchedulerAdapter adapter;
+    private final boolean regionThreaded;
+
+    // State of the query in progress
+    private Player source;
+    private boolean includeSource;
+    private ViewerList out;
+
+    ViewerIndex(PlayerSpatialIndex players, SchedulerAdapter adapter, boolean regionThreaded) {
+        this.players = players;
+        this.adapter = adapter;
+        this.regionThreaded = regionThreaded;
+    }
+
+    /**
+     * Collect every player within range of an emitter
+     * @param source the player wearing the cosmetic
+     * @param anchor the emitter position
+     * @param maxDistanceSq squared view distance
+     * @param includeSource whether the wearer receives their own particles
+     */
+    void collect(Player source, Location anchor, double maxDistanceSq, boolean includeSource, ViewerList out) {
+        if (anchor.getWorld() == null) {
+            return;
+        }
+
+        this.source = source;
+        this.includeSource = includeSource;
+        this.out = out;
+        try {
+            players.forEachNearby(anchor.getWorld(), anchor.getX(), anchor.getY(), anchor.getZ(),
+                    Math.sqrt(maxDistanceSq), this);
+        } finally {
+            this.source = null;
+            this.out = null;
+        }
+    }
+
+    @Override
+    public void visit(Player viewer, double distanceSq) {
+        if (viewer == source) {
+            if (includeSource) {
+                out.add(viewer, 0);
+            }
+        } else if ((!regionThreaded || adapter.isOwnedByCurrentRegion(viewer)) && viewer.canSee(source)) {
+            // Vanished wearers are not revealed through their particles
+            out.add(viewer, distanceSq);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.sneaky.cosmetics.rendering;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of players receiving an emitter's particles, with their squared distance to the emitter
+ */
+final class ViewerList {
+
+    Player[] players = new Player[16];
+    double[] distanceSq = new double[16];
+    int size;
+
+    void add(Player player, double distSq) {
+        if (size == players.length) {
+            players = Arrays.copyOf(players, size * 2);
+            distanceSq = Arrays.copyOf(distanceSq, size * 2);
+        }
+        players[size] = player;
+        distanceSq[size++] = distSq;
+    }
+
+    void clear() {
+        // Drop player references so quit players are not kept alive
+        Arrays.fill(players, 0, size, null);
+        size = 0;
+    }
+}
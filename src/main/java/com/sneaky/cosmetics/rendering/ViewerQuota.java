@@ -0,0 +1,205 @@
+package com.sneaky.cosmetics.rendering;
+
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-viewer particle quota, protects clients looking at a crowd of cosmetics
+ * Every frame rendered in a tick is recorded with the particles each of its viewers would receive,
+ * and before the queue is sent the frames of a viewer over quota are ranked, their own cosmetics first
+ * and then by distance, and the viewer is taken out of the audiences of every frame that does not fit
+ * What a viewer received is counted in the shared RenderLimits, so the frames of every lane in a tick use up
+ * the same quota, ranking only applies among the frames of one lane
+ */
+final class ViewerQuota {
+
+    private final Map<Player, Candidates> candidates = new HashMap<>();
+    private final RenderLimits limits;
+
+    private boolean enabled;
+    private int maxPerViewer;
+    private int lowEndPerViewer;
+
+    private long tick;
+
+    // Audiences of the frames rendered this tick, indexed by frame id
+    private List<?>[] nearAudiences = new List<?>[256];
+    private List<?>[] fullAudiences = new List<?>[256];
+    private List<?>[] farAudiences = new List<?>[256];
+    private int frameCount;
+
+    // Statistics
+    private int limitedViewers;
+    private long droppedFrames;
+
+    ViewerQuota(RenderLimits limits) {
+        this.limits = limits;
+    }
+
+    void configure(boolean enabled, int maxPerViewer, int lowEndPerViewer) {
+        this.enabled = enabled;
+        this.maxPerViewer = Math.max(1, maxPerViewer);
+        this.lowEndPerViewer = Math.max(1, Math.min(this.maxPerViewer, lowEndPerViewer));
+    }
+
+    /**
+     * Start a new tick, frames of the previous tick have already been sent
+     */
+    void advance(long tick) {
+        releaseFrames();
+        this.tick = tick;
+
+        // Drop entries of viewers that stopped receiving particles
+        if (tick % 200 == 0) {
+            candidates.values().removeIf(entry -> entry.tick < tick - 1);
+        }
+    }
+
+    /**
+     * Start recording a frame with the audience lists its particles were queued with
+     * @return the frame id to pass to record(), or -1 when the quota is disabled
+     */
+    int beginFrame(List<?> near, List<?> full, List<?> far) {
+        if (!enabled) {
+            return -1;
+        }
+        if (frameCount == nearAudiences.length) {
+            nearAudiences = Arrays.copyOf(nearAudiences, frameCount * 2);
+            fullAudiences = Arrays.copyOf(fullAudiences, frameCount * 2);
+            farAudiences = Arrays.copyOf(farAudiences, frameCount * 2);
+        }
+        nearAudiences[frameCount] = near;
+        fullAudiences[frameCount] = full;
+        farAudiences[frameCount] = far;
+        return frameCount++;
+    }
+
+    /**
+     * Record the particles one viewer receives from a frame
+     * @param self whether the viewer is the wearer of the cosmetic
+     */
+    void record(int frame, Player viewer, boolean self, double distanceSq, int particles) {
+        if (frame < 0 || particles <= 0) {
+            return;
+        }
+        Candidates entry = candidates.computeIfAbsent(viewer, key -> new Candidates());
+        if (entry.tick != tick) {
+            entry.tick = tick;
+            entry.size = 0;
+            entry.total = 0;
+        }
+        // Own cosmetics rank before everything else, then the closest frames first
+        long priority = self ? 0L : Float.floatToIntBits((float) distanceSq) + 1L;
+        entry.add(priority, frame, particles);
+    }
+
+    /**
+     * Take viewers out of the frames that do not fit their quota, called right before the queue is sent
+     */
+    void enforce() {
+        limitedViewers = 0;
+        if (!enabled || frameCount == 0) {
+            return;
+        }
+
+        for (Map.Entry<Player, Candidates> mapEntry : candidates.entrySet()) {
+            Candidates entry = mapEntry.getValue();
+            if (entry.tick != tick) {
+                continue;
+            }
+            Player viewer = mapEntry.getKey();
+            UUID uuid = viewer.getUniqueId();
+            int quota = limits.isLowEnd(uuid) ? lowEndPerViewer : maxPerViewer;
+            if (limits.claim(uuid, entry.total, quota)) {
+                continue;
+            }
+
+            limitedViewers++;
+            entry.sort();
+            for (int i = 0; i < entry.size; i++) {
+                if (limits.claim(uuid, entry.particlesOf(i), quota)) {
+                    // Smaller frames further down the ranking may still fit
+                    continue;
+                }
+                int frame = entry.frameOf(i);
+                remove(nearAudiences[frame], viewer);
+                remove(fullAudiences[frame], viewer);
+                remove(farAudiences[frame], viewer);
+                droppedFrames++;
+            }
+        }
+    }
+
+    private static void remove(List<?> audience, Player viewer) {
+        if (audience != null) {
+            audience.remove(viewer);
+        }
+    }
+
+    private void releaseFrames() {
+        Arrays.fill(nearAudiences, 0, frameCount, null);
+        Arrays.fill(fullAudiences, 0, frameCount, null);
+        Arrays.fill(farAudiences, 0, frameCount, null);
+        frameCount = 0;
+    }
+
+    void forget(Player viewer) {
+        candidates.remove(viewer);
+    }
+
+    void clear() {
+        candidates.clear();
+        releaseFrames();
+    }
+
+    int getLimitedViewers() {
+        return limitedViewers;
+    }
+
+    long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Frames one viewer received in the current tick
+     * Keys pack the priority in the high and the insertion index in the low half, so a primitive sort ranks them
+     */
+    private static final class Candidates {
+        private long tick = -1;
+        private long[] keys = new long[16];
+        private int[] frameIds = new int[16];
+        private int[] particles = new int[16];
+        private int size;
+        private int total;
+
+        private void add(long priority, int frame, int count) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                frameIds = Arrays.copyOf(frameIds, size * 2);
+                particles = Arrays.copyOf(particles, size * 2);
+            }
+            keys[size] = (priority << 32) | size;
+            frameIds[size] = frame;
+            particles[size] = count;
+            size++;
+            total += count;
+        }
+
+        private void sort() {
+            Arrays.sort(keys, 0, size);
+        }
+
+        private int frameOf(int rank) {
+            return frameIds[(int) keys[rank]];
+        }
+
+        private int particlesOf(int rank) {
+            return particles[(int) keys[rank]];
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.sneaky.cosmetics.rendering;
+
+import org.bukkit.Particle;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.List;
+
+/**
+ * Particle sink of the render scheduler, routes the particles of the emitter currently rendering to its viewers
+ * Particles are sent only to the viewers within cosmetics.max-effect-distance instead of
+ * being broadcast to everyone tracking the wearer, and are thinned out when the emitter is over budget
+ *
+ * Each viewer gets a level of detail by distance: near viewers see every point, mid-range viewers
+ * every other point of the same frame, and far viewers a single burst summarising the whole frame
+ *
+ * Nothing is sent right away, particles are queued in the tick's ParticleQueue together with their audience,
+ * and every frame is recorded with the viewer quota so crowded viewers can be trimmed before the queue is sent
+ */
+final class ViewerSink extends ParticleSink {
+
+    // Largest spread and particle count of the burst shown to far viewers
+    private static final double MAX_BURST_SPREAD = 1.5;
+    private static final int MAX_BURST_COUNT = 8;
+
+    private final ParticleQueue queue;
+    private final ViewerQuota quota;
+    private World world;
+    private Player source;
+    private ViewerList viewers;
+    private boolean distanceLod;
+    private double nearDistanceSq;
+    private double reduceDistanceSq;
+
+    // Audiences of the current frame: near viewers, near and mid-range viewers, far viewers
+    private List<Player> nearAudience;
+    private List<Player> fullAudience;
+    private List<Player> farAudience;
+
+    // Budget of the current frame, only every stride-th spawn call is kept
+    private int stride = 1;
+    private int allowance = Integer.MAX_VALUE;
+    private int callIndex;
+    private int keptCalls;
+    private int frameRequested;
+    private int frameEmitted;
+    private int fullEmitted;
+    private int burstCount;
+
+    // Summary of the current frame for far viewers
+    private Particle burstParticle;
+    private Object burstData;
+    private double burstExtra;
+    private double minX, minY, minZ, maxX, maxY, maxZ;
+
+    // Statistics
+    private long particleCalls;
+    private long packetsSent;
+    private long farBursts;
+
+    ViewerSink(ParticleQueue queue, ViewerQuota quota) {
+        this.queue = queue;
+        this.quota = quota;
+    }
+
+    void configure(boolean distanceLod, double nearDistance, double reduceDistance) {
+        this.distanceLod = distanceLod;
+        this.nearDistanceSq = nearDistance * nearDistance;
+        this.reduceDistanceSq = reduceDistance * reduceDistance;
+    }
+
+    void begin(World world, Player source, ViewerList viewers, int stride, int allowance) {
+        this.world = world;
+        this.source = source;
+        this.viewers = viewers;
+        this.stride = stride;
+        this.allowance = allowance;
+        this.callIndex = 0;
+        this.keptCalls = 0;
+        this.frameRequested = 0;
+        this.frameEmitted = 0;
+        this.fullEmitted = 0;
+        this.burstCount = 0;
+        this.burstParticle = null;
+        this.burstData = null;
+
+        // Split the viewers into level of detail bands once per frame
+        nearAudience = queue.audience();
+        fullAudience = queue.audience();
+        farAudience = null;
+        Player[] players = viewers.players;
+        double[] distanceSq = viewers.distanceSq;
+        for (int i = 0; i < viewers.size; i++) {
+            if (!distanceLod || distanceSq[i] <= nearDistanceSq) {
+                nearAudience.add(players[i]);
+                fullAudience.add(players[i]);
+            } else if (distanceSq[i] <= reduceDistanceSq) {
+                fullAudience.add(players[i]);
+            } else {
+                if (farAudience == null) {
+                    farAudience = queue.audience();
+                }
+                farAudience.add(players[i]);
+            }
+        }
+    }
+
+    void end() {
+        this.world = null;
+        this.source = null;
+        this.viewers = null;
+        this.nearAudience = null;
+        this.fullAudience = null;
+        this.farAudience = null;
+        this.burstParticle = null;
+        this.burstData = null;
+    }
+
+    @Override
+    public <T> void spawn(Particle particle, double x, double y, double z, int count,
+                          double offsetX, double offsetY, double offsetZ, double extra, T data) {
+        if (world == null) {
+            return;
+        }
+
+        particleCalls++;
+
+        // Directional particles use a count of 0 but still show one particle
+        int particles = Math.max(1, count);
+        frameRequested += particles;
+        if (callIndex++ % stride != 0 || particles > allowance - frameEmitted) {
+            return;
+        }
+        frameEmitted += particles;
+        track(particle, x, y, z, extra, data);
+
+        // Far viewers only get the burst, mid-range viewers every other point
+        List<Player> audience = (keptCalls++ & 1) == 0 ? fullAudience : nearAudience;
+        if (audience == fullAudience) {
+            fullEmitted += particles;
+        }
+        queue.add(particle, world, x, y, z, count, offsetX, offsetY, offsetZ, extra, data, audience);
+        packetsSent += audience.size();
+    }
+
+    private void track(Particle particle, double x, double y, double z, double extra, Object data) {
+        if (!distanceLod) {
+            return;
+        }
+        if (burstParticle == null) {
+            burstParticle = particle;
+            burstData = data;
+            burstExtra = extra;
+            minX = maxX = x;
+            minY = maxY = y;
+            minZ = maxZ = z;
+            return;
+        }
+        minX = Math.min(minX, x);
+        maxX = Math.max(maxX, x);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+        minZ = Math.min(minZ, z);
+        maxZ = Math.max(maxZ, z);
+    }
+
+    /**
+     * Queue one burst covering the frame that was just rendered for the far viewers
+     */
+    void flushFarViewers() {
+        if (world == null || farAudience == null || burstParticle == null) {
+            return;
+        }
+
+        double x = (minX + maxX) * 0.5;
+        double y = (minY + maxY) * 0.5;
+        double z = (minZ + maxZ) * 0.5;
+        double spreadX = Math.min(MAX_BURST_SPREAD, (maxX - minX) * 0.25);
+        double spreadY = Math.min(MAX_BURST_SPREAD, (maxY - minY) * 0.25);
+        double spreadZ = Math.min(MAX_BURST_SPREAD, (maxZ - minZ) * 0.25);
+        int count = Math.min(MAX_BURST_COUNT, Math.max(1, frameEmitted / 4));
+        burstCount = count;
+
+        queue.add(burstParticle, world, x, y, z, count, spreadX, spreadY, spreadZ, burstExtra, burstData, farAudience);
+        packetsSent += farAudience.size();
+        farBursts += farAudience.size();
+    }
+
+    /**
+     * Record how many particles each viewer receives from the frame that was just rendered
+     * Called after flushFarViewers() so far viewers are counted with their burst
+     */
+    void recordQuota() {
+        if (world == null || frameEmitted == 0) {
+            return;
+        }
+        int frame = quota.beginFrame(nearAudience, fullAudience, farAudience);
+        if (frame < 0) {
+            return;
+        }
+
+        Player[] players = viewers.players;
+        double[] distanceSq = viewers.distanceSq;
+        for (int i = 0; i < viewers.size; i++) {
+            int particles;
+            if (!distanceLod || distanceSq[i] <= nearDistanceSq) {
+                particles = frameEmitted;
+            } else if (distanceSq[i] <= reduceDistanceSq) {
+                particles = fullEmitted;
+            } else {
+                particles = burstCount;
+            }
+            quota.record(frame, players[i], players[i] == source, distanceSq[i], particles);
+        }
+    }
+
+    /**
+     * Get the number of particles the current frame asked for
+     */
+    int getFrameRequested() {
+        return frameRequested;
+    }
+
+    /**
+     * Get the number of particles the current frame was allowed to spawn
+     */
+    int getFrameEmitted() {
+        return frameEmitted;
+    }
+
+    /**
+     * Get the number of spawn calls made by emitters
+     */
+    long getParticleCalls() {
+        return particleCalls;
+    }
+
+    /**
+     * Get the number of particle packets queued for viewers
+     */
+    long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /**
+     * Get the number of single bursts sent to far viewers instead of the full effect
+     */
+    long getFarBursts() {
+        return farBursts;
+    }
+}
@@ -0,0 +1,236 @@
+package com.sneaky.cosmetics.utils;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world grid of online player positions for proximity queries
+ * Positions are updated from movement events and refreshed periodically for players moved by vehicles,
+ * so radius lookups only visit the cells around the center instead of every player in the world
+ */
+public final class PlayerSpatialIndex {
+
+    // 32 block cells, a 20 block radius touches at most 3x3 cells
+    private static final int CELL_SHIFT = 5;
+
+    private final Map<World, Map<Long, Set<Entry>>> worlds = new ConcurrentHashMap<>();
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the players found by a radius query
+     */
+    @FunctionalInterface
+    public interface PlayerVisitor {
+        void visit(Player player, double distanceSq);
+    }
+
+    /**
+     * Receives the last recorded position of an indexed player
+     */
+    @FunctionalInterface
+    public interface PositionVisitor {
+        void visit(UUID uuid, World world, double x, double z);
+    }
+
+    /**
+     * Record a player's current position
+     */
+    public void update(Player player) {
+        update(player, player.getLocation());
+    }
+
+    /**
+     * Record a player's position, e.g. the destination of a move event
+     */
+    public void update(Player player, Location location) {
+        World world = location.getWorld();
+        if (world == null) {
+            return;
+        }
+
+        Entry entry = entries.computeIfAbsent(player.getUniqueId(), uuid -> new Entry(player));
+        long cell = cellKey(location.getBlockX() >> CELL_SHIFT, location.getBlockZ() >> CELL_SHIFT);
+        if (entry.world != world || entry.cell != cell) {
+            unlink(entry);
+            entry.world = world;
+            entry.cell = cell;
+            worlds.computeIfAbsent(world, w -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(cell, c -> ConcurrentHashMap.newKeySet())
+                    .add(entry);
+        }
+        entry.x = location.getX();
+        entry.y = location.getY();
+        entry.z = location.getZ();
+    }
+
+    /**
+     * Forget a player, called when they quit
+     */
+    public void remove(Player player) {
+        Entry entry = entries.remove(player.getUniqueId());
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Re-read the position of every online player and drop empty cells
+     * Covers movement that fires no move event, such as riding a vehicle
+     */
+    public void refresh(Iterable<? extends Player> online) {
+        prune();
+        for (Player player : online) {
+            refresh(player);
+        }
+    }
+
+    /**
+     * Drop empty cells, players are linked again by their next refresh
+     */
+    public void prune() {
+        for (Map<Long, Set<Entry>> cells : worlds.values()) {
+            cells.values().removeIf(Set::isEmpty);
+        }
+        worlds.values().removeIf(Map::isEmpty);
+    }
+
+    /**
+     * Re-read the position of one player, on Folia from the thread that owns them
+     */
+    public void refresh(Player player) {
+        update(player);
+        // A cell dropped while a player was being added to it loses the player, link them again
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry != null && entry.world != null) {
+            worlds.computeIfAbsent(entry.world, w -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(entry.cell, c -> ConcurrentHashMap.newKeySet())
+                    .add(entry);
+        }
+    }
+
+    /**
+     * Visit every player within radius of a point, using squared distances
+     */
+    public void forEachNearby(World world, double x, double y, double z, double radius, PlayerVisitor visitor) {
+        Map<Long, Set<Entry>> cells = world != null ? worlds.get(world) : null;
+        if (cells == null) {
+            return;
+        }
+
+        double radiusSq = radius * radius;
+        int minX = ((int) Math.floor(x - radius)) >> CELL_SHIFT;
+        int maxX = ((int) Math.floor(x + radius)) >> CELL_SHIFT;
+        int minZ = ((int) Math.floor(z - radius)) >> CELL_SHIFT;
+        int maxZ = ((int) Math.floor(z + radius)) >> CELL_SHIFT;
+
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                Set<Entry> cell = cells.get(cellKey(cx, cz));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell) {
+                    double dx = entry.x - x;
+                    double dy = entry.y - y;
+                    double dz = entry.z - z;
+                    double distanceSq = dx * dx + dy * dy + dz * dz;
+                    if (distanceSq <= radiusSq) {
+                        visitor.visit(entry.player, distanceSq);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit the last recorded position of every indexed player
+     * Only reads the index, so it is safe from any thread
+     */
+    public void forEachPosition(PositionVisitor visitor) {
+        for (Map.Entry<UUID, Entry> mapEntry : entries.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            World world = entry.world;
+            if (world != null) {
+                visitor.visit(mapEntry.getKey(), world, entry.x, entry.z);
+            }
+        }
+    }
+
+    /**
+     * Visit every player within radius of a location
+     */
+    public void forEachNearby(Location center, double radius, PlayerVisitor visitor) {
+        forEachNearby(center.getWorld(), center.getX(), center.getY(), center.getZ(), radius, visitor);
+    }
+
+    /**
+     * Get every player within radius of a location, the center player included if they are in range
+     */
+    public List<Player> getNearbyPlayers(Location center, double radius) {
+        List<Player> nearby = new ArrayList<>();
+        forEachNearby(center, radius, (player, distanceSq) -> nearby.add(player));
+        return nearby;
+    }
+
+    /**
+     * Whether any player other than the excluded one is within radius of a location
+     */
+    public boolean hasPlayerNearby(Location center, double radius, Player exclude) {
+        boolean[] found = new boolean[1];
+        forEachNearby(center, radius, (player, distanceSq) -> {
+            if (player != exclude) {
+                found[0] = true;
+            }
+        });
+        return found[0];
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        worlds.clear();
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.world == null) {
+            return;
+        }
+        Map<Long, Set<Entry>> cells = worlds.get(entry.world);
+        if (cells != null) {
+            Set<Entry> cell = cells.get(entry.cell);
+            if (cell != null) {
+                // Empty cells are dropped by refresh()
+                cell.remove(entry);
+            }
+        }
+        entry.world = null;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    private static final class Entry {
+        private final Player player;
+        private volatile World world;
+        private long cell;
+        private volatile double x;
+        private volatile double y;
+        private volatile double z;
+
+        private Entry(Player player) {
+            this.player = player;
+        }
+    }
+}
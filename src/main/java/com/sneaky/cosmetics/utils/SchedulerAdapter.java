@@ -4,9 +4,11 @@ import com.sneaky.cosmetics.SneakyCosmetics;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 /**
  * Scheduler adapter that provides compatibility between Paper/Spigot and Folia
@@ -24,7 +26,8 @@ public class SchedulerAdapter {
     
     private boolean detectFolia() {
         try {
-            Class.forName("io.papermc.paper.threadedregions.scheduler.GlobalRegionScheduler");
+            // The region scheduler interfaces ship with Paper too, only Folia has the regionized server
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
             return true;
         } catch (ClassNotFoundException e) {
             return false;
@@ -35,6 +38,15 @@ public class SchedulerAdapter {
         return isFolia;
     }
     
+    /**
+     * Handle of a task scheduled through the adapter, cancellable on both Paper and Folia
+     */
+    public interface Task {
+        void cancel();
+        
+        boolean isCancelled();
+    }
+    
     /**
      * Run a task on the main thread
      */
@@ -151,6 +163,21 @@ public class SchedulerAdapter {
         }
     }
     
+    /**
+     * Run a delayed task at a specific location (Folia region-specific)
+     */
+    public Task runTaskLaterAt(Location location, Runnable task, long delay) {
+        if (isFolia) {
+            FoliaTask handle = new FoliaTask();
+            handle.scheduled = Bukkit.getRegionScheduler().runDelayed(plugin, location, scheduledTask -> task.run(),
+                Math.max(1L, delay));
+            return handle;
+        }
+        PaperTask handle = new PaperTask(null, ignored -> task.run(), null);
+        handle.runTaskLater(plugin, delay);
+        return handle;
+    }
+    
     /**
      * Run a task for a specific entity (Folia entity-specific)
      */
@@ -167,6 +194,113 @@ public class SchedulerAdapter {
         }
     }
     
+    /**
+     * Run a delayed task on the thread that owns an entity
+     * On Folia this uses the entity scheduler so the task follows the entity across regions,
+     * on Paper it falls back to the shared scheduler
+     * @param retired called instead of the task when the entity is removed first, may be null
+     */
+    public Task runTaskLaterForEntity(Entity entity, Runnable task, Runnable retired, long delay) {
+        if (isFolia) {
+            FoliaTask handle = new FoliaTask();
+            handle.scheduled = entity.getScheduler().runDelayed(plugin, scheduledTask -> task.run(),
+                retired, Math.max(1L, delay));
+            return handle.retireIfMissing(retired);
+        }
+        PaperTask handle = new PaperTask(entity, ignored -> task.run(), retired);
+        handle.runTaskLater(plugin, delay);
+        return handle;
+    }
+    
+    /**
+     * Run a repeating task on the thread that owns an entity
+     * The task stops by itself once the entity is removed, calling retired if given
+     */
+    public Task runTaskTimerForEntity(Entity entity, Consumer<Task> task, Runnable retired, long delay, long period) {
+        if (isFolia) {
+            FoliaTask handle = new FoliaTask();
+            handle.scheduled = entity.getScheduler().runAtFixedRate(plugin, scheduledTask -> task.accept(handle),
+                retired, Math.max(1L, delay), Math.max(1L, period));
+            return handle.retireIfMissing(retired);
+        }
+        PaperTask handle = new PaperTask(entity, task, retired);
+        handle.runTaskTimer(plugin, delay, period);
+        return handle;
+    }
+    
+    /**
+     * Run a repeating task on the global region, returning a handle that can cancel it on Folia too
+     */
+    public Task runGlobalTaskTimer(Consumer<Task> task, long delay, long period) {
+        if (isFolia) {
+            FoliaTask handle = new FoliaTask();
+            handle.scheduled = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, scheduledTask -> task.accept(handle),
+                Math.max(1L, delay), Math.max(1L, period));
+            return handle;
+        }
+        PaperTask handle = new PaperTask(null, task, null);
+        handle.runTaskTimer(plugin, delay, period);
+        return handle;
+    }
+    
+    /**
+     * Folia task, the entity scheduler returns null when the entity is already gone
+     */
+    private static final class FoliaTask implements Task {
+        private volatile io.papermc.paper.threadedregions.scheduler.ScheduledTask scheduled;
+        private volatile boolean cancelled;
+        
+        private Task retireIfMissing(Runnable retired) {
+            if (scheduled == null) {
+                cancelled = true;
+                if (retired != null) {
+                    retired.run();
+                }
+            }
+            return this;
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return cancelled || (scheduled != null && scheduled.isCancelled());
+        }
+    }
+    
+    /**
+     * Paper task, when bound to an entity it retires itself once the entity is no longer valid
+     */
+    private static final class PaperTask extends BukkitRunnable implements Task {
+        private final Entity entity;
+        private final Consumer<Task> task;
+        private final Runnable retired;
+        
+        private PaperTask(Entity entity, Consumer<Task> task, Runnable retired) {
+            this.entity = entity;
+            this.task = task;
+            this.retired = retired;
+        }
+        
+        @Override
+        public void run() {
+            if (entity != null && !entity.isValid()) {
+                cancel();
+                if (retired != null) {
+                    retired.run();
+                }
+                return;
+            }
+            task.accept(this);
+        }
+    }
+    
     /**
      * Execute a task and return a CompletableFuture
      */
@@ -201,6 +335,16 @@ public class SchedulerAdapter {
         }
     }
     
+    /**
+     * Check if the current thread may touch an entity, on Folia the thread of the region that owns it
+     */
+    public boolean isOwnedByCurrentRegion(Entity entity) {
+        if (isFolia) {
+            return Bukkit.isOwnedByCurrentRegion(entity);
+        }
+        return Bukkit.isPrimaryThread();
+    }
+    
     /**
      * Ensure a task runs on the main thread
      */
@@ -0,0 +1,112 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares the scalar point transform of PointTransform with the Vector API kernel it replaced
+ * Not part of the plugin build, run it with the JDK source launcher from the repository root:
+ *
+ *   java --add-modules jdk.incubator.vector tools/benchmarks/PointTransformBenchmark.java
+ *
+ * Point counts match the shapes the cosmetics render: a small pattern, wings, a ring aura and a large pattern
+ * Every size is warmed up for two rounds before the third is measured, results are nanoseconds per call
+ */
+public final class PointTransformBenchmark {
+
+    private static final int[] POINT_COUNTS = {16, 48, 120, 400};
+    private static final int ROUNDS = 3;
+    private static final int POINTS_PER_ROUND = 20_000_000;
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // Gathers every third element, so each component of a lane's point lines up in one vector
+    private static final int[] TRIPLES = new int[LANES];
+
+    static {
+        for (int i = 0; i < LANES; i++) {
+            TRIPLES[i] = i * 3;
+        }
+    }
+
+    private interface Kernel {
+        void transform(double[] src, double[] dst, int points,
+                       double originX, double originY, double originZ,
+                       double xa, double xc, double za, double zc);
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Vector species: " + SPECIES + " (" + LANES + " lanes)");
+        Kernel[] kernels = {PointTransformBenchmark::scalar, PointTransformBenchmark::vector};
+        String[] names = {"scalar", "vector"};
+
+        for (int points : POINT_COUNTS) {
+            double[] src = new double[points * 3];
+            double[] dst = new double[points * 3];
+            for (int i = 0; i < src.length; i++) {
+                src[i] = Math.random();
+            }
+
+            int iterations = POINTS_PER_ROUND / points;
+            double[] measured = new double[kernels.length];
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int k = 0; k < kernels.length; k++) {
+                    // Read back one output per call so the work can not be dropped
+                    double sink = 0;
+                    long start = System.nanoTime();
+                    for (int i = 0; i < iterations; i++) {
+                        kernels[k].transform(src, dst, points, i, 2, 3, 0.5, 0.3, 0.2, 0.9);
+                        sink += dst[i % dst.length];
+                    }
+                    measured[k] = (double) (System.nanoTime() - start) / iterations;
+                    if (sink == Double.MIN_VALUE) {
+                        System.out.println();
+                    }
+                }
+            }
+            System.out.printf("%4d points: %s %.0f ns, %s %.0f ns%n", points, names[0], measured[0], names[1], measured[1]);
+        }
+    }
+
+    /**
+     * Same loop as PointTransform.transform
+     */
+    private static void scalar(double[] src, double[] dst, int points,
+                               double originX, double originY, double originZ,
+                               double xa, double xc, double za, double zc) {
+        scalarRange(src, dst, 0, points, originX, originY, originZ, xa, xc, za, zc);
+    }
+
+    private static void scalarRange(double[] src, double[] dst, int from, int to,
+                                    double originX, double originY, double originZ,
+                                    double xa, double xc, double za, double zc) {
+        for (int p = from * 3, end = to * 3; p < end; p += 3) {
+            double a = src[p];
+            double c = src[p + 2];
+            dst[p] = a * xa + c * xc + originX;
+            dst[p + 1] = src[p + 1] + originY;
+            dst[p + 2] = a * za + c * zc + originZ;
+        }
+    }
+
+    /**
+     * The removed VectorTransformKernel, one point per lane
+     */
+    private static void vector(double[] src, double[] dst, int points,
+                               double originX, double originY, double originZ,
+                               double xa, double xc, double za, double zc) {
+        int bound = SPECIES.loopBound(points);
+        for (int i = 0; i < bound; i += LANES) {
+            int offset = i * 3;
+            DoubleVector a = DoubleVector.fromArray(SPECIES, src, offset, TRIPLES, 0);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, src, offset + 1, TRIPLES, 0);
+            DoubleVector c = DoubleVector.fromArray(SPECIES, src, offset + 2, TRIPLES, 0);
+
+            a.mul(xa).add(c.mul(xc)).add(originX).intoArray(dst, offset, TRIPLES, 0);
+            b.add(originY).intoArray(dst, offset + 1, TRIPLES, 0);
+            a.mul(za).add(c.mul(zc)).add(originZ).intoArray(dst, offset + 2, TRIPLES, 0);
+        }
+
+        // Points that do not fill a whole vector
+        scalarRange(src, dst, bound, points, originX, originY, originZ, xa, xc, za, zc);
+    }
+}